@@ -0,0 +1,72 @@
+package com.volley.benchmark;
+
+import com.volley.VolleyStatsApplication;
+import com.volley.model.Game;
+import com.volley.repository.GameRepository;
+import com.volley.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// Boots the real application against a private in-memory H2 database
+final class BenchmarkContext {
+
+    static final String ADMIN_EMAIL = "admin@volleyball.com";
+
+    private BenchmarkContext() {}
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID());
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--spring.jpa.properties.hibernate.format_sql=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--logging.level.com.volley=WARN");
+        args.add("--logging.level.org.springframework.security=WARN");
+        try {
+            args.add("--volley.eventlog.dir=" + Files.createTempDirectory("volley-bench-eventlog"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        args.addAll(Arrays.asList(properties));
+        return SpringApplication.run(VolleyStatsApplication.class, args.toArray(new String[0]));
+    }
+
+    // Stats are only accepted for games in the games table; the admin owns the benchmark's games
+    static void registerGames(ConfigurableApplicationContext context, String... gameIds) {
+        GameRepository games = context.getBean(GameRepository.class);
+        UserRepository users = context.getBean(UserRepository.class);
+        for (String gameId : gameIds) {
+            if (!games.existsById(gameId)) {
+                games.save(new Game(gameId, users.findByEmail(ADMIN_EMAIL).orElse(null)));
+            }
+        }
+    }
+
+    // Keeps the profile's own logging and SQL settings; only the port and data locations are private
+    static ConfigurableApplicationContext startProfile(String profiles, String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.profiles.active=" + profiles);
+        try {
+            if (Arrays.asList(profiles.split(",")).contains("prod")) {
+                args.add("--volley.db.dir=" + Files.createTempDirectory("volley-bench-db"));
+            } else {
+                args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID());
+            }
+            args.add("--volley.eventlog.dir=" + Files.createTempDirectory("volley-bench-eventlog"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        args.addAll(Arrays.asList(properties));
+        return SpringApplication.run(VolleyStatsApplication.class, args.toArray(new String[0]));
+    }
+}
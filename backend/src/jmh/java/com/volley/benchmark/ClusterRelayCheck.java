@@ -0,0 +1,246 @@
+package com.volley.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.VolleyStatsApplication;
+import com.volley.broadcast.GameSnapshotCache;
+import com.volley.cluster.GameOwnerFilter;
+import com.volley.cluster.GameSharding;
+import com.volley.security.JwtUtil;
+import com.volley.service.LiveGameAggregate;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Two nodes in one JVM sharing one H2 database, relaying broadcasts over the TCP game event bus.
+// A spectator on node B must see stats recorded on node A, and a write sent to the wrong node
+// must be forwarded to the game's owner, and a spectator joining on node B must start from the
+// owner's snapshot. Prints relay latency and exits non-zero on failure.
+//
+// mvn -Pjmh test-compile exec:exec -Djmh.main=com.volley.benchmark.ClusterRelayCheck -Djmh.args="updates=200"
+public final class ClusterRelayCheck {
+
+    private ClusterRelayCheck() {}
+
+    public static void main(String[] args) throws Exception {
+        int updates = 100;
+        for (String arg : args) {
+            if (arg.startsWith("updates=")) {
+                updates = Integer.parseInt(arg.substring("updates=".length()));
+            }
+        }
+
+        int[] ports = freePorts(4);
+        String nodes = "a=localhost:" + ports[0] + ":" + ports[1] + ",b=localhost:" + ports[2] + ":" + ports[3];
+        String database = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+        // Node A creates the schema and seeds it; node B starts against the existing tables
+        ConfigurableApplicationContext nodeA = startNode("a", ports[0], nodes, database, "create");
+        ConfigurableApplicationContext nodeB = startNode("b", ports[2], nodes, database, "none");
+        boolean passed = false;
+        try {
+            GameSharding sharding = nodeA.getBean(GameSharding.class);
+            String gameOnA = gameOwnedBy(sharding, "a");
+            BenchmarkContext.registerGames(nodeA, gameOnA);
+            String authorization = "Bearer " + nodeA.getBean(JwtUtil.class).generateToken(BenchmarkContext.ADMIN_EMAIL);
+            HttpClient client = HttpClient.newHttpClient();
+
+            BlockingQueue<Long> arrivals = new LinkedBlockingQueue<>();
+            WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            stompClient.setMessageConverter(new SimpleMessageConverter());
+            StompSession spectator = stompClient
+                .connectAsync("ws://localhost:" + ports[2] + "/ws/websocket", new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+            spectator.subscribe("/topic/games/" + gameOnA, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    arrivals.add(System.nanoTime());
+                }
+            });
+            Thread.sleep(500);
+
+            // Recorded on the owner, watched on the other node
+            long[] latencies = new long[updates];
+            int received = 0;
+            for (int i = 0; i < updates; i++) {
+                long start = System.nanoTime();
+                int status = postKill(client, ports[0], gameOnA, authorization).statusCode();
+                Long arrival = arrivals.poll(5, TimeUnit.SECONDS);
+                if (status != 200 || arrival == null) {
+                    System.out.printf("update %d: status=%d frame=%s%n", i, status, arrival != null);
+                    continue;
+                }
+                latencies[received++] = arrival - start;
+            }
+            Arrays.sort(latencies, 0, received);
+
+            // Sent to the node that does not own the game
+            HttpResponse<String> forwarded = postKill(client, ports[2], gameOnA, authorization);
+            boolean forwardedFrame = arrivals.poll(5, TimeUnit.SECONDS) != null;
+            String owner = forwarded.headers().firstValue(GameOwnerFilter.OWNER_HEADER).orElse("");
+
+            // A client claiming to be a peer is still forwarded, so the owner records the tap
+            LiveGameAggregate ownerAggregate = nodeA.getBean(LiveGameAggregate.class);
+            long killsBefore = kills(ownerAggregate, gameOnA);
+            HttpResponse<String> forged = postKill(client, ports[2], gameOnA, authorization,
+                GameOwnerFilter.FORWARDED_HEADER, "a");
+            boolean forgedForwarded = forged.statusCode() == 200 && kills(ownerAggregate, gameOnA) == killsBefore + 1;
+
+            // A spectator joining on node B starts from the owner's snapshot, not one seeded from B's box score
+            BlockingQueue<byte[]> snapshots = new LinkedBlockingQueue<>();
+            StompSession joining = stompClient
+                .connectAsync("ws://localhost:" + ports[2] + "/ws/websocket", new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+            joining.subscribe("/topic/games/" + gameOnA, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                }
+            });
+            joining.subscribe("/app/games/" + gameOnA, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    snapshots.add((byte[]) payload);
+                }
+            });
+            byte[] snapshotJson = snapshots.poll(5, TimeUnit.SECONDS);
+            JsonNode snapshot = snapshotJson != null ? nodeA.getBean(ObjectMapper.class).readTree(snapshotJson) : null;
+            long ownerSeq = nodeA.getBean(GameSnapshotCache.class).snapshot(gameOnA).getSeq();
+            boolean ownerSnapshot = snapshot != null && snapshot.path("seq").asLong() == ownerSeq
+                && snapshot.path("players").path("1").path("kills").asLong() == kills(ownerAggregate, gameOnA);
+            // Only peers may read it directly
+            int unsignedStatus = client.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + ports[0] + "/cluster/games/" + gameOnA + "/snapshot")).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+
+            System.out.printf("game %s owned by %s; %d/%d relayed frames, p50=%.1fms p99=%.1fms%n",
+                gameOnA, sharding.ownerOf(gameOnA).getId(), received, updates,
+                percentileMs(latencies, received, 0.50), percentileMs(latencies, received, 0.99));
+            System.out.printf("write to node b: status=%d owner=%s frame=%s%n", forwarded.statusCode(), owner, forwardedFrame);
+            System.out.printf("write to node b with a forged %s: status=%d recorded by owner=%s%n",
+                GameOwnerFilter.FORWARDED_HEADER, forged.statusCode(), forgedForwarded);
+
+            System.out.printf("snapshot on node b: seq=%s owner seq=%d matches owner=%s; unsigned snapshot request: status=%d%n",
+                snapshot != null ? snapshot.path("seq").asText() : "none", ownerSeq, ownerSnapshot, unsignedStatus);
+
+            spectator.disconnect();
+            joining.disconnect();
+            // Let the disconnects finish before the broker channels shut down
+            Thread.sleep(200);
+            passed = received == updates && forwarded.statusCode() == 200 && "a".equals(owner) && forwardedFrame
+                && forgedForwarded && ownerSnapshot && unsignedStatus == 403;
+        } finally {
+            nodeB.close();
+            nodeA.close();
+        }
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, int port, String nodes,
+                                                            String database, String ddl) throws IOException {
+        return SpringApplication.run(VolleyStatsApplication.class,
+            "--server.port=" + port,
+            "--spring.datasource.url=" + database,
+            "--spring.jpa.hibernate.ddl-auto=" + ddl,
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.com.volley=WARN",
+            "--logging.level.org.springframework.security=WARN",
+            "--volley.eventlog.dir=" + Files.createTempDirectory("volley-cluster-" + nodeId),
+            "--volley.cluster.node-id=" + nodeId,
+            "--volley.cluster.nodes=" + nodes,
+            "--volley.cluster.secret=cluster-relay-check",
+            "--volley.cluster.bus=tcp");
+    }
+
+    private static HttpResponse<String> postKill(HttpClient client, int port, String gameId, String authorization,
+                                                 String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/games/" + gameId + "/players/1/stats"))
+            .header("Authorization", authorization)
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(10))
+            .POST(HttpRequest.BodyPublishers.ofString("{\"kills\":1}"));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long kills(LiveGameAggregate aggregate, String gameId) {
+        Map<String, Long> player = aggregate.getBoxScore(gameId).getPlayers().get("1");
+        return player != null ? player.get("kills") : 0;
+    }
+
+    private static String gameOwnedBy(GameSharding sharding, String nodeId) {
+        for (int i = 0; ; i++) {
+            String gameId = "court-" + i;
+            if (sharding.ownerOf(gameId).getId().equals(nodeId)) {
+                return gameId;
+            }
+        }
+    }
+
+    private static int[] freePorts(int count) throws IOException {
+        ServerSocket[] sockets = new ServerSocket[count];
+        int[] ports = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                sockets[i] = new ServerSocket(0);
+                ports[i] = sockets[i].getLocalPort();
+            }
+        } finally {
+            for (ServerSocket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+        return ports;
+    }
+
+    private static double percentileMs(long[] sorted, int count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
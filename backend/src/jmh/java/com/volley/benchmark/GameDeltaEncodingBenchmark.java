@@ -0,0 +1,70 @@
+package com.volley.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.broadcast.GameDelta;
+import com.volley.broadcast.GameDeltaCodec;
+import com.volley.service.LiveGameAggregate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Encode cost of one coalesced broadcast frame, JSON vs the binary delta codec.
+// Frame sizes for each shape are printed at setup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameDeltaEncodingBenchmark {
+
+    // Players changed since the previous frame
+    @Param({"1", "4", "12"})
+    public int players;
+
+    @Param({"false", "true"})
+    public boolean withTeam;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GameDelta delta;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<String, int[]> playerDeltas = new LinkedHashMap<>();
+        for (int i = 0; i < players; i++) {
+            int[] deltas = new int[LiveGameAggregate.PLAYER_STAT_COUNT];
+            deltas[i % LiveGameAggregate.PLAYER_STAT_COUNT] = 1;
+            if (i % 3 == 0) {
+                deltas[LiveGameAggregate.PLAYER_ERRORS] = 1;
+            }
+            playerDeltas.put(Integer.toString(i + 1), deltas);
+        }
+        int[] teamTotals = withTeam ? new int[] {17, 4, 2, 3, 1} : null;
+        delta = new GameDelta("game-1718000000000", 1234, playerDeltas, teamTotals);
+
+        System.out.printf("%nframe bytes (players=%d, withTeam=%s): json=%d binary=%d%n", players, withTeam,
+            objectMapper.writeValueAsBytes(delta).length, GameDeltaCodec.encode(delta).length);
+    }
+
+    @Benchmark
+    public byte[] json() throws Exception {
+        return objectMapper.writeValueAsBytes(delta);
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return GameDeltaCodec.encode(delta);
+    }
+}
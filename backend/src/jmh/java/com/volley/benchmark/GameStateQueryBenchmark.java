@@ -0,0 +1,139 @@
+package com.volley.benchmark;
+
+import com.volley.service.GameHistoryService;
+import com.volley.service.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Point-in-time state late in one long game: nearest snapshot plus tail, vs replaying from the start
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GameStateQueryBenchmark {
+
+    private static final String GAME_ID = "long-game";
+    private static final int PLAYERS = 12;
+    // Every fourth event is a team tap
+    private static final int TEAM_EVERY = 4;
+    private static final int SETS = 5;
+    private static final int INSERT_BATCH = 5_000;
+
+    // Events in the game, player and team together
+    @Param({"10000", "100000"})
+    public int events;
+
+    // 0 takes no snapshots, so every query replays from the first event
+    @Param({"0", "200"})
+    public int snapshotEvery;
+
+    private ConfigurableApplicationContext context;
+    private GameHistoryService gameHistoryService;
+    private LocalDateTime late;
+    private long lateSeq;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("--volley.eventlog.enabled=false");
+        gameHistoryService = context.getBean(GameHistoryService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 18, 0);
+        int teamEvents = events / TEAM_EVERY;
+        List<Object[]> playerRows = new ArrayList<>(INSERT_BATCH);
+        List<Object[]> teamRows = new ArrayList<>(INSERT_BATCH);
+        List<LocalDateTime> snapshotTimes = new ArrayList<>();
+        long seq = 0;
+        for (int i = 0; i < events; i++) {
+            LocalDateTime timestamp = start.plusNanos(i * 250_000_000L);
+            if (i % TEAM_EVERY == 0) {
+                seq++;
+                boolean endOfSet = seq % (teamEvents / SETS) == 0;
+                teamRows.add(new Object[] {seq, GAME_ID, seq, 1, i % 5 == 0 ? 1 : 0, 0, i % 9 == 0 ? 1 : 0, 0,
+                    endOfSet, Timestamp.valueOf(timestamp)});
+            } else {
+                playerRows.add(new Object[] {(long) i + 1, GAME_ID, Integer.toString(i % PLAYERS),
+                    i % 3, i % 2, i % 5 == 0 ? 1 : 0, i % 4, i % 3 == 1 ? 1 : 0, i % 7 == 0 ? 1 : 0, Timestamp.valueOf(timestamp)});
+            }
+            if (snapshotEvery > 0 && (i + 1) % snapshotEvery == 0) {
+                snapshotTimes.add(timestamp);
+            }
+            if (playerRows.size() == INSERT_BATCH) {
+                insertPlayerStats(jdbcTemplate, playerRows);
+            }
+            if (teamRows.size() == INSERT_BATCH) {
+                insertTeamEvents(jdbcTemplate, teamRows);
+            }
+        }
+        insertPlayerStats(jdbcTemplate, playerRows);
+        insertTeamEvents(jdbcTemplate, teamRows);
+        jdbcTemplate.execute("ANALYZE");
+
+        // The same boundaries the live path would have snapshotted at
+        for (LocalDateTime snapshotTime : snapshotTimes) {
+            gameHistoryService.snapshot(GAME_ID, snapshotTime);
+        }
+
+        // A little before the end, so the query has a partial tail to apply
+        late = start.plusNanos((events - snapshotEvery / 2 - 1) * 250_000_000L);
+        lateSeq = seq - 10;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public GameState stateAtLateTimestamp() {
+        return gameHistoryService.stateAt(GAME_ID, late);
+    }
+
+    @Benchmark
+    public GameState stateAtLateSeq() {
+        return gameHistoryService.stateAtSeq(GAME_ID, lateSeq);
+    }
+
+    @Benchmark
+    public GameState stateAtEndOfSet4() {
+        return gameHistoryService.stateAtEndOfSet(GAME_ID, 4);
+    }
+
+    private static void insertPlayerStats(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO player_stats (id, game_id, player_id, kills, blocks, aces, digs, assists, errors, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    private static void insertTeamEvents(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO team_events (id, game_id, seq, total_points, errors, missed_serves, aces, timeouts, end_of_set, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
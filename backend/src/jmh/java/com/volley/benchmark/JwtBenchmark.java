@@ -0,0 +1,77 @@
+package com.volley.benchmark;
+
+import com.volley.security.JwtRequestFilter;
+import com.volley.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+// tokenCacheMaxSize=0 is the uncached baseline: one HMAC verification and one users query per request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"0", "10000"})
+    public String tokenCacheMaxSize;
+
+    private ConfigurableApplicationContext context;
+    private JwtUtil jwtUtil;
+    private JwtRequestFilter jwtRequestFilter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("--volley.security.token-cache.max-size=" + tokenCacheMaxSize);
+        jwtUtil = context.getBean(JwtUtil.class);
+        jwtRequestFilter = context.getBean(JwtRequestFilter.class);
+        token = jwtUtil.generateToken(BenchmarkContext.ADMIN_EMAIL);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(BenchmarkContext.ADMIN_EMAIL);
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/games/1/team-stats");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            jwtRequestFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
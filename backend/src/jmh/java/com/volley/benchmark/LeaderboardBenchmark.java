@@ -0,0 +1,172 @@
+package com.volley.benchmark;
+
+import com.volley.analytics.LeaderboardMetric;
+import com.volley.analytics.LeaderboardService;
+import com.volley.analytics.StatColumns;
+import com.volley.dto.LeaderboardEntry;
+import com.volley.model.PlayerStat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Season leaderboard over synthetic player_stats rows: the columnar engine on the common
+// fork/join pool and on one thread, vs grouping materialized PlayerStat entities by id.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LeaderboardBenchmark {
+
+    private static final int TEAMS = 40;
+    private static final int ROSTER = 12;
+    private static final int EVENTS_PER_GAME = 1_000;
+    private static final LocalDateTime SEASON_START = LocalDateTime.of(2024, 9, 1, 18, 0);
+
+    @Param({"10000000"})
+    public int events;
+
+    private StatColumns columns;
+    private ForkJoinPool singleThread;
+    private long seasonEnd;
+    private long secondHalf;
+
+    @Setup
+    public void setUp() {
+        StatColumns.Builder builder = new StatColumns.Builder(events);
+        generate(events, (game, sets, player, stats, timestamp) -> {
+            int gameCode = builder.gameCode(game);
+            builder.setGameSets(gameCode, sets);
+            builder.add(gameCode, builder.playerCode(player), stats[0], stats[1], stats[2], stats[3], stats[4],
+                stats[5], timestamp);
+        });
+        columns = builder.build();
+        singleThread = new ForkJoinPool(1);
+        seasonEnd = Long.MAX_VALUE;
+        secondHalf = Timestamp.valueOf(SEASON_START.plusDays(games(events) / 2)).getTime();
+        System.out.printf("%n%d rows, %d games, %d players, common pool parallelism %d%n", columns.size(),
+            columns.gameCount(), columns.playerCount(), ForkJoinPool.commonPool().getParallelism());
+    }
+
+    @TearDown
+    public void tearDown() {
+        singleThread.shutdown();
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> columnarKillsPerSet() {
+        return LeaderboardService.rank(columns, LeaderboardMetric.KILLS_PER_SET, Long.MIN_VALUE, seasonEnd, 3, 20,
+            ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> columnarKillsPerSetOneThread() {
+        return LeaderboardService.rank(columns, LeaderboardMetric.KILLS_PER_SET, Long.MIN_VALUE, seasonEnd, 3, 20,
+            singleThread);
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> columnarHittingEfficiencySecondHalf() {
+        return LeaderboardService.rank(columns, LeaderboardMetric.HITTING_EFFICIENCY, secondHalf, seasonEnd, 3, 20,
+            ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public List<String> entitiesKillsPerSet(Entities entities) {
+        return entities.killsPerSet();
+    }
+
+    // Built only for the entity benchmark; 10M entities need most of the 4g heap
+    @State(Scope.Benchmark)
+    public static class Entities {
+        List<PlayerStat> stats;
+        Map<String, Integer> gameSets;
+
+        @Setup(Level.Trial)
+        public void setUp(LeaderboardBenchmark benchmark) {
+            stats = new ArrayList<>(benchmark.events);
+            gameSets = new HashMap<>();
+            generate(benchmark.events, (game, sets, player, values, timestamp) -> {
+                gameSets.put(game, sets);
+                PlayerStat stat = new PlayerStat(game, player);
+                stat.setKills(values[0]);
+                stat.setBlocks(values[1]);
+                stat.setAces(values[2]);
+                stat.setDigs(values[3]);
+                stat.setAssists(values[4]);
+                stat.setErrors(values[5]);
+                stat.setTimestamp(new Timestamp(timestamp).toLocalDateTime());
+                stats.add(stat);
+            });
+        }
+
+        List<String> killsPerSet() {
+            Map<String, long[]> totals = new HashMap<>();
+            Set<String> playerGames = new HashSet<>();
+            for (PlayerStat stat : stats) {
+                long[] player = totals.computeIfAbsent(stat.getPlayerId(), id -> new long[2]);
+                player[0] += stat.getKills();
+                if (playerGames.add(stat.getPlayerId() + '|' + stat.getGameId())) {
+                    player[1] += gameSets.get(stat.getGameId());
+                }
+            }
+            List<String> players = new ArrayList<>(totals.keySet());
+            players.removeIf(id -> totals.get(id)[1] < 3);
+            players.sort(Comparator.comparingDouble((String id) -> (double) totals.get(id)[0] / totals.get(id)[1]).reversed());
+            return players.subList(0, Math.min(20, players.size()));
+        }
+    }
+
+    interface RowSink {
+        void row(String game, int sets, String player, int[] stats, long timestamp);
+    }
+
+    private static int games(int events) {
+        return Math.max(1, events / EVENTS_PER_GAME);
+    }
+
+    // One game a day between two of the teams, a tap every two seconds from the start of play
+    static void generate(int events, RowSink sink) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] stats = new int[6];
+        for (int game = 0; game < games(events); game++) {
+            String gameId = "game-" + game;
+            int sets = 3 + random.nextInt(3);
+            int home = random.nextInt(TEAMS);
+            int away = (home + 1 + random.nextInt(TEAMS - 1)) % TEAMS;
+            long start = Timestamp.valueOf(SEASON_START.plusDays(game)).getTime();
+            for (int event = 0; event < EVENTS_PER_GAME; event++) {
+                int team = random.nextBoolean() ? home : away;
+                String playerId = Integer.toString(team * ROSTER + random.nextInt(ROSTER) + 1);
+                Arrays.fill(stats, 0);
+                stats[random.nextInt(6)] = 1;
+                sink.row(gameId, sets, playerId, stats, start + event * 2_000L);
+            }
+        }
+    }
+}
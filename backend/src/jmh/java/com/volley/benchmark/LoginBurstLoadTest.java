@@ -0,0 +1,176 @@
+package com.volley.benchmark;
+
+import com.volley.security.JwtUtil;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Steady stat POSTs from a fixed set of scorers, with a burst of concurrent logins in the middle.
+// Prints stat-POST latency before, during and after the burst, and how the logins were answered.
+//
+// mvn -Pjmh test-compile exec:exec -Djmh.main=com.volley.benchmark.LoginBurstLoadTest \
+//     -Djmh.args="logins=500 scorers=20 pool=true"
+// Run again with pool=false (BCrypt on the Tomcat threads) for the baseline.
+public final class LoginBurstLoadTest {
+
+    private static final int PHASE_WARMUP = -1;
+    private static final int PHASE_BEFORE = 0;
+    private static final int PHASE_BURST = 1;
+    private static final int PHASE_AFTER = 2;
+
+    private LoginBurstLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        int logins = Integer.parseInt(options.getOrDefault("logins", "500"));
+        int scorers = Integer.parseInt(options.getOrDefault("scorers", "20"));
+        long phaseMs = Long.parseLong(options.getOrDefault("phaseMs", "5000"));
+        long thinkMs = Long.parseLong(options.getOrDefault("thinkMs", "20"));
+        String pool = options.getOrDefault("pool", "true");
+
+        ConfigurableApplicationContext context = BenchmarkContext.start("--volley.auth.login-pool.enabled=" + pool);
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken(BenchmarkContext.ADMIN_EMAIL);
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            for (int i = 0; i < scorers; i += 2) {
+                BenchmarkContext.registerGames(context, "court-" + (i / 2));
+            }
+
+            // Phase boundaries, read by the scorers to classify each sample
+            long[] boundaries = new long[] {System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(phaseMs), Long.MAX_VALUE, Long.MAX_VALUE};
+            List<List<long[]>> samples = new ArrayList<>();
+            ExecutorService scorerPool = Executors.newFixedThreadPool(scorers);
+            CountDownLatch done = new CountDownLatch(scorers);
+            AtomicBoolean stop = new AtomicBoolean();
+            for (int i = 0; i < scorers; i++) {
+                List<long[]> mine = new ArrayList<>();
+                samples.add(mine);
+                HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/api/games/court-" + (i / 2) + "/players/" + (i % 2 + 1) + "/stats"))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"kills\":1}"))
+                    .build();
+                scorerPool.execute(() -> {
+                    try {
+                        while (!stop.get()) {
+                            long start = System.nanoTime();
+                            int status;
+                            try {
+                                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            } catch (Exception e) {
+                                status = -1;
+                            }
+                            synchronized (boundaries) {
+                                int phase = start < boundaries[0] ? PHASE_WARMUP : start < boundaries[1] ? PHASE_BEFORE
+                                    : start < boundaries[2] ? PHASE_BURST : PHASE_AFTER;
+                                mine.add(new long[] {phase, System.nanoTime() - start, status});
+                            }
+                            Thread.sleep(thinkMs);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            Thread.sleep(2 * phaseMs);
+            synchronized (boundaries) {
+                boundaries[1] = System.nanoTime();
+            }
+            Map<String, Integer> outcomes = new ConcurrentHashMap<>();
+            long[] loginLatencies = new long[logins];
+            HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(120))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"email\":\"" + BenchmarkContext.ADMIN_EMAIL + "\",\"password\":\"password123\"}"))
+                .build();
+            // Its own client, so the burst's connections never queue behind the scorers'
+            HttpClient loginClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+            CompletableFuture<?>[] burst = new CompletableFuture<?>[logins];
+            for (int i = 0; i < logins; i++) {
+                int index = i;
+                long start = System.nanoTime();
+                burst[i] = loginClient.sendAsync(login, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        loginLatencies[index] = System.nanoTime() - start;
+                        String outcome = error == null ? Integer.toString(response.statusCode()) : error.getClass().getSimpleName();
+                        outcomes.merge(outcome, 1, Integer::sum);
+                        return null;
+                    });
+            }
+            CompletableFuture.allOf(burst).join();
+            long burstMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - boundaries[1]);
+            synchronized (boundaries) {
+                boundaries[2] = System.nanoTime();
+            }
+            Thread.sleep(phaseMs);
+            stop.set(true);
+            done.await();
+            scorerPool.shutdown();
+
+            System.out.printf("login pool=%s logins=%d scorers=%d think=%dms cores=%d%n",
+                pool, logins, scorers, thinkMs, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-8s %9s %9s %9s %9s %7s%n", "phase", "requests", "p50 ms", "p99 ms", "max ms", "errors");
+            String[] names = {"before", "burst", "after"};
+            for (int phase = PHASE_BEFORE; phase <= PHASE_AFTER; phase++) {
+                List<Long> latencies = new ArrayList<>();
+                int errors = 0;
+                for (List<long[]> scorer : samples) {
+                    for (long[] sample : scorer) {
+                        if (sample[0] == phase) {
+                            latencies.add(sample[1]);
+                            if (sample[2] != 200) {
+                                errors++;
+                            }
+                        }
+                    }
+                }
+                long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+                System.out.printf("%-8s %9d %9.1f %9.1f %9.1f %7d%n", names[phase], sorted.length,
+                    percentileMs(sorted, 0.50), percentileMs(sorted, 0.99), percentileMs(sorted, 1.0), errors);
+            }
+            Arrays.sort(loginLatencies);
+            System.out.printf("logins: %s, burst took %dms, login p50=%.1fms p99=%.1fms%n",
+                new TreeMap<>(outcomes), burstMs, percentileMs(loginLatencies, 0.50), percentileMs(loginLatencies, 0.99));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
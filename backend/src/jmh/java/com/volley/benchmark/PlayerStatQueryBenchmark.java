@@ -0,0 +1,147 @@
+package com.volley.benchmark;
+
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamStat;
+import com.volley.repository.PlayerStatPoint;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.repository.PlayerStatTotals;
+import com.volley.repository.TeamStatRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Read-path latency against a season-sized player_stats table, with and without the indexes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PlayerStatQueryBenchmark {
+
+    private static final int PLAYERS_PER_GAME = 12;
+    private static final int TAPS_PER_PLAYER = 20;
+    private static final int ROWS_PER_GAME = PLAYERS_PER_GAME * TAPS_PER_PLAYER;
+    private static final int INSERT_BATCH = 5_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    // false drops the indexes and the unique constraint to show the full-scan baseline
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private PlayerStatRepository playerStatRepository;
+    private TeamStatRepository teamStatRepository;
+    private int games;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("--volley.eventlog.enabled=false");
+        playerStatRepository = context.getBean(PlayerStatRepository.class);
+        teamStatRepository = context.getBean(TeamStatRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        if (!indexed) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_player_stats_game_player_ts");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_player_stats_game_ts");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_player_stats_ts");
+            jdbcTemplate.execute("ALTER TABLE team_stats DROP CONSTRAINT IF EXISTS uk_team_stats_game_id");
+        }
+
+        games = Math.max(1, rows / ROWS_PER_GAME);
+        LocalDateTime seasonStart = LocalDateTime.of(2024, 1, 1, 18, 0);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < rows; i++) {
+            int game = (i / ROWS_PER_GAME) % games;
+            int player = i % PLAYERS_PER_GAME;
+            Timestamp timestamp = Timestamp.valueOf(seasonStart.plusDays(game).plusSeconds(i % ROWS_PER_GAME * 10L));
+            batch.add(new Object[] {
+                (long) i + 1, gameId(game), Integer.toString(player),
+                i % 3, i % 2, i % 5 == 0 ? 1 : 0, i % 4, i % 3 == 1 ? 1 : 0, i % 7 == 0 ? 1 : 0, timestamp
+            });
+            if (batch.size() == INSERT_BATCH) {
+                insertPlayerStats(jdbcTemplate, batch);
+            }
+        }
+        insertPlayerStats(jdbcTemplate, batch);
+
+        List<Object[]> teamRows = new ArrayList<>(games);
+        for (int game = 0; game < games; game++) {
+            teamRows.add(new Object[] {gameId(game), Timestamp.valueOf(seasonStart.plusDays(game))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO team_stats (game_id, total_points, errors, missed_serves, aces, timeouts, timestamp) " +
+            "VALUES (?, 0, 0, 0, 0, 0, ?)", teamRows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PlayerStat> playerTimelineEntities() {
+        int game = nextGame();
+        return playerStatRepository.findByGameIdAndPlayerIdOrderByTimestampAsc(gameId(game), playerId(game));
+    }
+
+    @Benchmark
+    public List<PlayerStatPoint> playerTimelineProjection() {
+        int game = nextGame();
+        return playerStatRepository.findReportPoints(gameId(game), playerId(game));
+    }
+
+    @Benchmark
+    public List<PlayerStatTotals> gameTotalsByPlayer() {
+        return playerStatRepository.sumByPlayerForGame(gameId(nextGame()));
+    }
+
+    @Benchmark
+    public Optional<TeamStat> teamStatByGame() {
+        return teamStatRepository.findByGameId(gameId(nextGame()));
+    }
+
+    // Rotate through games so each call touches different rows
+    private int nextGame() {
+        next = (next + 1) % games;
+        return next;
+    }
+
+    private static void insertPlayerStats(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO player_stats (id, game_id, player_id, kills, blocks, aces, digs, assists, errors, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    private static String gameId(int game) {
+        return "season-game-" + game;
+    }
+
+    private static String playerId(int game) {
+        return Integer.toString(game % PLAYERS_PER_GAME);
+    }
+}
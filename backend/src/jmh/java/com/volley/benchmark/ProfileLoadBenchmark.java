@@ -0,0 +1,105 @@
+package com.volley.benchmark;
+
+import com.volley.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Concurrent HTTP load against a real server, default profile vs prod
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class ProfileLoadBenchmark {
+
+    private static final String GAME_ID = "bench-game";
+
+    @Param({"default", "prod"})
+    public String profile;
+
+    private ConfigurableApplicationContext context;
+    private PrintStream originalOut;
+    private HttpClient client;
+    private HttpRequest recordPlayerStat;
+    private HttpRequest getTeamStats;
+    private HttpRequest getPlayers;
+
+    @Setup
+    public void setUp() throws IOException {
+        // The default profile prints every SQL statement; send it to a file so the
+        // cost is still paid but the JMH output stays readable
+        originalOut = System.out;
+        System.setOut(new PrintStream(new FileOutputStream(Files.createTempFile("volley-bench", ".log").toFile()), true));
+
+        context = BenchmarkContext.startProfile(profile);
+        BenchmarkContext.registerGames(context, GAME_ID);
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/games/" + GAME_ID;
+        String authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken(BenchmarkContext.ADMIN_EMAIL);
+
+        client = HttpClient.newHttpClient();
+        recordPlayerStat = HttpRequest.newBuilder(URI.create(baseUrl + "/players/1/stats"))
+            .header("Authorization", authorization)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"kills\":1}"))
+            .build();
+        getTeamStats = HttpRequest.newBuilder(URI.create(baseUrl + "/team-stats"))
+            .header("Authorization", authorization)
+            .build();
+        getPlayers = HttpRequest.newBuilder(URI.create(baseUrl + "/players"))
+            .header("Authorization", authorization)
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public int recordPlayerStat() throws Exception {
+        return send(recordPlayerStat);
+    }
+
+    @Benchmark
+    public int getTeamStats() throws Exception {
+        return send(getTeamStats);
+    }
+
+    @Benchmark
+    public int getPlayers() throws Exception {
+        return send(getPlayers);
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + request.uri());
+        }
+        return response.statusCode();
+    }
+}
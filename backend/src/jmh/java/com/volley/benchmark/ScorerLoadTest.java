@@ -0,0 +1,165 @@
+package com.volley.benchmark;
+
+import com.volley.security.JwtUtil;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Ramps up concurrent scorers against a real server and reports latency percentiles per step.
+//
+// mvn -Pjmh test-compile exec:exec -Djmh.main=com.volley.benchmark.ScorerLoadTest \
+//     -Djmh.args="profiles=default scorers=50,100,200,400,800"
+// Run once with profiles=default and once with profiles=virtual (Java 21, -Pjava21) and compare.
+public final class ScorerLoadTest {
+
+    private static final int PLAYERS_PER_COURT = 12;
+    private static final int SCORERS_PER_COURT = 2;
+
+    private ScorerLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        String profiles = options.getOrDefault("profiles", "default");
+        int[] levels = Arrays.stream(options.getOrDefault("scorers", "25,50,100,200,400,800").split(","))
+            .mapToInt(level -> Integer.parseInt(level.trim()))
+            .toArray();
+        long stepMs = Long.parseLong(options.getOrDefault("stepMs", "10000"));
+        long thinkMs = Long.parseLong(options.getOrDefault("thinkMs", "50"));
+        long p99SloMs = Long.parseLong(options.getOrDefault("p99SloMs", "250"));
+
+        ConfigurableApplicationContext context = BenchmarkContext.startProfile(profiles,
+            "--logging.level.root=WARN", "--logging.level.com.volley=WARN",
+            "--logging.level.org.springframework.security=WARN", "--spring.jpa.show-sql=false");
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/games/";
+            String authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken(BenchmarkContext.ADMIN_EMAIL);
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            int courts = (Arrays.stream(levels).max().orElse(0) + SCORERS_PER_COURT - 1) / SCORERS_PER_COURT;
+            for (int court = 0; court < courts; court++) {
+                BenchmarkContext.registerGames(context, "court-" + court);
+            }
+
+            System.out.printf("profiles=%s java=%s step=%dms think=%dms p99 SLO=%dms%n",
+                profiles, Runtime.version(), stepMs, thinkMs, p99SloMs);
+            System.out.printf("%8s %10s %9s %9s %9s %9s %7s%n", "scorers", "req/s", "p50 ms", "p99 ms", "max ms", "errors", "SLO");
+
+            int maxWithinSlo = 0;
+            for (int scorers : levels) {
+                Step step = runStep(client, baseUrl, authorization, scorers, stepMs, thinkMs);
+                boolean withinSlo = step.errors == 0 && step.percentileMs(0.99) <= p99SloMs;
+                if (withinSlo) {
+                    maxWithinSlo = scorers;
+                }
+                System.out.printf("%8d %10.1f %9.1f %9.1f %9.1f %9d %7s%n", scorers,
+                    step.count * 1000.0 / stepMs, step.percentileMs(0.50), step.percentileMs(0.99),
+                    step.percentileMs(1.0), step.errors, withinSlo ? "ok" : "MISS");
+            }
+            System.out.printf("max concurrent scorers within SLO: %d%n", maxWithinSlo);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Step runStep(HttpClient client, String baseUrl, String authorization,
+                                int scorers, long stepMs, long thinkMs) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(scorers);
+        CountDownLatch done = new CountDownLatch(scorers);
+        long[][] latencies = new long[scorers][];
+        int[] counts = new int[scorers];
+        int[] errors = new int[scorers];
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stepMs);
+
+        for (int i = 0; i < scorers; i++) {
+            int scorer = i;
+            // Two scorers per court, each covering its own half of the roster
+            String gameId = "court-" + (scorer / SCORERS_PER_COURT);
+            String playerId = Integer.toString(scorer % SCORERS_PER_COURT * (PLAYERS_PER_COURT / SCORERS_PER_COURT) + 1);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + gameId + "/players/" + playerId + "/stats"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"kills\":1}"))
+                .build();
+
+            pool.execute(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors[scorer]++;
+                            }
+                        } catch (Exception e) {
+                            errors[scorer]++;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                        if (thinkMs > 0) {
+                            Thread.sleep(thinkMs);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latencies[scorer] = samples;
+                    counts[scorer] = count;
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        pool.shutdown();
+        return new Step(latencies, counts, errors);
+    }
+
+    private static class Step {
+        final long[] sorted;
+        final int count;
+        final int errors;
+
+        Step(long[][] latencies, int[] counts, int[] errors) {
+            int total = Arrays.stream(counts).sum();
+            long[] merged = new long[total];
+            int offset = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                System.arraycopy(latencies[i], 0, merged, offset, counts[i]);
+                offset += counts[i];
+            }
+            Arrays.sort(merged);
+            this.sorted = merged;
+            this.count = total;
+            this.errors = Arrays.stream(errors).sum();
+        }
+
+        double percentileMs(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package com.volley.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.broadcast.GameBroadcastScheduler;
+import com.volley.model.PlayerStat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Spectators that cannot keep up, next to spectators that can. Stalled clients subscribe and then
+// never read; trickle clients read trickleBytes a second through a tiny receive window. Taps go
+// straight to the broadcast scheduler at a steady rate, so nothing but delivery grows the heap,
+// and every reportSeconds the heap after a full GC is printed with the slow-consumer metrics.
+//
+// Passes when fast and trickle clients (still connected at the end) hold exact totals, i.e. merged
+// frames lost nothing, and the heap after GC at the end is within maxHeapGrowthMb of where it was
+// once every client had subscribed. Run with conflate=false for Spring's buffering decorator.
+//
+// mvn -Pjmh test-compile exec:exec -Djmh.main=com.volley.benchmark.SlowSpectatorSoak -Djmh.args="seconds=120 stalled=200"
+public final class SlowSpectatorSoak {
+
+    private static final int PLAYERS = 12;
+
+    private SlowSpectatorSoak() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        boolean conflate = Boolean.parseBoolean(options.getOrDefault("conflate", "true"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+        int games = Integer.parseInt(options.getOrDefault("games", "4"));
+        int stalled = Integer.parseInt(options.getOrDefault("stalled", "100"));
+        int trickle = Integer.parseInt(options.getOrDefault("trickle", "20"));
+        int fast = Integer.parseInt(options.getOrDefault("fast", "20"));
+        int tapsPerSecond = Integer.parseInt(options.getOrDefault("taps", "400"));
+        int trickleBytes = Integer.parseInt(options.getOrDefault("trickleBytes", "2048"));
+        int reportSeconds = Integer.parseInt(options.getOrDefault("reportSeconds", "10"));
+        long maxHeapGrowthMb = Long.parseLong(options.getOrDefault("maxHeapGrowthMb", "32"));
+
+        ConfigurableApplicationContext context = BenchmarkContext.start(
+            "--volley.broadcast.interval-ms=" + options.getOrDefault("intervalMs", "10"),
+            "--volley.stomp.conflate=" + conflate,
+            "--volley.stomp.send-time-limit-ms=" + options.getOrDefault("sendTimeLimitMs", "10000"),
+            "--volley.stomp.send-buffer-size-bytes=" + options.getOrDefault("sendBufferBytes", "131072"),
+            // Otherwise the kernel absorbs megabytes per stalled socket before the server notices
+            "--volley.stomp.socket-send-buffer-bytes=" + options.getOrDefault("socketBufferBytes", "16384"),
+            "--logging.level.org.springframework.web.socket=ERROR");
+        boolean passed;
+        try {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            GameBroadcastScheduler scheduler = context.getBean(GameBroadcastScheduler.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+            for (int game = 0; game < games; game++) {
+                BenchmarkContext.registerGames(context, gameId(game));
+                // As StatsService does before a game's first write; a subscriber registered after the
+                // first delta would otherwise get a snapshot seeded without it
+                scheduler.preload(gameId(game));
+            }
+            List<Spectator> spectators = new ArrayList<>();
+            for (int i = 0; i < stalled; i++) {
+                spectators.add(new Spectator("stalled", port, gameId(i % games), 0, objectMapper));
+            }
+            for (int i = 0; i < trickle; i++) {
+                spectators.add(new Spectator("trickle", port, gameId(i % games), trickleBytes, objectMapper));
+            }
+            for (int i = 0; i < fast; i++) {
+                spectators.add(new Spectator("fast", port, gameId(i % games), Integer.MAX_VALUE, objectMapper));
+            }
+            for (Spectator spectator : spectators) {
+                spectator.start();
+            }
+            // Subscriptions are registered asynchronously; frames sent before then would never count
+            long subscribeDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (gauge(registry, "volley.broadcast.subscribers") < spectators.size()) {
+                if (System.nanoTime() > subscribeDeadline) {
+                    throw new IllegalStateException("Only " + (int) gauge(registry, "volley.broadcast.subscribers")
+                        + " of " + spectators.size() + " spectators subscribed");
+                }
+                Thread.sleep(50);
+            }
+
+            System.out.printf("conflate=%s games=%d stalled=%d trickle=%d fast=%d taps/s=%d cpus=%d%n",
+                conflate, games, stalled, trickle, fast, tapsPerSecond, Runtime.getRuntime().availableProcessors());
+            long baselineHeap = heapAfterGc(memory);
+            System.out.printf("%6s %9s %8s %9s %10s %8s %9s %9s %9s %9s%n", "t s", "heap MB", "lagging",
+                "queued KB", "conflated", "dropped", "lag p99", "lag max", "fast f/s", "trkl f/s");
+
+            // Expected kills per game and player
+            Map<String, long[]> expected = new ConcurrentHashMap<>();
+            Thread tapper = new Thread(() -> {
+                long intervalNanos = TimeUnit.SECONDS.toNanos(1) / tapsPerSecond;
+                long next = System.nanoTime();
+                while (!Thread.currentThread().isInterrupted()) {
+                    int game = ThreadLocalRandom.current().nextInt(games);
+                    int player = ThreadLocalRandom.current().nextInt(PLAYERS);
+                    PlayerStat stat = new PlayerStat(gameId(game), "player-" + player);
+                    stat.setKills(1);
+                    scheduler.playerStatRecorded(gameId(game), stat);
+                    expected.computeIfAbsent(gameId(game), id -> new long[PLAYERS])[player]++;
+                    next += intervalNanos;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(sleep);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }, "soak-tapper");
+            tapper.start();
+
+            long start = System.nanoTime();
+            long fastFrames = 0;
+            long trickleFrames = 0;
+            for (int elapsed = reportSeconds; elapsed <= seconds; elapsed += reportSeconds) {
+                long wake = start + TimeUnit.SECONDS.toNanos(elapsed);
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, wake - System.nanoTime()));
+                long fastNow = frames(spectators, "fast");
+                long trickleNow = frames(spectators, "trickle");
+                Timer lag = registry.find("volley.stomp.session.lag").timer();
+                System.out.printf("%6d %9.1f %8.0f %9.1f %10.0f %8.0f %9s %9s %9.0f %9.0f%n",
+                    elapsed,
+                    heapAfterGc(memory) / 1048576.0,
+                    gauge(registry, "volley.stomp.sessions.lagging"),
+                    gauge(registry, "volley.stomp.queued.bytes") / 1024,
+                    counter(registry, "volley.stomp.frames.conflated"),
+                    dropped(registry),
+                    lag != null ? formatMs(p99(lag)) : "-",
+                    conflate ? formatMs(gauge(registry, "volley.stomp.session.lag.max") * 1000) : "-",
+                    (fastNow - fastFrames) / (double) reportSeconds,
+                    (trickleNow - trickleFrames) / (double) reportSeconds);
+                fastFrames = fastNow;
+                trickleFrames = trickleNow;
+            }
+
+            tapper.interrupt();
+            tapper.join();
+            long endHeap = heapAfterGc(memory);
+
+            // Let the last broadcast reach fast clients; trickle clients get one merged frame
+            // once they catch up, so they get longer
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            int exact = 0;
+            int checked = 0;
+            while (System.nanoTime() < deadline) {
+                exact = 0;
+                checked = 0;
+                for (Spectator spectator : spectators) {
+                    if (!spectator.kind.equals("stalled") && spectator.connected) {
+                        checked++;
+                        if (spectator.matches(expected.get(spectator.gameId))) {
+                            exact++;
+                        }
+                    }
+                }
+                if (exact == checked) {
+                    break;
+                }
+                Thread.sleep(200);
+            }
+
+            int fastConnected = connected(spectators, "fast");
+            System.out.printf("heap after GC: %.1f MB at start, %.1f MB at end%n",
+                baselineHeap / 1048576.0, endHeap / 1048576.0);
+            // Stalled clients never read, so only the server knows whether it dropped them
+            System.out.printf("connected at end: trickle %d/%d, fast %d/%d; sessions dropped %.0f; exact totals %d/%d; "
+                + "frames out of order %d%n",
+                connected(spectators, "trickle"), trickle, fastConnected, fast, dropped(registry), exact, checked,
+                spectators.stream().mapToLong(s -> s.reordered.sum()).sum());
+            passed = exact == checked && fastConnected == fast
+                && endHeap - baselineHeap < maxHeapGrowthMb * 1048576;
+            for (Spectator spectator : spectators) {
+                spectator.close();
+            }
+            // Let the disconnects finish before the broker channels shut down
+            Thread.sleep(1000);
+        } finally {
+            context.close();
+        }
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static String gameId(int game) {
+        return "soak-game-" + game;
+    }
+
+    private static long heapAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double gauge(MeterRegistry registry, String name) {
+        return registry.find(name).gauge() != null ? registry.find(name).gauge().value() : 0;
+    }
+
+    private static double counter(MeterRegistry registry, String name) {
+        return registry.find(name).counter() != null ? registry.find(name).counter().count() : 0;
+    }
+
+    private static double dropped(MeterRegistry registry) {
+        return registry.find("volley.stomp.sessions.dropped").counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    private static double p99(Timer timer) {
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.99) {
+                return percentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return timer.max(TimeUnit.MILLISECONDS);
+    }
+
+    private static String formatMs(double ms) {
+        return ms >= 1000 ? String.format("%.1fs", ms / 1000) : String.format("%.1fms", ms);
+    }
+
+    private static long frames(List<Spectator> spectators, String kind) {
+        return spectators.stream().filter(s -> s.kind.equals(kind)).mapToLong(s -> s.frames.sum()).sum();
+    }
+
+    private static int connected(List<Spectator> spectators, String kind) {
+        return (int) spectators.stream().filter(s -> s.kind.equals(kind) && s.connected).count();
+    }
+
+    // STOMP over a plain socket, so reads can be throttled down to the TCP window
+    private static class Spectator extends Thread {
+        final String kind;
+        final String gameId;
+        final LongAdder frames = new LongAdder();
+        final LongAdder reordered = new LongAdder();
+        final Map<String, long[]> kills = new ConcurrentHashMap<>();
+        volatile boolean connected;
+        private final int port;
+        private final int bytesPerSecond;
+        private final ObjectMapper objectMapper;
+        private final AtomicLong lastSeq = new AtomicLong();
+        // Deltas are buffered until the GAME_SNAPSHOT arrives, then only newer ones are applied
+        private final List<JsonNode> early = new ArrayList<>();
+        private long snapshotSeq = -1;
+        private Socket socket;
+
+        Spectator(String kind, int port, String gameId, int bytesPerSecond, ObjectMapper objectMapper) {
+            super("soak-" + kind);
+            setDaemon(true);
+            this.kind = kind;
+            this.port = port;
+            this.gameId = gameId;
+            this.bytesPerSecond = bytesPerSecond;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void run() {
+            try {
+                socket = new Socket();
+                if (bytesPerSecond != Integer.MAX_VALUE) {
+                    socket.setReceiveBufferSize(4096);
+                }
+                socket.connect(new InetSocketAddress("localhost", port));
+                OutputStream out = socket.getOutputStream();
+                InputStream in = bytesPerSecond == Integer.MAX_VALUE
+                    ? socket.getInputStream()
+                    : new ThrottledInputStream(socket.getInputStream(), bytesPerSecond);
+                DataInputStream data = new DataInputStream(in);
+
+                byte[] key = new byte[16];
+                ThreadLocalRandom.current().nextBytes(key);
+                out.write(("GET /ws/websocket HTTP/1.1\r\nHost: localhost:" + port + "\r\nUpgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\nSec-WebSocket-Key: " + Base64.getEncoder().encodeToString(key)
+                    + "\r\nSec-WebSocket-Version: 13\r\nSec-WebSocket-Protocol: v12.stomp\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+                readHandshake(socket.getInputStream());
+                sendFrame(out, "CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,0\n\n\0");
+                sendFrame(out, "SUBSCRIBE\nid:sub-0\ndestination:/topic/games/" + gameId + "\n\n\0");
+                sendFrame(out, "SUBSCRIBE\nid:sub-1\ndestination:/app/games/" + gameId + "\n\n\0");
+                connected = true;
+                if (bytesPerSecond == 0) {
+                    // Stalled: never reads again
+                    return;
+                }
+                while (true) {
+                    String frame = readFrame(data);
+                    if (frame == null) {
+                        break;
+                    }
+                    if (frame.startsWith("MESSAGE\n")) {
+                        onMessage(frame);
+                    }
+                }
+                connected = false;
+            } catch (IOException e) {
+                connected = false;
+            }
+        }
+
+        boolean matches(long[] expected) {
+            if (expected == null) {
+                return true;
+            }
+            for (int player = 0; player < PLAYERS; player++) {
+                long[] got = kills.get("player-" + player);
+                if ((got != null ? got[0] : 0) != expected[player]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void close() {
+            try {
+                if (socket != null) {
+                    socket.close();
+                }
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+
+        private void onMessage(String frame) throws IOException {
+            frames.increment();
+            int body = frame.indexOf("\n\n");
+            int end = frame.lastIndexOf('\0');
+            JsonNode delta = objectMapper.readTree(frame.substring(body + 2, end > body ? end : frame.length()));
+            long seq = delta.path("seq").asLong();
+            // Without preservePublishOrder the outbound channel can swap two frames
+            if (seq < lastSeq.getAndAccumulate(seq, Math::max)) {
+                reordered.increment();
+            }
+            if ("GAME_SNAPSHOT".equals(delta.path("type").asText())) {
+                snapshotSeq = seq;
+                delta.path("players").fields().forEachRemaining(entry ->
+                    kills.computeIfAbsent(entry.getKey(), id -> new long[1])[0] = entry.getValue().path("kills").asLong());
+                early.forEach(this::apply);
+                early.clear();
+            } else if (snapshotSeq < 0) {
+                early.add(delta);
+            } else {
+                apply(delta);
+            }
+        }
+
+        private void apply(JsonNode delta) {
+            if (delta.path("seq").asLong() <= snapshotSeq) {
+                return;
+            }
+            delta.path("players").fields().forEachRemaining(entry ->
+                kills.computeIfAbsent(entry.getKey(), id -> new long[1])[0] += entry.getValue().path("kills").asLong());
+        }
+
+        private static void readHandshake(InputStream in) throws IOException {
+            StringBuilder response = new StringBuilder();
+            while (response.length() < 4 || !response.substring(response.length() - 4).equals("\r\n\r\n")) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("Handshake closed");
+                }
+                response.append((char) b);
+            }
+            if (!response.toString().startsWith("HTTP/1.1 101")) {
+                throw new IOException("Handshake failed: " + response);
+            }
+        }
+
+        // Client frames must be masked; an all-zero key leaves the payload as is
+        private static void sendFrame(OutputStream out, String text) throws IOException {
+            byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            frame.write(0x81);
+            if (payload.length < 126) {
+                frame.write(0x80 | payload.length);
+            } else {
+                frame.write(0x80 | 126);
+                frame.write(payload.length >>> 8);
+                frame.write(payload.length & 0xFF);
+            }
+            frame.write(new byte[4]);
+            frame.write(payload);
+            out.write(frame.toByteArray());
+            out.flush();
+        }
+
+        // Text payload of the next data frame, null on close
+        private static String readFrame(DataInputStream in) throws IOException {
+            while (true) {
+                int first = in.readUnsignedByte();
+                int second = in.readUnsignedByte();
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                } else if (length == 127) {
+                    length = in.readLong();
+                }
+                byte[] payload = new byte[(int) length];
+                in.readFully(payload);
+                int opcode = first & 0x0F;
+                if (opcode == 0x8) {
+                    return null;
+                }
+                if (opcode == 0x1 || opcode == 0x2) {
+                    return new String(payload, StandardCharsets.UTF_8);
+                }
+            }
+        }
+    }
+
+    // Reads at most bytesPerSecond, in small pieces, so the server sees a receiver that keeps falling behind
+    private static class ThrottledInputStream extends InputStream {
+        private final InputStream in;
+        private final int bytesPerSecond;
+        private long windowStart = System.nanoTime();
+        private int readInWindow;
+
+        ThrottledInputStream(InputStream in, int bytesPerSecond) {
+            this.in = in;
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStart = now;
+                readInWindow = 0;
+            }
+            if (readInWindow >= bytesPerSecond) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(windowStart + TimeUnit.SECONDS.toNanos(1) - now);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                windowStart = System.nanoTime();
+                readInWindow = 0;
+            }
+            int read = in.read(buffer, offset, Math.min(length, Math.min(256, bytesPerSecond - readInWindow)));
+            if (read > 0) {
+                readInWindow += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.volley.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.TeamStatRequest;
+import com.volley.service.BoxScore;
+import com.volley.service.StatsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// A reconnect storm: spectators keep dropping their STOMP connection and subscribing again while
+// stats are recorded through StatsService, and rebuild the game from nothing but their subscriptions:
+// the GAME_SNAPSHOT from /app/games/{gameId}, plus the /topic/games/{gameId} deltas with a higher
+// seq. Each spectator's last connection is made while taps are still flowing; once they stop, every
+// spectator must hold exactly the live box score. Also prints how long a snapshot takes to arrive
+// and how often one had to be serialized rather than served from the cache.
+//
+// mvn -Pjmh test-compile exec:exec -Djmh.main=com.volley.benchmark.SnapshotReconnectCheck -Djmh.args="seconds=60 spectators=400"
+public final class SnapshotReconnectCheck {
+
+    private static final int PLAYERS = 12;
+
+    private SnapshotReconnectCheck() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int games = Integer.parseInt(options.getOrDefault("games", "4"));
+        int spectatorCount = Integer.parseInt(options.getOrDefault("spectators", "200"));
+        int tapsPerSecond = Integer.parseInt(options.getOrDefault("taps", "200"));
+        // Every teamEvery-th tap is a team point instead of a kill
+        int teamEvery = Integer.parseInt(options.getOrDefault("teamEvery", "10"));
+        int maxHoldMs = Integer.parseInt(options.getOrDefault("maxHoldMs", "2000"));
+
+        ConfigurableApplicationContext context = BenchmarkContext.start(
+            "--volley.broadcast.interval-ms=" + options.getOrDefault("intervalMs", "20"),
+            "--logging.level.org.springframework.web.socket=ERROR");
+        boolean passed = false;
+        try {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            StatsService statsService = context.getBean(StatsService.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+            PlayerStatRequest kill = new PlayerStatRequest();
+            kill.setKills(1);
+            TeamStatRequest point = new TeamStatRequest();
+            point.setTotalPoints(1);
+            for (int game = 0; game < games; game++) {
+                BenchmarkContext.registerGames(context, gameId(game));
+            }
+            // Stats from before anyone watched, so the snapshot has to carry them
+            for (int i = 0; i < games * 50; i++) {
+                statsService.recordPlayerStat(gameId(i % games), "player-" + (i % PLAYERS), kill);
+            }
+
+            WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            stompClient.setMessageConverter(new SimpleMessageConverter());
+            String url = "ws://localhost:" + port + "/ws/websocket";
+
+            AtomicInteger running = new AtomicInteger(1);
+            List<Spectator> spectators = new ArrayList<>();
+            for (int i = 0; i < spectatorCount; i++) {
+                Spectator spectator = new Spectator(stompClient, url, gameId(i % games), maxHoldMs, running, objectMapper);
+                spectators.add(spectator);
+                spectator.start();
+            }
+
+            Thread tapper = new Thread(() -> {
+                long intervalNanos = TimeUnit.SECONDS.toNanos(1) / tapsPerSecond;
+                long next = System.nanoTime();
+                long taps = 0;
+                while (!Thread.currentThread().isInterrupted()) {
+                    String game = gameId(ThreadLocalRandom.current().nextInt(games));
+                    try {
+                        if (++taps % teamEvery == 0) {
+                            statsService.recordTeamStat(game, point);
+                        } else {
+                            statsService.recordPlayerStat(game, "player-" + ThreadLocalRandom.current().nextInt(PLAYERS), kill);
+                        }
+                    } catch (RuntimeException e) {
+                        System.out.println("tap failed: " + e);
+                    }
+                    next += intervalNanos;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(sleep);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }, "reconnect-tapper");
+            tapper.start();
+
+            System.out.printf("games=%d spectators=%d taps/s=%d hold<=%dms cpus=%d%n",
+                games, spectatorCount, tapsPerSecond, maxHoldMs, Runtime.getRuntime().availableProcessors());
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            // Spectators keep the connection they have now; taps go on a little so it sees some
+            running.set(0);
+            Thread.sleep(Math.min(2000, maxHoldMs));
+            tapper.interrupt();
+            tapper.join();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+            int exact = 0;
+            while (System.nanoTime() < deadline) {
+                exact = 0;
+                for (Spectator spectator : spectators) {
+                    if (spectator.matches(statsService.getBoxScore(spectator.gameId))) {
+                        exact++;
+                    }
+                }
+                if (exact == spectators.size()) {
+                    break;
+                }
+                Thread.sleep(200);
+            }
+
+            long[] latencies = spectators.stream()
+                .flatMapToLong(spectator -> spectator.latencies().stream().mapToLong(Long::longValue))
+                .sorted().toArray();
+            long connections = spectators.stream().mapToLong(s -> s.connections.sum()).sum();
+            long snapshots = spectators.stream().mapToLong(s -> s.snapshots.sum()).sum();
+            double encoded = registry.find("volley.broadcast.snapshots.encoded").counter().count();
+            double sent = registry.find("volley.broadcast.snapshots.sent").counter().count();
+            System.out.printf("connections %d, snapshots received %d, snapshot latency p50=%.1fms p99=%.1fms max=%.1fms%n",
+                connections, snapshots, percentileMs(latencies, 0.50), percentileMs(latencies, 0.99),
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0);
+            System.out.printf("deltas before their snapshot %d, already in it %d; snapshots sent %.0f, serialized %.0f%n",
+                spectators.stream().mapToLong(s -> s.early.sum()).sum(),
+                spectators.stream().mapToLong(s -> s.covered.sum()).sum(), sent, encoded);
+            System.out.printf("exact state after the last reconnect: %d/%d%n", exact, spectators.size());
+            for (Spectator spectator : spectators) {
+                if (!spectator.matches(statsService.getBoxScore(spectator.gameId))) {
+                    System.out.println("  " + spectator.describe(statsService.getBoxScore(spectator.gameId)));
+                    break;
+                }
+            }
+            // A connection dropped before the broker registered its subscription has its snapshot reply
+            // cancelled, so sent can be below connections; each spectator's final one must have it,
+            // which matches checks
+            passed = exact == spectators.size();
+
+            for (Spectator spectator : spectators) {
+                spectator.close();
+            }
+            // Let the disconnects finish before the broker channels shut down
+            Thread.sleep(1000);
+        } finally {
+            context.close();
+        }
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static String gameId(int game) {
+        return "reconnect-game-" + game;
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+
+    // Reconnects after a random hold until told to stay; state is rebuilt from scratch each time
+    private static class Spectator extends Thread {
+        final String gameId;
+        final LongAdder connections = new LongAdder();
+        final LongAdder snapshots = new LongAdder();
+        final LongAdder early = new LongAdder();
+        final LongAdder covered = new LongAdder();
+        private final WebSocketStompClient stompClient;
+        private final String url;
+        private final int maxHoldMs;
+        private final AtomicInteger running;
+        private final ObjectMapper objectMapper;
+        private final List<Long> latencies = new ArrayList<>();
+        private volatile Connection current;
+        private StompSession session;
+
+        Spectator(WebSocketStompClient stompClient, String url, String gameId, int maxHoldMs, AtomicInteger running,
+                  ObjectMapper objectMapper) {
+            super("reconnect-spectator");
+            setDaemon(true);
+            this.stompClient = stompClient;
+            this.url = url;
+            this.gameId = gameId;
+            this.maxHoldMs = maxHoldMs;
+            this.running = running;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    session = stompClient.connectAsync(url, new StompSessionHandlerAdapter() {})
+                        .get(10, TimeUnit.SECONDS);
+                    Connection connection = new Connection();
+                    current = connection;
+                    connections.increment();
+                    session.subscribe("/topic/games/" + gameId, connection);
+                    session.subscribe("/app/games/" + gameId, connection);
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(maxHoldMs / 10, maxHoldMs));
+                    if (running.get() == 0) {
+                        return;
+                    }
+                    session.disconnect();
+                } catch (Exception e) {
+                    if (running.get() == 0) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        synchronized List<Long> latencies() {
+            return new ArrayList<>(latencies);
+        }
+
+        boolean matches(BoxScore expected) {
+            Connection connection = current;
+            return connection != null && connection.matches(expected);
+        }
+
+        String describe(BoxScore expected) {
+            Connection connection = current;
+            return gameId + ": expected " + expected.getPlayers() + " points " + expected.getTeam().get("totalPoints")
+                + ", got " + (connection != null ? connection.describe() : "no connection");
+        }
+
+        void close() {
+            if (session != null && session.isConnected()) {
+                session.disconnect();
+            }
+        }
+
+        private class Connection implements StompFrameHandler {
+            private final long subscribedNanos = System.nanoTime();
+            private Long snapshotSeq;
+            private final List<JsonNode> pending = new ArrayList<>();
+            private final Map<String, Long> kills = new HashMap<>();
+            private long points;
+            private long pointsSeq = -1;
+
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public synchronized void handleFrame(StompHeaders headers, Object payload) {
+                JsonNode message;
+                try {
+                    message = objectMapper.readTree((byte[]) payload);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                if ("GAME_SNAPSHOT".equals(message.path("type").asText())) {
+                    snapshotSeq = message.path("seq").asLong();
+                    snapshots.increment();
+                    synchronized (Spectator.this) {
+                        latencies.add(System.nanoTime() - subscribedNanos);
+                    }
+                    message.path("players").fields().forEachRemaining(entry ->
+                        kills.put(entry.getKey(), entry.getValue().path("kills").asLong()));
+                    points = message.path("team").path("totalPoints").asLong();
+                    pointsSeq = snapshotSeq;
+                    pending.forEach(this::apply);
+                    pending.clear();
+                } else if (snapshotSeq == null) {
+                    early.increment();
+                    pending.add(message);
+                } else {
+                    apply(message);
+                }
+            }
+
+            synchronized boolean matches(BoxScore expected) {
+                if (snapshotSeq == null || points != expected.getTeam().get("totalPoints")) {
+                    return false;
+                }
+                for (int player = 0; player < PLAYERS; player++) {
+                    Map<String, Long> stats = expected.getPlayers().get("player-" + player);
+                    long want = stats != null ? stats.get("kills") : 0;
+                    if (kills.getOrDefault("player-" + player, 0L) != want) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            synchronized String describe() {
+                return kills + " points " + points + " snapshot seq " + snapshotSeq;
+            }
+
+            private void apply(JsonNode delta) {
+                long seq = delta.path("seq").asLong();
+                if (seq <= snapshotSeq) {
+                    covered.increment();
+                    return;
+                }
+                delta.path("players").fields().forEachRemaining(entry ->
+                    kills.merge(entry.getKey(), entry.getValue().path("kills").asLong(), Long::sum));
+                // Absolute, and frames can arrive out of order
+                if (delta.hasNonNull("team") && seq > pointsSeq) {
+                    points = delta.path("team").path("totalPoints").asLong();
+                    pointsSeq = seq;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.volley.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Time from process start to the first successful request (GET /actuator/health, which checks the
+// database) for the prod profile on a fresh database, per launch mode:
+//   baseline  java -jar, seeding on startup (what a node does today)
+//   no-seed   java -jar with volley.seed.enabled=false
+//   aot       the fast-start layout with Spring AOT, no seeding
+//   aot-cds   the same plus the AppCDS archive from the training run
+//
+// mvn -Pfast-start clean package -DskipTests
+// mvn -Pjmh test-compile exec:exec -Djmh.main=com.volley.benchmark.StartupTimeCheck -Djmh.args="runs=5"
+public final class StartupTimeCheck {
+
+    private static final Path JAR = Paths.get("target", "volleyball-stats-0.0.1-SNAPSHOT.jar");
+    private static final Path FAST_START = Paths.get("target", "fast-start");
+
+    private StartupTimeCheck() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> modes = Arrays.asList(options.getOrDefault("modes", "baseline,no-seed,aot,aot-cds").split(","));
+        long timeoutMs = Long.parseLong(options.getOrDefault("timeoutMs", "180000"));
+
+        if (!Files.exists(JAR) || !Files.exists(FAST_START.resolve("application.jsa"))) {
+            throw new IllegalStateException("Build first: mvn -Pfast-start clean package -DskipTests");
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        System.out.printf("java=%s runs=%d cpus=%d%n", Runtime.version(), runs, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%10s %10s %10s %10s%n", "mode", "min ms", "median ms", "max ms");
+
+        for (String mode : modes) {
+            long[] times = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                times[run] = timeToFirstRequest(mode.trim(), client, timeoutMs);
+            }
+            Arrays.sort(times);
+            System.out.printf("%10s %10d %10d %10d%n", mode.trim(), times[0], times[runs / 2], times[runs - 1]);
+        }
+    }
+
+    private static long timeToFirstRequest(String mode, HttpClient client, long timeoutMs) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Path data = Files.createTempDirectory("volley-startup");
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        File directory;
+        switch (mode) {
+            case "baseline":
+            case "no-seed":
+                directory = new File(".");
+                command.add("-jar");
+                command.add(JAR.toString());
+                break;
+            case "aot-cds":
+                command.add("-XX:SharedArchiveFile=application.jsa");
+                // Falls through: otherwise the same launch as aot
+            case "aot":
+                // Same working directory and classpath as the training run, so the archive matches
+                directory = FAST_START.toFile();
+                command.add("-Dspring.aot.enabled=true");
+                command.add("-cp");
+                command.add("application.jar" + File.pathSeparator + "BOOT-INF/lib/*");
+                command.add("com.volley.VolleyStatsApplication");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        command.add("--spring.profiles.active=prod");
+        command.add("--server.port=" + port);
+        command.add("--volley.db.dir=" + data.resolve("db").toAbsolutePath());
+        command.add("--volley.eventlog.dir=" + data.resolve("eventlog").toAbsolutePath());
+        command.add("--volley.seed.enabled=" + mode.equals("baseline"));
+
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+            .timeout(Duration.ofSeconds(2))
+            .build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .directory(directory)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue());
+                }
+                try {
+                    if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(mode + " did not answer within " + timeoutMs + " ms");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
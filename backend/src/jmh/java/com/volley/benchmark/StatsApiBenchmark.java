@@ -0,0 +1,86 @@
+package com.volley.benchmark;
+
+import com.volley.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// End to end through the security filter chain, dispatcher and JSON binding
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsApiBenchmark {
+
+    private static final String GAME_ID = "bench-game";
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String authorization;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        BenchmarkContext.registerGames(context, GAME_ID);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+            .apply(springSecurity())
+            .build();
+        authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken(BenchmarkContext.ADMIN_EMAIL);
+
+        for (int i = 0; i < 500; i++) {
+            recordPlayerStat();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult recordPlayerStat() throws Exception {
+        return mockMvc.perform(post("/api/games/{gameId}/players/{playerId}/stats", GAME_ID, "1")
+                .header("Authorization", authorization)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"kills\":1}"))
+            .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult recordTeamStat() throws Exception {
+        return mockMvc.perform(post("/api/games/{gameId}/team-stats", GAME_ID)
+                .header("Authorization", authorization)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"totalPoints\":1}"))
+            .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getPlayerReport() throws Exception {
+        return mockMvc.perform(get("/api/games/{gameId}/reports/player/{playerId}", GAME_ID, "1")
+                .header("Authorization", authorization))
+            .andReturn();
+    }
+}
@@ -0,0 +1,82 @@
+package com.volley.benchmark;
+
+import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.TeamStatRequest;
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamStat;
+import com.volley.service.StatsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Full application context wired to the embedded H2 database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsServiceH2Benchmark {
+
+    private static final String GAME_ID = "bench-game";
+
+    // Waiting for the event log group commit dominates the write paths
+    @Param({"true", "false"})
+    public String eventLogSync;
+
+    private ConfigurableApplicationContext context;
+    private StatsService statsService;
+    private PlayerStatRequest playerStatRequest;
+    private TeamStatRequest teamStatRequest;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("--volley.eventlog.sync=" + eventLogSync);
+        BenchmarkContext.registerGames(context, GAME_ID);
+        statsService = context.getBean(StatsService.class);
+
+        playerStatRequest = new PlayerStatRequest();
+        playerStatRequest.setKills(1);
+        teamStatRequest = new TeamStatRequest();
+        teamStatRequest.setTotalPoints(1);
+
+        // Give the report something to read
+        for (int i = 0; i < 500; i++) {
+            statsService.recordPlayerStat(GAME_ID, "2", playerStatRequest);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PlayerStat recordPlayerStat() {
+        return statsService.recordPlayerStat(GAME_ID, "1", playerStatRequest);
+    }
+
+    @Benchmark
+    public TeamStat recordTeamStat() {
+        return statsService.recordTeamStat(GAME_ID, teamStatRequest);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getPlayerReport() {
+        return statsService.getPlayerReport(GAME_ID, "2", null);
+    }
+}
@@ -0,0 +1,114 @@
+package com.volley.benchmark;
+
+import com.volley.broadcast.GameBroadcastScheduler;
+import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.TeamStatRequest;
+import com.volley.eventlog.StatEventLog;
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamStat;
+import com.volley.repository.PlayerStatPoint;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.repository.TeamStatRepository;
+import com.volley.service.GameDirectory;
+import com.volley.service.GameHistoryService;
+import com.volley.service.LiveGameAggregate;
+import com.volley.service.PlayerTimeline;
+import com.volley.service.StatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+
+// StatsService with stubbed repositories and the event log disabled: measures our own code only
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsServiceInMemoryBenchmark {
+
+    private static final String GAME_ID = "bench-game";
+
+    private StatsService statsService;
+    private LiveGameAggregate liveGameAggregate;
+    private PlayerStatRequest playerStatRequest;
+    private TeamStatRequest teamStatRequest;
+
+    @Setup
+    public void setUp() {
+        PlayerStatRepository playerStatRepository = Mockito.mock(PlayerStatRepository.class);
+        Mockito.when(playerStatRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<PlayerStatPoint> history = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().minusMinutes(500);
+        for (int i = 0; i < 500; i++) {
+            history.add(new PlayerStatPoint((long) i, start.plusMinutes(i), i % 3 - (i % 5 == 0 ? 1 : 0)));
+        }
+        Mockito.when(playerStatRepository.findReportPoints(GAME_ID, "1")).thenReturn(history);
+        TeamStatRepository teamStatRepository = Mockito.mock(TeamStatRepository.class);
+
+        liveGameAggregate = new LiveGameAggregate();
+        ReflectionTestUtils.setField(liveGameAggregate, "teamStatRepository", teamStatRepository);
+        ReflectionTestUtils.setField(liveGameAggregate, "playerStatRepository", playerStatRepository);
+
+        PlayerTimeline playerTimeline = new PlayerTimeline();
+        ReflectionTestUtils.setField(playerTimeline, "playerStatRepository", playerStatRepository);
+        ReflectionTestUtils.setField(playerTimeline, "bucketWidthMs", 60_000L);
+
+        StatEventLog statEventLog = new StatEventLog();
+        ReflectionTestUtils.setField(statEventLog, "enabled", false);
+
+        statsService = new StatsService();
+        ReflectionTestUtils.setField(statsService, "playerStatRepository", playerStatRepository);
+        ReflectionTestUtils.setField(statsService, "liveGameAggregate", liveGameAggregate);
+        ReflectionTestUtils.setField(statsService, "statEventLog", statEventLog);
+        ReflectionTestUtils.setField(statsService, "playerTimeline", playerTimeline);
+        ReflectionTestUtils.setField(statsService, "gameBroadcastScheduler", new GameBroadcastScheduler());
+        ReflectionTestUtils.setField(statsService, "gameHistoryService", Mockito.mock(GameHistoryService.class));
+        ReflectionTestUtils.setField(statsService, "gameDirectory", Mockito.mock(GameDirectory.class));
+        ReflectionTestUtils.setField(statsService, "meterRegistry", new SimpleMeterRegistry());
+        statsService.registerMetrics();
+
+        playerStatRequest = new PlayerStatRequest();
+        playerStatRequest.setKills(1);
+        teamStatRequest = new TeamStatRequest();
+        teamStatRequest.setTotalPoints(1);
+    }
+
+    @Benchmark
+    public PlayerStat recordPlayerStat() {
+        return statsService.recordPlayerStat(GAME_ID, "1", playerStatRequest);
+    }
+
+    @Benchmark
+    public TeamStat recordTeamStat() {
+        return statsService.recordTeamStat(GAME_ID, teamStatRequest);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getPlayerReport() {
+        return statsService.getPlayerReport(GAME_ID, "1", null);
+    }
+
+    @Benchmark
+    public long readTeamTotal() {
+        return liveGameAggregate.getTeamTotal(GAME_ID, LiveGameAggregate.TEAM_TOTAL_POINTS);
+    }
+}
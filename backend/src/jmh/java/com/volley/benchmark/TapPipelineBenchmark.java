@@ -0,0 +1,78 @@
+package com.volley.benchmark;
+
+import com.volley.dto.PlayerStatRequest;
+import com.volley.model.PlayerStat;
+import com.volley.service.StatsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Sustained player stat taps per second from many concurrent request threads, through the
+// staged TapPipeline versus the synchronous path (volley.ingest.enabled=false)
+//
+// mvn -Pjmh test-compile exec:exec -Djmh.args="TapPipelineBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(32)
+@Fork(1)
+public class TapPipelineBenchmark {
+
+    private static final int GAMES = 8;
+
+    @Param({"false", "true"})
+    public String pipeline;
+
+    @Param({"blocking"})
+    public String waitStrategy;
+
+    // With sync=false the database insert is what the stages overlap
+    @Param({"true", "false"})
+    public String eventLogSync;
+
+    private ConfigurableApplicationContext context;
+    private StatsService statsService;
+    private PlayerStatRequest request;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+            "--volley.ingest.enabled=" + pipeline,
+            "--volley.ingest.wait-strategy=" + waitStrategy,
+            "--volley.eventlog.sync=" + eventLogSync);
+        for (int game = 0; game < GAMES; game++) {
+            BenchmarkContext.registerGames(context, "bench-game-" + game);
+        }
+        statsService = context.getBean(StatsService.class);
+        request = new PlayerStatRequest();
+        request.setKills(1);
+        request.setDigs(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PlayerStat recordPlayerStat() {
+        int game = ThreadLocalRandom.current().nextInt(GAMES);
+        return statsService.recordPlayerStat("bench-game-" + game, "player-" + (game * 12 + 1), request);
+    }
+}
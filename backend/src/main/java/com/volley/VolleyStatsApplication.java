@@ -1,22 +1,31 @@
 package com.volley;
 
+import com.volley.model.Game;
 import com.volley.model.User;
 import com.volley.model.Player;
 import com.volley.model.TeamStat;
+import com.volley.repository.GameRepository;
 import com.volley.repository.UserRepository;
 import com.volley.repository.PlayerRepository;
 import com.volley.repository.TeamStatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 
 @SpringBootApplication
+@EnableScheduling
 public class VolleyStatsApplication {
 
+    private static final Logger log = LoggerFactory.getLogger(VolleyStatsApplication.class);
+
     public static void main(String[] args) {
         SpringApplication.run(VolleyStatsApplication.class, args);
     }
@@ -25,8 +34,15 @@ public class VolleyStatsApplication {
     CommandLineRunner init(UserRepository userRepository, 
                           PlayerRepository playerRepository,
                           TeamStatRepository teamStatRepository,
-                          PasswordEncoder passwordEncoder) {
-        return args -> {
+                          GameRepository gameRepository,
+                          PasswordEncoder passwordEncoder,
+                          @Value("${volley.seed.enabled:true}") boolean seedEnabled,
+                          @Value("${volley.seed.deferred:false}") boolean seedDeferred) {
+        // Read at run time rather than as a bean condition, which AOT would fix at build time
+        if (!seedEnabled) {
+            return args -> {};
+        }
+        Runnable seed = () -> {
             // Create default admin user
             if (userRepository.findByEmail("admin@volleyball.com").isEmpty()) {
                 User admin = new User();
@@ -55,8 +71,18 @@ public class VolleyStatsApplication {
                 player3.setPosition("Middle Blocker");
                 player3.setUser(admin);
                 playerRepository.save(player3);
-                
-                // Create initial team stats for game 1
+            }
+
+            // Register game 1 with the admin's players as its roster
+            if (!gameRepository.existsById("1")) {
+                User admin = userRepository.findByEmail("admin@volleyball.com").orElseThrow();
+                Game game = new Game("1", admin);
+                game.getPlayers().addAll(playerRepository.findByUser_Id(admin.getId()));
+                gameRepository.save(game);
+            }
+
+            // Create initial team stats for game 1 unless the event log already restored them
+            if (teamStatRepository.findByGameId("1").isEmpty()) {
                 TeamStat teamStat = new TeamStat();
                 teamStat.setGameId("1");
                 teamStat.setTotalPoints(0);
@@ -68,5 +94,20 @@ public class VolleyStatsApplication {
                 teamStatRepository.save(teamStat);
             }
         };
+        if (!seedDeferred) {
+            return args -> seed.run();
+        }
+        // Lets the node take requests first; the demo login appears a moment later
+        return args -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    seed.run();
+                } catch (RuntimeException e) {
+                    log.warn("Deferred seeding failed", e);
+                }
+            }, "seed");
+            thread.setDaemon(true);
+            thread.start();
+        };
     }
 }
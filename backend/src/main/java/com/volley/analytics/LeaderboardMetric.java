@@ -0,0 +1,53 @@
+package com.volley.analytics;
+
+public enum LeaderboardMetric {
+    KILLS_PER_SET("kills-per-set"),
+    BLOCKS_PER_SET("blocks-per-set"),
+    DIGS_PER_SET("digs-per-set"),
+    ASSISTS_PER_SET("assists-per-set"),
+    // Attempts are not recorded, so kills plus errors stands in for total attacks
+    HITTING_EFFICIENCY("hitting-efficiency"),
+    // Players without an error are ranked by aces alone
+    ACE_ERROR_RATIO("ace-error-ratio");
+
+    private final String param;
+
+    LeaderboardMetric(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public static LeaderboardMetric fromParam(String param) {
+        for (LeaderboardMetric metric : values()) {
+            if (metric.param.equals(param)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown leaderboard metric: " + param);
+    }
+
+    double value(long[] totals, int offset) {
+        long sets = Math.max(1, totals[offset + PlayerAggregation.SETS]);
+        long kills = totals[offset + PlayerAggregation.KILLS];
+        long errors = totals[offset + PlayerAggregation.ERRORS];
+        switch (this) {
+            case KILLS_PER_SET:
+                return (double) kills / sets;
+            case BLOCKS_PER_SET:
+                return (double) totals[offset + PlayerAggregation.BLOCKS] / sets;
+            case DIGS_PER_SET:
+                return (double) totals[offset + PlayerAggregation.DIGS] / sets;
+            case ASSISTS_PER_SET:
+                return (double) totals[offset + PlayerAggregation.ASSISTS] / sets;
+            case HITTING_EFFICIENCY:
+                return kills + errors == 0 ? 0 : (double) (kills - errors) / (kills + errors);
+            case ACE_ERROR_RATIO:
+                return (double) totals[offset + PlayerAggregation.ACES] / Math.max(1, errors);
+            default:
+                throw new IllegalStateException("Unhandled metric " + this);
+        }
+    }
+}
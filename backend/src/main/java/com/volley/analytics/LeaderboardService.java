@@ -0,0 +1,210 @@
+package com.volley.analytics;
+
+import com.volley.dto.LeaderboardEntry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Season leaderboards over an in-memory column copy of player_stats.
+//
+// Rows are read with plain JDBC rather than as PlayerStat entities, appended in place to the
+// columns (StatColumns.Builder) on a background refresh, and aggregated on the common fork/join
+// pool. Each refresh reads only rows older than settle-ms, past the previous watermark
+// (idx_player_stats_ts), so a row is never read twice; rows written later with an older timestamp
+// are picked up on the next restart.
+//
+// The first load runs as a lifecycle phase ahead of the web server's, after the event log replay,
+// so no query waits for it and the replayed rows are in it.
+@Service
+public class LeaderboardService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final LocalDateTime BEFORE_ANY_EVENT = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String SELECT_ROWS =
+        "SELECT game_id, player_id, kills, blocks, aces, digs, assists, errors, timestamp FROM player_stats " +
+        "WHERE timestamp > ? AND timestamp <= ?";
+    private static final String SELECT_SETS =
+        "SELECT game_id, COUNT(*) FROM team_events WHERE end_of_set = TRUE GROUP BY game_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${volley.leaderboard.refresh-ms:60000}")
+    private long refreshMs;
+
+    @Value("${volley.leaderboard.settle-ms:5000}")
+    private long settleMs;
+
+    @Value("${volley.leaderboard.fetch-size:10000}")
+    private int fetchSize;
+
+    private final StatColumns.Builder store = new StatColumns.Builder();
+    private volatile StatColumns columns = StatColumns.EMPTY;
+    private volatile boolean running;
+    private final AtomicInteger rows = new AtomicInteger();
+    private LocalDateTime loadedUntil = BEFORE_ANY_EVENT;
+    private Map<String, Integer> gameSets = new HashMap<>();
+    private ScheduledExecutorService refresher;
+    private Timer queryTimer;
+    private Timer refreshTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge("volley.leaderboard.rows", rows);
+        queryTimer = meterRegistry.timer("volley.leaderboard.query");
+        refreshTimer = meterRegistry.timer("volley.leaderboard.refresh");
+    }
+
+    @Override
+    public void start() {
+        refresh();
+        // Its own thread, so a long refresh does not hold up the shared @Scheduled thread
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh leaderboard columns", e);
+            }
+        }, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // The web server starts at SmartLifecycle.DEFAULT_PHASE - 2048
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    public List<LeaderboardEntry> getLeaderboard(LeaderboardMetric metric, LocalDateTime from, LocalDateTime to,
+                                                 int minSets, int limit) {
+        StatColumns snapshot = columns;
+        long fromMillis = from != null ? Timestamp.valueOf(from).getTime() : Long.MIN_VALUE;
+        long toMillis = to != null ? Timestamp.valueOf(to).getTime() : Long.MAX_VALUE;
+        return queryTimer.record(() -> rank(snapshot, metric, fromMillis, toMillis, minSets, limit,
+            ForkJoinPool.commonPool()));
+    }
+
+    public static List<LeaderboardEntry> rank(StatColumns columns, LeaderboardMetric metric, long from, long to,
+                                              int minSets, int limit, ForkJoinPool pool) {
+        long[] totals = pool.invoke(new PlayerAggregation(columns, from, to));
+
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (int player = 0; player < columns.playerCount(); player++) {
+            int offset = player * PlayerAggregation.FIELDS;
+            if (totals[offset + PlayerAggregation.GAMES] == 0 || totals[offset + PlayerAggregation.SETS] < minSets) {
+                continue;
+            }
+            LeaderboardEntry entry = new LeaderboardEntry();
+            entry.setPlayerId(columns.playerId(player));
+            entry.setGames(totals[offset + PlayerAggregation.GAMES]);
+            entry.setSets(totals[offset + PlayerAggregation.SETS]);
+            entry.setKills(totals[offset + PlayerAggregation.KILLS]);
+            entry.setBlocks(totals[offset + PlayerAggregation.BLOCKS]);
+            entry.setAces(totals[offset + PlayerAggregation.ACES]);
+            entry.setDigs(totals[offset + PlayerAggregation.DIGS]);
+            entry.setAssists(totals[offset + PlayerAggregation.ASSISTS]);
+            entry.setErrors(totals[offset + PlayerAggregation.ERRORS]);
+            entry.setValue(metric.value(totals, offset));
+            entries.add(entry);
+        }
+
+        entries.sort(Comparator.comparingDouble(LeaderboardEntry::getValue).reversed()
+            .thenComparing(LeaderboardEntry::getPlayerId));
+        List<LeaderboardEntry> top = entries.subList(0, Math.min(limit, entries.size()));
+        for (int i = 0; i < top.size(); i++) {
+            top.get(i).setRank(i + 1);
+        }
+        return new ArrayList<>(top);
+    }
+
+    public synchronized void refresh() {
+        refreshTimer.record(() -> {
+            LocalDateTime until = LocalDateTime.now().minusNanos(settleMs * 1_000_000L);
+            Map<String, Integer> sets = new HashMap<>();
+
+            // Postgres only streams with a fetch size inside a transaction
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            try {
+                transaction.executeWithoutResult(status -> {
+                    jdbcTemplate.query(connection -> {
+                        PreparedStatement statement = connection.prepareStatement(SELECT_ROWS);
+                        statement.setFetchSize(fetchSize);
+                        statement.setTimestamp(1, Timestamp.valueOf(loadedUntil));
+                        statement.setTimestamp(2, Timestamp.valueOf(until));
+                        return statement;
+                    }, (RowCallbackHandler) rs -> store.add(
+                        store.gameCode(rs.getString(1)), store.playerCode(rs.getString(2)),
+                        rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6), rs.getInt(7), rs.getInt(8),
+                        rs.getTimestamp(9).getTime()));
+                    jdbcTemplate.query(SELECT_SETS, (RowCallbackHandler) rs -> sets.put(rs.getString(1), rs.getInt(2)));
+                });
+            } catch (RuntimeException e) {
+                // The watermark stays put, so the next refresh reads these rows again
+                store.discardPending();
+                throw e;
+            }
+            loadedUntil = until;
+
+            int added = store.pending();
+            if (added == 0 && sets.equals(gameSets)) {
+                return;
+            }
+            sets.forEach(store::setGameSets);
+            columns = store.build();
+            gameSets = sets;
+            rows.set(columns.size());
+            log.debug("Loaded {} player stat rows into leaderboard columns ({} total)", added, columns.size());
+        });
+    }
+}
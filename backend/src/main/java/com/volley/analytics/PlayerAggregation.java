@@ -0,0 +1,119 @@
+package com.volley.analytics;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+// Filters rows by time and sums them per player, splitting on segment ranges for fork/join.
+//
+// The result is one flat long[] with FIELDS slots per player code. Tasks never split a game's
+// segments, so each task can count games and sets per player without double counting across tasks.
+class PlayerAggregation extends RecursiveTask<long[]> {
+
+    static final int KILLS = 0;
+    static final int BLOCKS = 1;
+    static final int ACES = 2;
+    static final int DIGS = 3;
+    static final int ASSISTS = 4;
+    static final int ERRORS = 5;
+    static final int GAMES = 6;
+    static final int SETS = 7;
+    static final int FIELDS = 8;
+
+    // Rows per leaf; large enough that fork overhead and the per-task totals array stay small
+    static final int LEAF_ROWS = 1 << 18;
+
+    private final StatColumns columns;
+    private final int fromSegment;
+    private final int toSegment;
+    private final long from;
+    private final long to;
+
+    PlayerAggregation(StatColumns columns, long from, long to) {
+        this(columns, 0, columns.segmentCount(), from, to);
+    }
+
+    private PlayerAggregation(StatColumns columns, int fromSegment, int toSegment, long from, long to) {
+        this.columns = columns;
+        this.fromSegment = fromSegment;
+        this.toSegment = toSegment;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+        long[] rows = columns.segmentRows;
+        int middle = rows[toSegment] - rows[fromSegment] > LEAF_ROWS ? splitSegment() : -1;
+        if (middle > fromSegment) {
+            PlayerAggregation left = new PlayerAggregation(columns, fromSegment, middle, from, to);
+            PlayerAggregation right = new PlayerAggregation(columns, middle, toSegment, from, to);
+            left.fork();
+            long[] totals = right.compute();
+            long[] leftTotals = left.join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += leftTotals[i];
+            }
+            return totals;
+        }
+        return sum();
+    }
+
+    // First segment of a game at or after the middle row, kept strictly inside (fromSegment,
+    // toSegment); -1 when the range is one game
+    private int splitSegment() {
+        long[] rows = columns.segmentRows;
+        int[] games = columns.segmentGame;
+        long middleRow = rows[fromSegment] + (rows[toSegment] - rows[fromSegment]) / 2;
+        int index = Arrays.binarySearch(rows, fromSegment, toSegment, middleRow);
+        int segment = Math.max(fromSegment + 1, Math.min(toSegment - 1, index >= 0 ? index : -index - 1));
+        for (int s = segment; s < toSegment; s++) {
+            if (games[s] != games[s - 1]) {
+                return s;
+            }
+        }
+        for (int s = segment - 1; s > fromSegment; s--) {
+            if (games[s] != games[s - 1]) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    private long[] sum() {
+        StatColumns c = columns;
+        long[] totals = new long[c.playerCount() * FIELDS];
+        int[] lastGame = new int[c.playerCount()];
+        Arrays.fill(lastGame, -1);
+
+        for (int segment = fromSegment; segment < toSegment; segment++) {
+            // Skip segments entirely outside the window without touching their rows
+            if (c.segmentLast[segment] < from || c.segmentFirst[segment] > to) {
+                continue;
+            }
+            // Segments entirely inside the window skip the per-row timestamp check
+            boolean whole = c.segmentFirst[segment] >= from && c.segmentLast[segment] <= to;
+            int game = c.segmentGame[segment];
+            int sets = Math.max(1, c.gameSets[game]);
+            for (int row = c.segmentStart[segment]; row < c.segmentEnd[segment]; row++) {
+                if (!whole && (c.timestamp[row] < from || c.timestamp[row] > to)) {
+                    continue;
+                }
+                int player = c.player[row];
+                int offset = player * FIELDS;
+                totals[offset + KILLS] += c.kills[row];
+                totals[offset + BLOCKS] += c.blocks[row];
+                totals[offset + ACES] += c.aces[row];
+                totals[offset + DIGS] += c.digs[row];
+                totals[offset + ASSISTS] += c.assists[row];
+                totals[offset + ERRORS] += c.errors[row];
+                // A game's segments are adjacent, so this counts each game once per player
+                if (lastGame[player] != game) {
+                    lastGame[player] = game;
+                    totals[offset + GAMES]++;
+                    totals[offset + SETS] += sets;
+                }
+            }
+        }
+        return totals;
+    }
+}
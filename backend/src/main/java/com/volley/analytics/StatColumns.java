@@ -0,0 +1,320 @@
+package com.volley.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable view of player stat rows for season-wide aggregation.
+//
+// Game and player ids are dictionary-encoded to int codes. Rows are appended in blocks and grouped
+// by game within each block; a segment is one game's rows in one block, [segmentStart[s],
+// segmentEnd[s]). Segments are ordered by game, so all of a game's segments are adjacent and the
+// game column itself is not stored. Timestamps are epoch millis in the JVM's default zone, the
+// same way they are written.
+//
+// The row columns are shared with the Builder and every earlier view: the builder only writes past
+// the rows it has published, so appending never copies the rows already loaded (growing the arrays
+// does, as an ArrayList would).
+public final class StatColumns {
+
+    public static final StatColumns EMPTY = new Builder().build();
+
+    final String[] games;
+    final String[] players;
+    final int[] gameSets;
+    final int size;
+
+    final int[] segmentGame;
+    final int[] segmentStart;
+    final int[] segmentEnd;
+    final long[] segmentFirst;
+    final long[] segmentLast;
+    // Rows in the segments before s, for splitting the segments into even halves
+    final long[] segmentRows;
+
+    final int[] player;
+    final int[] kills;
+    final int[] blocks;
+    final int[] aces;
+    final int[] digs;
+    final int[] assists;
+    final int[] errors;
+    final long[] timestamp;
+
+    private StatColumns(Builder builder) {
+        this.games = builder.games.toArray(new String[0]);
+        this.players = builder.players.toArray(new String[0]);
+        this.gameSets = Arrays.copyOf(builder.gameSets, games.length);
+        this.size = builder.size;
+        this.segmentGame = builder.segmentGame;
+        this.segmentStart = builder.segmentStart;
+        this.segmentEnd = builder.segmentEnd;
+        this.segmentFirst = builder.segmentFirst;
+        this.segmentLast = builder.segmentLast;
+        this.segmentRows = new long[segmentGame.length + 1];
+        for (int s = 0; s < segmentGame.length; s++) {
+            segmentRows[s + 1] = segmentRows[s] + segmentEnd[s] - segmentStart[s];
+        }
+        this.player = builder.player;
+        this.kills = builder.kills;
+        this.blocks = builder.blocks;
+        this.aces = builder.aces;
+        this.digs = builder.digs;
+        this.assists = builder.assists;
+        this.errors = builder.errors;
+        this.timestamp = builder.timestamp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int gameCount() {
+        return games.length;
+    }
+
+    public int playerCount() {
+        return players.length;
+    }
+
+    public int segmentCount() {
+        return segmentGame.length;
+    }
+
+    public String playerId(int code) {
+        return players[code];
+    }
+
+    // Appends rows in any order; build() groups the rows added since the last build by game with a
+    // counting sort and publishes a view of everything so far. The builder stays usable afterwards.
+    // Not thread-safe, but the views it builds are.
+    public static final class Builder {
+        private final Map<String, Integer> gameCodes = new HashMap<>();
+        private final Map<String, Integer> playerCodes = new HashMap<>();
+        private final List<String> games = new ArrayList<>();
+        private final List<String> players = new ArrayList<>();
+        private int[] gameSets = new int[16];
+
+        private int[] segmentGame = new int[0];
+        private int[] segmentStart = new int[0];
+        private int[] segmentEnd = new int[0];
+        private long[] segmentFirst = new long[0];
+        private long[] segmentLast = new long[0];
+
+        // Rows before built are in a published view and never written again
+        private int built;
+        private int size;
+        private int[] pendingGame;
+        private int[] player;
+        private int[] kills;
+        private int[] blocks;
+        private int[] aces;
+        private int[] digs;
+        private int[] assists;
+        private int[] errors;
+        private long[] timestamp;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int capacity) {
+            pendingGame = new int[capacity];
+            player = new int[capacity];
+            kills = new int[capacity];
+            blocks = new int[capacity];
+            aces = new int[capacity];
+            digs = new int[capacity];
+            assists = new int[capacity];
+            errors = new int[capacity];
+            timestamp = new long[capacity];
+        }
+
+        public int gameCode(String gameId) {
+            Integer code = gameCodes.get(gameId);
+            if (code == null) {
+                code = games.size();
+                gameCodes.put(gameId, code);
+                games.add(gameId);
+                if (code == gameSets.length) {
+                    gameSets = Arrays.copyOf(gameSets, code * 2);
+                }
+            }
+            return code;
+        }
+
+        public int playerCode(String playerId) {
+            Integer code = playerCodes.get(playerId);
+            if (code == null) {
+                code = players.size();
+                playerCodes.put(playerId, code);
+                players.add(playerId);
+            }
+            return code;
+        }
+
+        // Sets completed in the game; only games already in the builder are updated
+        public void setGameSets(String gameId, int sets) {
+            Integer code = gameCodes.get(gameId);
+            if (code != null) {
+                gameSets[code] = sets;
+            }
+        }
+
+        public void setGameSets(int gameCode, int sets) {
+            gameSets[gameCode] = sets;
+        }
+
+        public void add(int gameCode, int playerCode, int kills, int blocks, int aces, int digs, int assists,
+                        int errors, long timestamp) {
+            if (size == player.length) {
+                grow();
+            }
+            int pending = size - built;
+            if (pending == pendingGame.length) {
+                pendingGame = Arrays.copyOf(pendingGame, Math.max(16, pending * 2));
+            }
+            this.pendingGame[pending] = gameCode;
+            this.player[size] = playerCode;
+            this.kills[size] = kills;
+            this.blocks[size] = blocks;
+            this.aces[size] = aces;
+            this.digs[size] = digs;
+            this.assists[size] = assists;
+            this.errors[size] = errors;
+            this.timestamp[size] = timestamp;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // Rows added since the last build
+        public int pending() {
+            return size - built;
+        }
+
+        // Drops the rows added since the last build, e.g. after a load that failed part way.
+        // Ids they introduced stay in the dictionaries, with no rows
+        public void discardPending() {
+            size = built;
+        }
+
+        public StatColumns build() {
+            int pending = size - built;
+            int gameCount = games.size();
+            int[] offsets = new int[gameCount + 1];
+            for (int row = 0; row < pending; row++) {
+                offsets[pendingGame[row] + 1]++;
+            }
+            for (int g = 0; g < gameCount; g++) {
+                offsets[g + 1] += offsets[g];
+            }
+
+            // Only the pending rows move, in place behind the published ones
+            int[] next = Arrays.copyOf(offsets, gameCount);
+            int[] order = new int[pending];
+            for (int row = 0; row < pending; row++) {
+                order[next[pendingGame[row]]++] = built + row;
+            }
+            reorder(player, order);
+            reorder(kills, order);
+            reorder(blocks, order);
+            reorder(aces, order);
+            reorder(digs, order);
+            reorder(assists, order);
+            reorder(errors, order);
+            long[] times = new long[pending];
+            for (int row = 0; row < pending; row++) {
+                times[row] = timestamp[order[row]];
+            }
+            System.arraycopy(times, 0, timestamp, built, pending);
+
+            mergeSegments(offsets, times);
+            built = size;
+            // The first load can be the whole season; later blocks are a refresh worth of rows
+            if (pendingGame.length > 1024) {
+                pendingGame = new int[1024];
+            }
+            return new StatColumns(this);
+        }
+
+        private void reorder(int[] column, int[] order) {
+            int[] values = new int[order.length];
+            for (int row = 0; row < order.length; row++) {
+                values[row] = column[order[row]];
+            }
+            System.arraycopy(values, 0, column, built, order.length);
+        }
+
+        // Adds one segment per game in the new block after that game's earlier segments. New arrays,
+        // as earlier views hold the old ones; segments are few next to rows
+        private void mergeSegments(int[] offsets, long[] times) {
+            int gameCount = offsets.length - 1;
+            int added = 0;
+            for (int g = 0; g < gameCount; g++) {
+                if (offsets[g + 1] > offsets[g]) {
+                    added++;
+                }
+            }
+            if (added == 0) {
+                return;
+            }
+            int count = segmentGame.length + added;
+            int[] games = new int[count];
+            int[] starts = new int[count];
+            int[] ends = new int[count];
+            long[] firsts = new long[count];
+            long[] lasts = new long[count];
+
+            int old = 0;
+            int s = 0;
+            for (int g = 0; g < gameCount; g++) {
+                while (old < segmentGame.length && segmentGame[old] == g) {
+                    games[s] = g;
+                    starts[s] = segmentStart[old];
+                    ends[s] = segmentEnd[old];
+                    firsts[s] = segmentFirst[old];
+                    lasts[s] = segmentLast[old];
+                    old++;
+                    s++;
+                }
+                if (offsets[g + 1] > offsets[g]) {
+                    long first = Long.MAX_VALUE;
+                    long last = Long.MIN_VALUE;
+                    for (int row = offsets[g]; row < offsets[g + 1]; row++) {
+                        first = Math.min(first, times[row]);
+                        last = Math.max(last, times[row]);
+                    }
+                    games[s] = g;
+                    starts[s] = built + offsets[g];
+                    ends[s] = built + offsets[g + 1];
+                    firsts[s] = first;
+                    lasts[s] = last;
+                    s++;
+                }
+            }
+            segmentGame = games;
+            segmentStart = starts;
+            segmentEnd = ends;
+            segmentFirst = firsts;
+            segmentLast = lasts;
+        }
+
+        // New arrays; views already built keep reading the old ones
+        private void grow() {
+            int capacity = Math.max(16, player.length + (player.length >> 1));
+            player = Arrays.copyOf(player, capacity);
+            kills = Arrays.copyOf(kills, capacity);
+            blocks = Arrays.copyOf(blocks, capacity);
+            aces = Arrays.copyOf(aces, capacity);
+            digs = Arrays.copyOf(digs, capacity);
+            assists = Arrays.copyOf(assists, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+            timestamp = Arrays.copyOf(timestamp, capacity);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.Session;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Replaces the send path of Spring's ConcurrentWebSocketSessionDecorator for STOMP sessions. Sends are
+// serialized the same way: one writer at a time drains the queue, every other thread queues its
+// frame and returns, and the session is closed once a write has been stuck for longer than the
+// time limit or the queue outgrows the buffer limit.
+//
+// Two things differ. A game delta for a subscription that already has one waiting is merged into
+// it, so a spectator who falls behind skips straight to the latest state, and a slow session holds
+// one frame per subscription on the heap rather than every frame since it stalled. Frames are only
+// decoded while something is waiting; a session that keeps up never pays for it. And plain
+// WebSocket sessions are written asynchronously, so a stalled socket never holds one of the
+// broker's few outbound threads; SockJS sessions are written inline as before.
+//
+// A game topic subscription whose snapshot is requested (GameSnapshotSubscriptions) is not merged
+// until the snapshot has been queued on its own subscription, since a merged frame could straddle
+// the snapshot's seq; after it, deltas the snapshot already covers are dropped.
+//
+// It stays a ConcurrentWebSocketSessionDecorator because that is what Spring's preserved publish order
+// (virtual threads) needs: the broker hands over a session's next frame once the message callback runs.
+// That happens as soon as a frame is queued, so order is kept without waiting on a slow socket.
+class ConflatingWebSocketSession extends ConcurrentWebSocketSessionDecorator {
+
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final SlowConsumerGuard guard;
+    private final ObjectMapper objectMapper;
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+    // Null when writes go through the delegate
+    private final RemoteEndpoint.Async async;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    // subscription id -> its queued game frame that newer ones can still be merged into
+    private final Map<String, Entry> pending = new HashMap<>();
+    // Subscriptions whose snapshot has not been queued yet; while there are any, every frame is classified
+    private final Set<String> awaitingSnapshot = new HashSet<>();
+    // topic subscription id -> seq of the snapshot sent for it
+    private final Map<String, Long> snapshotSeqs = new HashMap<>();
+    // snapshot subscription id -> the topic subscription its snapshot is for
+    private final Map<String, String> snapshotTopics = new HashMap<>();
+    private volatile int queuedBytes;
+
+    // Set while a thread, or an asynchronous write, owns draining the queue
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile long sendStartNanos;
+    // Set once by whichever of a limit check or a failed write gives up on the session first
+    private final AtomicBoolean limitExceeded = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile Consumer<WebSocketMessage<?>> messageCallback;
+
+    ConflatingWebSocketSession(WebSocketSession delegate, SlowConsumerGuard guard, ObjectMapper objectMapper,
+                               int sendTimeLimitMs, int bufferSizeLimit) {
+        super(delegate, sendTimeLimitMs, bufferSizeLimit);
+        this.guard = guard;
+        this.objectMapper = objectMapper;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.bufferSizeLimit = bufferSizeLimit;
+
+        Session nativeSession = delegate instanceof NativeWebSocketSession
+            ? ((NativeWebSocketSession) delegate).getNativeSession(Session.class) : null;
+        if (nativeSession != null && delegate instanceof StandardWebSocketSession) {
+            async = nativeSession.getAsyncRemote();
+            async.setSendTimeout(sendTimeLimitMs);
+        } else {
+            async = null;
+            if (nativeSession != null) {
+                // SockJS over WebSocket: Tomcat would otherwise block for 20 s
+                nativeSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT, (long) sendTimeLimitMs);
+            }
+        }
+    }
+
+    @Override
+    public void setMessageCallback(Consumer<WebSocketMessage<?>> callback) {
+        messageCallback = callback;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return queuedBytes;
+    }
+
+    @Override
+    public long getTimeSinceSendStarted() {
+        long started = sendStartNanos;
+        return started != 0 ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) : 0;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (shouldNotSend()) {
+            accepted(message);
+            return;
+        }
+        enqueue(message);
+        accepted(message);
+        if (sending.compareAndSet(false, true)) {
+            drain();
+        } else {
+            checkLimits();
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        closed = true;
+        guard.sessionClosed(this);
+        super.close(status);
+    }
+
+    // Queued (or dropped), so the broker may hand over the session's next frame
+    private void accepted(WebSocketMessage<?> message) {
+        Consumer<WebSocketMessage<?>> callback = messageCallback;
+        if (callback != null) {
+            callback.accept(message);
+        }
+    }
+
+    // Time the oldest queued frame has been waiting, 0 when the session is keeping up
+    long lagNanos(long now) {
+        queueLock.lock();
+        try {
+            Entry head = queue.peekFirst();
+            return head != null ? now - head.queuedNanos : 0;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    int queuedBytes() {
+        return queuedBytes;
+    }
+
+    // Called before the snapshot is read
+    void awaitSnapshot(String snapshotSubscriptionId, String topicSubscriptionId) {
+        queueLock.lock();
+        try {
+            pending.remove(topicSubscriptionId);
+            snapshotSeqs.remove(topicSubscriptionId);
+            awaitingSnapshot.add(topicSubscriptionId);
+            snapshotTopics.put(snapshotSubscriptionId, topicSubscriptionId);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    void unsubscribed(String subscriptionId) {
+        queueLock.lock();
+        try {
+            pending.remove(subscriptionId);
+            snapshotSeqs.remove(subscriptionId);
+            awaitingSnapshot.remove(subscriptionId);
+            // A snapshot subscription dropped before its reply leaves the topic to merge again
+            String topic = snapshotTopics.remove(subscriptionId);
+            if (topic != null) {
+                awaitingSnapshot.remove(topic);
+            }
+            snapshotTopics.values().remove(subscriptionId);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    void release() {
+        queueLock.lock();
+        try {
+            queue.clear();
+            pending.clear();
+            awaitingSnapshot.clear();
+            snapshotSeqs.clear();
+            snapshotTopics.clear();
+            queuedBytes = 0;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void enqueue(WebSocketMessage<?> message) {
+        Entry entry = new Entry(message, System.nanoTime());
+        queueLock.lock();
+        try {
+            Entry head = queue.peekFirst();
+            if (head != null && !head.classified) {
+                // Queued while the queue was empty, so it is the only entry
+                classify(head);
+                if (!register(head)) {
+                    queue.pollFirst();
+                    queuedBytes -= head.size;
+                }
+            }
+            if (!queue.isEmpty() || !awaitingSnapshot.isEmpty()) {
+                classify(entry);
+                if (!register(entry)) {
+                    return;
+                }
+            }
+            queue.addLast(entry);
+            queuedBytes += entry.size;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void classify(Entry entry) {
+        entry.classified = true;
+        entry.frame = GameFrame.parse(entry.message, objectMapper);
+        if ((entry.frame == null || entry.frame.isSnapshot()) && GameFrame.isMessage(entry.message)) {
+            // Some other message for a subscription: frames queued after it must not be merged into ones before it
+            pending.clear();
+        }
+    }
+
+    // False when the entry was merged into a queued one, or is a delta its subscription's snapshot already holds
+    private boolean register(Entry entry) {
+        GameFrame frame = entry.frame;
+        if (frame == null) {
+            return true;
+        }
+        String subscriptionId = frame.subscriptionId;
+        if (frame.isSnapshot()) {
+            String topic = snapshotTopics.remove(subscriptionId);
+            if (topic != null) {
+                awaitingSnapshot.remove(topic);
+                snapshotSeqs.put(topic, frame.seq());
+            }
+            return true;
+        }
+        Long covered = snapshotSeqs.get(subscriptionId);
+        if (covered != null && frame.seq() <= covered) {
+            guard.frameConflated();
+            return false;
+        }
+        if (awaitingSnapshot.contains(subscriptionId)) {
+            return true;
+        }
+        Entry waiting = pending.get(subscriptionId);
+        if (waiting != null) {
+            waiting.frame.merge(frame);
+            waiting.message = null;
+            queuedBytes += entry.size - waiting.size;
+            waiting.size = entry.size;
+            guard.frameConflated();
+            return false;
+        }
+        pending.put(subscriptionId, entry);
+        return true;
+    }
+
+    private Entry poll() {
+        queueLock.lock();
+        try {
+            Entry entry = queue.pollFirst();
+            if (entry != null) {
+                queuedBytes -= entry.size;
+                if (entry.frame != null) {
+                    pending.remove(entry.frame.subscriptionId, entry);
+                }
+            }
+            return entry;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private boolean isQueueEmpty() {
+        queueLock.lock();
+        try {
+            return queue.isEmpty();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // Runs while this thread owns sending; returns early when an asynchronous write will carry on
+    private void drain() throws IOException {
+        try {
+            while (true) {
+                Entry entry = shouldNotSend() ? null : poll();
+                if (entry == null) {
+                    sending.set(false);
+                    // A frame queued between the poll and clearing the flag would otherwise wait for the next one
+                    if (shouldNotSend() || isQueueEmpty() || !sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                WebSocketMessage<?> message = entry.message != null ? entry.message : entry.frame.toMessage(objectMapper);
+                sendStartNanos = System.nanoTime();
+                if (async == null || !(message instanceof TextMessage || message instanceof BinaryMessage)) {
+                    getDelegate().sendMessage(message);
+                    sent(entry);
+                } else if (!sendAsync(message, entry)) {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            sendStartNanos = 0;
+            sending.set(false);
+            throw e;
+        }
+    }
+
+    // True when the write completed before it returned, so this thread carries on draining
+    private boolean sendAsync(WebSocketMessage<?> message, Entry entry) {
+        // Whichever of this thread and the completion gets here second continues
+        AtomicBoolean handedOff = new AtomicBoolean();
+        SendHandler handler = result -> {
+            if (!result.isOK()) {
+                failed(result.getException());
+                return;
+            }
+            sent(entry);
+            if (!handedOff.compareAndSet(false, true)) {
+                try {
+                    drain();
+                } catch (IOException | RuntimeException e) {
+                    failed(e);
+                }
+            }
+        };
+        if (message instanceof TextMessage) {
+            async.sendText(((TextMessage) message).getPayload(), handler);
+        } else {
+            async.sendBinary(((BinaryMessage) message).getPayload(), handler);
+        }
+        return !handedOff.compareAndSet(false, true);
+    }
+
+    private void sent(Entry entry) {
+        sendStartNanos = 0;
+        guard.frameSent(System.nanoTime() - entry.queuedNanos);
+    }
+
+    private void failed(Throwable cause) {
+        sendStartNanos = 0;
+        sending.set(false);
+        if (closed || !limitExceeded.compareAndSet(false, true)) {
+            return;
+        }
+        release();
+        guard.sessionDropped(cause instanceof SocketTimeoutException ? "send-time" : "send-error");
+        try {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            // Already gone
+        }
+    }
+
+    // Called by threads that found a write in progress
+    private void checkLimits() throws SessionLimitExceededException {
+        if (shouldNotSend()) {
+            return;
+        }
+        long started = sendStartNanos;
+        if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+            exceeded("send-time", "Send time " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+                + " (ms) for session '" + getId() + "' exceeded the allowed limit");
+        } else if (queuedBytes > bufferSizeLimit) {
+            exceeded("buffer", "Buffer size " + queuedBytes + " bytes for session '" + getId()
+                + "' exceeds the allowed limit " + bufferSizeLimit);
+        }
+    }
+
+    // Spring's handler closes the session with the status when it catches the exception
+    private void exceeded(String reason, String message) throws SessionLimitExceededException {
+        if (!limitExceeded.compareAndSet(false, true)) {
+            return;
+        }
+        release();
+        guard.sessionDropped(reason);
+        throw new SessionLimitExceededException(message, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private boolean shouldNotSend() {
+        return limitExceeded.get() || closed;
+    }
+
+    private static class Entry {
+        // The frame as sent by the broker, null once another frame has been merged in
+        WebSocketMessage<?> message;
+        GameFrame frame;
+        boolean classified;
+        // Of the oldest frame merged in, so lag counts from when the state first went unsent
+        final long queuedNanos;
+        int size;
+
+        Entry(WebSocketMessage<?> message, long queuedNanos) {
+            this.message = message;
+            this.queuedNanos = queuedNanos;
+            this.size = message.getPayloadLength();
+        }
+    }
+}
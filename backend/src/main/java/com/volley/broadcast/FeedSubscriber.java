@@ -0,0 +1,115 @@
+package com.volley.broadcast;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// One SSE spectator, written with non-blocking servlet I/O so a slow client never holds a thread.
+// It keeps only a position in its game's ring; the events themselves are shared.
+class FeedSubscriber implements WriteListener, AsyncListener {
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    final GameFeed feed;
+    // Index of the last event written; guarded by the feed's lock
+    long position;
+    volatile boolean heartbeatDue;
+    // When the socket last refused a write, or 0 while it keeps up
+    volatile long stalledSinceNanos;
+
+    private final GameFeedService service;
+    private final AsyncContext context;
+    private ServletOutputStream out;
+    private boolean closed;
+
+    FeedSubscriber(GameFeedService service, GameFeed feed, AsyncContext context, long position) {
+        this.service = service;
+        this.feed = feed;
+        this.context = context;
+        this.position = position;
+    }
+
+    void start() throws IOException {
+        out = context.getResponse().getOutputStream();
+        // The container calls onWritePossible as soon as the request thread returns
+        out.setWriteListener(this);
+    }
+
+    // Writes pending events until caught up or the socket stops taking data
+    synchronized void pump() {
+        if (closed || out == null) {
+            return;
+        }
+        try {
+            while (out.isReady()) {
+                if (heartbeatDue) {
+                    heartbeatDue = false;
+                    out.write(HEARTBEAT);
+                    continue;
+                }
+                byte[] event = feed.next(this);
+                if (event == null) {
+                    if (out.isReady()) {
+                        out.flush();
+                    }
+                    stalledSinceNanos = 0;
+                    return;
+                }
+                out.write(event);
+            }
+            // onWritePossible resumes once the socket drains
+            if (stalledSinceNanos == 0) {
+                stalledSinceNanos = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+        }
+    }
+
+    synchronized void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                context.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+            }
+            service.remove(this);
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        stalledSinceNanos = 0;
+        pump();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        service.remove(this);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+}
@@ -0,0 +1,266 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamStat;
+import com.volley.service.LiveGameAggregate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class GameBroadcastScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(GameBroadcastScheduler.class);
+
+    public static final String DESTINATION_PREFIX = "/topic/games/";
+    // Binary GameDeltaCodec frames; needs a raw WebSocket connection (/ws/websocket), SockJS is text-only
+    public static final String BINARY_SUFFIX = "/delta";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private GameSubscriptions gameSubscriptions;
+
+    @Autowired
+    private GameEventBus gameEventBus;
+
+    @Autowired
+    private GameFeedService gameFeedService;
+
+    @Autowired
+    private GameSnapshotCache gameSnapshotCache;
+
+    @Autowired
+    private LiveGameAggregate liveGameAggregate;
+
+    @Value("${volley.broadcast.interval-ms:100}")
+    private long intervalMs;
+
+    @Value("${volley.games.idle-ttl-ms:1800000}")
+    private long idleTtlMs;
+
+    @Value("${volley.games.evict-interval-ms:60000}")
+    private long evictIntervalMs;
+
+    private final Map<String, GameChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    // Highest seq of any dropped channel; new channels continue above it, so a game's seq never goes back
+    private final AtomicLong seqFloor = new AtomicLong();
+    private ScheduledExecutorService executor;
+    private Counter jsonFrames;
+    private Counter jsonBytes;
+    private Counter binaryFrames;
+    private Counter binaryBytes;
+
+    @PostConstruct
+    public void start() {
+        meterRegistry.gauge("volley.broadcast.queue.depth", queueDepth);
+        // Tagged by format rather than game id to keep the series count bounded
+        jsonFrames = meterRegistry.counter("volley.broadcast.frames", "format", "json");
+        jsonBytes = meterRegistry.counter("volley.broadcast.bytes", "format", "json");
+        binaryFrames = meterRegistry.counter("volley.broadcast.frames", "format", "binary");
+        binaryBytes = meterRegistry.counter("volley.broadcast.bytes", "format", "binary");
+
+        // Deltas come back through the bus, from this node or from the node that owns the game
+        gameEventBus.subscribe(this::deliver);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::publishPending, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::evictIdle, evictIntervalMs, evictIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Called before a game's stats are written, like LiveGameAggregate.preload: the snapshot seed
+    // taken here must not already hold a stat that a later delta will carry
+    public void preload(String gameId) {
+        gameSnapshotCache.preload(gameId);
+    }
+
+    public void playerStatRecorded(String gameId, PlayerStat stat) {
+        GameChannel channel = lockChannel(gameId);
+        try {
+            int[] deltas = channel.playerDeltas.computeIfAbsent(stat.getPlayerId(),
+                id -> new int[LiveGameAggregate.PLAYER_STAT_COUNT]);
+            deltas[LiveGameAggregate.PLAYER_KILLS] += stat.getKills();
+            deltas[LiveGameAggregate.PLAYER_BLOCKS] += stat.getBlocks();
+            deltas[LiveGameAggregate.PLAYER_ACES] += stat.getAces();
+            deltas[LiveGameAggregate.PLAYER_DIGS] += stat.getDigs();
+            deltas[LiveGameAggregate.PLAYER_ASSISTS] += stat.getAssists();
+            deltas[LiveGameAggregate.PLAYER_ERRORS] += stat.getErrors();
+            channel.pendingUpdates++;
+        } finally {
+            channel.lock.unlock();
+        }
+        queueDepth.incrementAndGet();
+    }
+
+    // Called after the team tap is in the live aggregate
+    public void teamStatRecorded(String gameId) {
+        GameChannel channel = lockChannel(gameId);
+        try {
+            // Team totals are absolute, so only the latest one matters. Read under the channel lock,
+            // so a request that added its tap earlier can never overwrite a newer total
+            TeamStat stat = liveGameAggregate.getTeamStat(gameId);
+            channel.teamTotals = new int[] {
+                stat.getTotalPoints(), stat.getErrors(), stat.getMissedServes(), stat.getAces(), stat.getTimeouts()
+            };
+            channel.pendingUpdates++;
+        } finally {
+            channel.lock.unlock();
+        }
+        queueDepth.incrementAndGet();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private void publishPending() {
+        for (Map.Entry<String, GameChannel> entry : channels.entrySet()) {
+            GameDelta delta = entry.getValue().drain(entry.getKey());
+            if (delta != null) {
+                try {
+                    gameEventBus.publish(delta);
+                } catch (Exception e) {
+                    log.warn("Failed to publish update for game {}", entry.getKey(), e);
+                }
+            }
+        }
+    }
+
+    private void deliver(GameDelta delta) {
+        try {
+            send(delta);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast update for game {}", delta.getGameId(), e);
+        }
+    }
+
+    private void send(GameDelta delta) throws Exception {
+        String destination = DESTINATION_PREFIX + delta.getGameId();
+        gameSnapshotCache.apply(delta);
+
+        // Each format is encoded once per frame, and only when it has subscribers
+        byte[] payload = null;
+        if (gameSubscriptions.subscribers(destination) > 0) {
+            payload = objectMapper.writeValueAsBytes(delta);
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setLeaveMutable(true);
+            messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+            jsonFrames.increment();
+            jsonBytes.increment(payload.length);
+        }
+
+        if (gameSubscriptions.subscribers(destination + BINARY_SUFFIX) > 0) {
+            // Encoded by GameDeltaMessageConverter, selected through the content type
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+            accessor.setContentType(GameDeltaMessageConverter.MIME_TYPE);
+            accessor.setLeaveMutable(true);
+            Message<?> message = messagingTemplate.getMessageConverter().toMessage(delta, accessor.getMessageHeaders());
+            messagingTemplate.send(destination + BINARY_SUFFIX, message);
+            binaryFrames.increment();
+            binaryBytes.increment(((byte[]) message.getPayload()).length);
+        }
+
+        // SSE spectators share the STOMP JSON
+        gameFeedService.publish(delta, payload);
+    }
+
+    // Channels with nothing pending and no writes for idle-ttl-ms are dropped, with their snapshots
+    private void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        for (Map.Entry<String, GameChannel> entry : channels.entrySet()) {
+            GameChannel channel = entry.getValue();
+            if (channel.lastUsedNanos < idleBefore && channel.lock.tryLock()) {
+                try {
+                    if (channel.pendingUpdates == 0) {
+                        channel.evicted = true;
+                        seqFloor.accumulateAndGet(channel.seq, Math::max);
+                        channels.remove(entry.getKey(), channel);
+                    }
+                } finally {
+                    channel.lock.unlock();
+                }
+            }
+        }
+        gameSnapshotCache.evictIdle(idleBefore);
+    }
+
+    // Locked and still in the map, so an update is never queued on a dropped channel
+    private GameChannel lockChannel(String gameId) {
+        while (true) {
+            GameChannel channel = channels.computeIfAbsent(gameId, id -> new GameChannel(seqFloor.get()));
+            channel.lastUsedNanos = System.nanoTime();
+            channel.lock.lock();
+            if (!channel.evicted) {
+                return channel;
+            }
+            channel.lock.unlock();
+        }
+    }
+
+    private class GameChannel {
+        final ReentrantLock lock = new ReentrantLock();
+        Map<String, int[]> playerDeltas = new HashMap<>();
+        int[] teamTotals;
+        int pendingUpdates;
+        long seq;
+        volatile long lastUsedNanos = System.nanoTime();
+        boolean evicted;
+
+        GameChannel(long seq) {
+            this.seq = seq;
+        }
+
+        GameDelta drain(String gameId) {
+            lock.lock();
+            try {
+                if (pendingUpdates == 0) {
+                    return null;
+                }
+                GameDelta delta = new GameDelta(gameId, ++seq, playerDeltas, teamTotals);
+                queueDepth.addAndGet(-pendingUpdates);
+                playerDeltas = new HashMap<>();
+                teamTotals = null;
+                pendingUpdates = 0;
+                return delta;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
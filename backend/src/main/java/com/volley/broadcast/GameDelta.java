@@ -0,0 +1,104 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.volley.service.LiveGameAggregate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameDelta {
+
+    // JSON names in slot order, see LiveGameAggregate
+    static final String[] PLAYER_STAT_NAMES = {"kills", "blocks", "aces", "digs", "assists", "errors"};
+    static final String[] TEAM_STAT_NAMES = {"totalPoints", "errors", "missedServes", "aces", "timeouts"};
+
+    private final String gameId;
+    private final long seq;
+    private final Map<String, int[]> playerDeltas;
+    private final int[] teamTotals;
+
+    public GameDelta(String gameId, long seq, Map<String, int[]> playerDeltas, int[] teamTotals) {
+        this.gameId = gameId;
+        this.seq = seq;
+        this.playerDeltas = playerDeltas;
+        this.teamTotals = teamTotals;
+    }
+
+    public String getType() {
+        return "GAME_DELTA";
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    // Per-player counter changes since the previous frame, keyed by player id
+    public Map<String, Map<String, Integer>> getPlayers() {
+        Map<String, Map<String, Integer>> players = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> entry : playerDeltas.entrySet()) {
+            int[] deltas = entry.getValue();
+            Map<String, Integer> stats = new LinkedHashMap<>();
+            putIfChanged(stats, "kills", deltas[LiveGameAggregate.PLAYER_KILLS]);
+            putIfChanged(stats, "blocks", deltas[LiveGameAggregate.PLAYER_BLOCKS]);
+            putIfChanged(stats, "aces", deltas[LiveGameAggregate.PLAYER_ACES]);
+            putIfChanged(stats, "digs", deltas[LiveGameAggregate.PLAYER_DIGS]);
+            putIfChanged(stats, "assists", deltas[LiveGameAggregate.PLAYER_ASSISTS]);
+            putIfChanged(stats, "errors", deltas[LiveGameAggregate.PLAYER_ERRORS]);
+            players.put(entry.getKey(), stats);
+        }
+        return players;
+    }
+
+    // Latest team totals, or null when no team stat changed
+    public Map<String, Integer> getTeam() {
+        if (teamTotals == null) {
+            return null;
+        }
+        Map<String, Integer> team = new LinkedHashMap<>();
+        team.put("totalPoints", teamTotals[LiveGameAggregate.TEAM_TOTAL_POINTS]);
+        team.put("errors", teamTotals[LiveGameAggregate.TEAM_ERRORS]);
+        team.put("missedServes", teamTotals[LiveGameAggregate.TEAM_MISSED_SERVES]);
+        team.put("aces", teamTotals[LiveGameAggregate.TEAM_ACES]);
+        team.put("timeouts", teamTotals[LiveGameAggregate.TEAM_TIMEOUTS]);
+        return team;
+    }
+
+    @JsonIgnore
+    public Map<String, int[]> getPlayerDeltas() {
+        return playerDeltas;
+    }
+
+    @JsonIgnore
+    public int[] getTeamTotals() {
+        return teamTotals;
+    }
+
+    // One delta equivalent to applying both: player changes add up, team totals are absolute so the
+    // higher seq wins (frames can reach a session's queue out of order)
+    static GameDelta merge(GameDelta first, GameDelta second) {
+        GameDelta older = first.seq <= second.seq ? first : second;
+        GameDelta newer = older == first ? second : first;
+        Map<String, int[]> players = new LinkedHashMap<>();
+        older.playerDeltas.forEach((playerId, deltas) -> players.put(playerId, deltas.clone()));
+        newer.playerDeltas.forEach((playerId, deltas) -> {
+            int[] sum = players.computeIfAbsent(playerId, id -> new int[LiveGameAggregate.PLAYER_STAT_COUNT]);
+            for (int slot = 0; slot < LiveGameAggregate.PLAYER_STAT_COUNT; slot++) {
+                sum[slot] += deltas[slot];
+            }
+        });
+        int[] team = newer.teamTotals != null ? newer.teamTotals : older.teamTotals;
+        return new GameDelta(newer.gameId, newer.seq, players, team);
+    }
+
+    private static void putIfChanged(Map<String, Integer> stats, String name, int delta) {
+        if (delta != 0) {
+            stats.put(name, delta);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.volley.broadcast;
+
+import com.volley.service.LiveGameAggregate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compact binary form of a GameDelta; the game id is implied by the destination.
+//
+// All integers are unsigned LEB128 varints, counters are zigzag-encoded first:
+//   version            FORMAT_VERSION
+//   seq
+//   flags              bit 0: team totals follow the players
+//   playerCount
+//   per player         idLength, id (UTF-8), changedMask (bit n = player slot n),
+//                      one counter per set bit in slot order
+//   team totals        TEAM_STAT_COUNT counters in slot order
+public final class GameDeltaCodec {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int FLAG_TEAM = 1;
+
+    private GameDeltaCodec() {}
+
+    public static byte[] encode(GameDelta delta) {
+        Writer out = new Writer(16 + delta.getPlayerDeltas().size() * 12);
+        out.varint(FORMAT_VERSION);
+        out.varint(delta.getSeq());
+        out.varint(delta.getTeamTotals() != null ? FLAG_TEAM : 0);
+        out.varint(delta.getPlayerDeltas().size());
+        for (Map.Entry<String, int[]> entry : delta.getPlayerDeltas().entrySet()) {
+            byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.varint(id.length);
+            out.bytes(id);
+            int[] deltas = entry.getValue();
+            int mask = 0;
+            for (int slot = 0; slot < LiveGameAggregate.PLAYER_STAT_COUNT; slot++) {
+                if (deltas[slot] != 0) {
+                    mask |= 1 << slot;
+                }
+            }
+            out.varint(mask);
+            for (int slot = 0; slot < LiveGameAggregate.PLAYER_STAT_COUNT; slot++) {
+                if (deltas[slot] != 0) {
+                    out.zigzag(deltas[slot]);
+                }
+            }
+        }
+        if (delta.getTeamTotals() != null) {
+            for (int slot = 0; slot < LiveGameAggregate.TEAM_STAT_COUNT; slot++) {
+                out.zigzag(delta.getTeamTotals()[slot]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static GameDelta decode(String gameId, byte[] frame) {
+        Reader in = new Reader(frame);
+        int version = (int) in.varint();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported game delta format version: " + version);
+        }
+        long seq = in.varint();
+        int flags = (int) in.varint();
+        int playerCount = (int) in.varint();
+        Map<String, int[]> players = new LinkedHashMap<>();
+        for (int i = 0; i < playerCount; i++) {
+            String id = new String(in.bytes((int) in.varint()), StandardCharsets.UTF_8);
+            int mask = (int) in.varint();
+            int[] deltas = new int[LiveGameAggregate.PLAYER_STAT_COUNT];
+            for (int slot = 0; slot < LiveGameAggregate.PLAYER_STAT_COUNT; slot++) {
+                if ((mask & (1 << slot)) != 0) {
+                    deltas[slot] = in.zigzag();
+                }
+            }
+            players.put(id, deltas);
+        }
+        int[] team = null;
+        if ((flags & FLAG_TEAM) != 0) {
+            team = new int[LiveGameAggregate.TEAM_STAT_COUNT];
+            for (int slot = 0; slot < LiveGameAggregate.TEAM_STAT_COUNT; slot++) {
+                team[slot] = in.zigzag();
+            }
+        }
+        return new GameDelta(gameId, seq, players, team);
+    }
+
+    private static class Writer {
+        private byte[] buffer;
+        private int size;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void zigzag(int value) {
+            varint(Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= buffer.length) {
+                    throw new IllegalArgumentException("Truncated game delta frame");
+                }
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in game delta frame");
+        }
+
+        int zigzag() {
+            int value = (int) varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        byte[] bytes(int length) {
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated game delta frame");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+    }
+}
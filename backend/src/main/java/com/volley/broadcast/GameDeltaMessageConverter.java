@@ -0,0 +1,30 @@
+package com.volley.broadcast;
+
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+// application/octet-stream so STOMP sends it as a binary WebSocket frame; the codec parameter names the layout
+public class GameDeltaMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType MIME_TYPE =
+        new MimeType("application", "octet-stream", Map.of("codec", "volley-delta-v" + GameDeltaCodec.FORMAT_VERSION));
+
+    public GameDeltaMessageConverter() {
+        super(MIME_TYPE);
+        // Only used when the sender asks for this content type explicitly; outbound only
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GameDelta.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return GameDeltaCodec.encode((GameDelta) payload);
+    }
+}
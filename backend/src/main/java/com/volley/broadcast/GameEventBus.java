@@ -0,0 +1,12 @@
+package com.volley.broadcast;
+
+import java.util.function.Consumer;
+
+// Carries coalesced game deltas from the node that owns a game to every node with spectators.
+public interface GameEventBus {
+
+    // Delivers the delta to the listeners of every node, this one included
+    void publish(GameDelta delta);
+
+    void subscribe(Consumer<GameDelta> listener);
+}
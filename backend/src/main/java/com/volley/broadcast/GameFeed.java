@@ -0,0 +1,103 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Bounded ring of pre-serialized SSE events for one game, shared by every spectator on this node.
+//
+// Event ids are "<epoch>:<index>", with a per-node epoch, so a Last-Event-ID from another node
+// or from before a restart is never mistaken for a position in this ring. A spectator whose
+// position has been overwritten gets one snapshot event built from the feed's running totals,
+// seeded from GameSnapshotCache.
+class GameFeed {
+
+    final String gameId;
+    final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Set while a fan-out task for this feed is queued or running
+    final AtomicBoolean fanoutScheduled = new AtomicBoolean();
+    volatile long idleSinceNanos = System.nanoTime();
+
+    private final String epoch;
+    private final byte[][] ring;
+    private final ObjectMapper objectMapper;
+    private long head;
+
+    private final GameTotals totals;
+    // The delta being delivered while the feed was seeded can already be in the seed
+    private long seededSeq;
+    private byte[] snapshot;
+    private long snapshotHead = -1;
+
+    GameFeed(String gameId, String epoch, int capacity, ObjectMapper objectMapper, GameTotals seed) {
+        this.gameId = gameId;
+        this.epoch = epoch;
+        this.ring = new byte[capacity][];
+        this.objectMapper = objectMapper;
+        this.totals = seed;
+        this.seededSeq = seed.getSeq();
+    }
+
+    synchronized void append(GameDelta delta, byte[] json) {
+        long skip = seededSeq;
+        seededSeq = -1;
+        if (delta.getSeq() == skip) {
+            return;
+        }
+        head++;
+        ring[(int) (head % ring.length)] = frame("delta", head, json);
+        totals.apply(delta);
+    }
+
+    // The next event for the subscriber, advancing its position, or null when it is caught up
+    synchronized byte[] next(FeedSubscriber subscriber) {
+        long position = subscriber.position;
+        if (position == head) {
+            return null;
+        }
+        if (position < 0 || position > head || position <= head - ring.length) {
+            subscriber.position = head;
+            return snapshot();
+        }
+        subscriber.position = position + 1;
+        return ring[(int) (subscriber.position % ring.length)];
+    }
+
+    // Ring position after the given Last-Event-ID, or -1 when the client needs a snapshot
+    long resumePosition(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + ":")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private byte[] snapshot() {
+        if (snapshotHead != head) {
+            try {
+                snapshot = frame("snapshot", head, objectMapper.writeValueAsBytes(totals.toSnapshot(gameId)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize snapshot for game " + gameId, e);
+            }
+            snapshotHead = head;
+        }
+        return snapshot;
+    }
+
+    private byte[] frame(String event, long index, byte[] json) {
+        byte[] prefix = ("id: " + epoch + ":" + index + "\nevent: " + event + "\ndata: ").getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[prefix.length + json.length + 2];
+        System.arraycopy(prefix, 0, frame, 0, prefix.length);
+        System.arraycopy(json, 0, frame, prefix.length, json.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+        return frame;
+    }
+}
@@ -0,0 +1,176 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.cluster.GameSharding;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Server-Sent Events feed of a game's broadcast deltas for read-only spectators.
+//
+// Each delta is serialized once into the game's ring; a small writer pool then walks the game's
+// subscribers and lets each one copy what it has not seen yet. Feeds live on whichever node the
+// spectator reached, fed by the cluster bus like the STOMP topics.
+@Component
+public class GameFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(GameFeedService.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GameSnapshotCache gameSnapshotCache;
+
+    @Autowired
+    private GameSharding gameSharding;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${volley.feed.ring-size:512}")
+    private int ringSize;
+
+    // 0 uses one thread per core
+    @Value("${volley.feed.writer-threads:0}")
+    private int writerThreads;
+
+    @Value("${volley.feed.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${volley.feed.stall-timeout-ms:60000}")
+    private long stallTimeoutMs;
+
+    @Value("${volley.feed.idle-ttl-ms:600000}")
+    private long idleTtlMs;
+
+    private final Map<String, GameFeed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private String epoch;
+    private ExecutorService writers;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    public void start() {
+        epoch = gameSharding.getNodeId() + "-" + Long.toString(System.currentTimeMillis(), 36);
+        meterRegistry.gauge("volley.feed.subscribers", subscriberCount);
+        Gauge.builder("volley.feed.games", feeds, Map::size).register(meterRegistry);
+
+        int threads = writerThreads > 0 ? writerThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIds = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "feed-writer-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+        writers.shutdownNow();
+        feeds.values().forEach(feed -> feed.subscribers.forEach(FeedSubscriber::close));
+    }
+
+    // Takes over the request; the response stays open until the client goes away
+    public void subscribe(String gameId, String lastEventId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        GameFeed feed = feeds.computeIfAbsent(gameId,
+            id -> new GameFeed(id, epoch, ringSize, objectMapper, gameSnapshotCache.copy(id)));
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // Stops nginx from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext context = request.startAsync();
+        context.setTimeout(0);
+        FeedSubscriber subscriber = new FeedSubscriber(this, feed, context, feed.resumePosition(lastEventId));
+        context.addListener(subscriber);
+        feed.subscribers.add(subscriber);
+        subscriberCount.incrementAndGet();
+        subscriber.start();
+    }
+
+    // Called once per broadcast frame; json is the frame's JSON when it was already encoded
+    public void publish(GameDelta delta, byte[] json) throws IOException {
+        GameFeed feed = feeds.get(delta.getGameId());
+        if (feed == null) {
+            return;
+        }
+        feed.append(delta, json != null ? json : objectMapper.writeValueAsBytes(delta));
+        fanOut(feed);
+    }
+
+    void remove(FeedSubscriber subscriber) {
+        if (subscriber.feed.subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscriber.feed.idleSinceNanos = System.nanoTime();
+        }
+    }
+
+    private void fanOut(GameFeed feed) {
+        if (feed.subscribers.isEmpty() || !feed.fanoutScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        writers.execute(() -> {
+            // Cleared first, so an event appended during the walk schedules another one
+            feed.fanoutScheduled.set(false);
+            for (FeedSubscriber subscriber : feed.subscribers) {
+                subscriber.pump();
+            }
+        });
+    }
+
+    private void heartbeat() {
+        long now = System.nanoTime();
+        long stalledBefore = now - TimeUnit.MILLISECONDS.toNanos(stallTimeoutMs);
+        long idleBefore = now - TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        try {
+            for (GameFeed feed : feeds.values()) {
+                for (FeedSubscriber subscriber : feed.subscribers) {
+                    long stalledSince = subscriber.stalledSinceNanos;
+                    if (stalledSince != 0 && stalledSince < stalledBefore) {
+                        // Not reading at all; its position is long gone from the ring anyway
+                        subscriber.close();
+                    } else {
+                        subscriber.heartbeatDue = true;
+                    }
+                }
+                fanOut(feed);
+                // Kept for a while after the last spectator leaves, so reconnects can resume
+                if (feed.subscribers.isEmpty() && feed.idleSinceNanos < idleBefore) {
+                    feeds.remove(feed.gameId, feed);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Feed heartbeat failed", e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.service.LiveGameAggregate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// An outbound STOMP MESSAGE frame carrying a GameDelta, JSON or binary, decoded far enough that a
+// newer frame for the same subscription can be folded into it and the result encoded again. Also
+// recognises the GAME_SNAPSHOT reply to a /app/games/{gameId} subscription, which is never merged.
+class GameFrame {
+
+    private static final byte[] MESSAGE_PREFIX = "MESSAGE\n".getBytes(StandardCharsets.UTF_8);
+
+    // Both keep no per-frame state
+    private static final StompDecoder decoder = new StompDecoder();
+    private static final StompEncoder encoder = new StompEncoder();
+
+    final String subscriptionId;
+    private final boolean text;
+    private final boolean binaryPayload;
+    // Headers of the newest frame folded in
+    private Map<String, Object> headers;
+    // Null for a snapshot
+    private GameDelta delta;
+    private final long snapshotSeq;
+
+    private GameFrame(String subscriptionId, boolean text, boolean binaryPayload, Map<String, Object> headers,
+                      GameDelta delta, long snapshotSeq) {
+        this.subscriptionId = subscriptionId;
+        this.text = text;
+        this.binaryPayload = binaryPayload;
+        this.headers = headers;
+        this.delta = delta;
+        this.snapshotSeq = snapshotSeq;
+    }
+
+    // Any MESSAGE frame; heartbeats, receipts and errors are not
+    static boolean isMessage(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage) {
+            return ((TextMessage) message).getPayload().startsWith("MESSAGE\n");
+        }
+        if (message instanceof BinaryMessage) {
+            ByteBuffer payload = ((BinaryMessage) message).getPayload();
+            if (payload.remaining() < MESSAGE_PREFIX.length) {
+                return false;
+            }
+            for (int i = 0; i < MESSAGE_PREFIX.length; i++) {
+                if (payload.get(payload.position() + i) != MESSAGE_PREFIX[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Null unless the frame is a game delta or snapshot sent to a subscription
+    static GameFrame parse(WebSocketMessage<?> message, ObjectMapper objectMapper) {
+        if (!isMessage(message)) {
+            return null;
+        }
+        boolean text = message instanceof TextMessage;
+        ByteBuffer bytes = text
+            ? ByteBuffer.wrap(((TextMessage) message).asBytes())
+            : ((BinaryMessage) message).getPayload().duplicate();
+        List<Message<byte[]>> decoded = decoder.decode(bytes);
+        if (decoded.size() != 1) {
+            return null;
+        }
+        Message<byte[]> frame = decoded.get(0);
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(frame, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.MESSAGE || accessor.getSubscriptionId() == null) {
+            return null;
+        }
+        String destination = accessor.getDestination();
+        MimeType contentType = accessor.getContentType();
+        if (destination == null || contentType == null) {
+            return null;
+        }
+        if (destination.startsWith(GameSnapshotSubscriptions.DESTINATION_PREFIX)) {
+            return parseSnapshot(accessor, text, frame.getPayload(), objectMapper);
+        }
+        if (!destination.startsWith(GameBroadcastScheduler.DESTINATION_PREFIX)) {
+            return null;
+        }
+
+        String gameId = destination.substring(GameBroadcastScheduler.DESTINATION_PREFIX.length());
+        GameDelta delta;
+        boolean binaryPayload = false;
+        try {
+            if (GameDeltaMessageConverter.MIME_TYPE.equals(contentType)
+                    && gameId.endsWith(GameBroadcastScheduler.BINARY_SUFFIX)) {
+                gameId = gameId.substring(0, gameId.length() - GameBroadcastScheduler.BINARY_SUFFIX.length());
+                delta = GameDeltaCodec.decode(gameId, frame.getPayload());
+                binaryPayload = true;
+            } else if (MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+                delta = fromJson(gameId, objectMapper.readTree(frame.getPayload()));
+            } else {
+                return null;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Sent as is
+            return null;
+        }
+        if (delta == null) {
+            return null;
+        }
+        return new GameFrame(accessor.getSubscriptionId(), text, binaryPayload, accessor.getMessageHeaders(), delta, 0);
+    }
+
+    private static GameFrame parseSnapshot(StompHeaderAccessor accessor, boolean text, byte[] payload,
+                                           ObjectMapper objectMapper) {
+        try {
+            JsonNode node = objectMapper.readTree(payload);
+            if (!"GAME_SNAPSHOT".equals(node.path("type").asText())) {
+                return null;
+            }
+            return new GameFrame(accessor.getSubscriptionId(), text, false, accessor.getMessageHeaders(), null,
+                node.path("seq").asLong());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    boolean isSnapshot() {
+        return delta == null;
+    }
+
+    long seq() {
+        return delta != null ? delta.getSeq() : snapshotSeq;
+    }
+
+    // Keeps this frame's place in the queue, with the state and headers of whichever frame is newer
+    void merge(GameFrame other) {
+        if (other.delta.getSeq() >= delta.getSeq()) {
+            headers = other.headers;
+        }
+        delta = GameDelta.merge(delta, other.delta);
+    }
+
+    WebSocketMessage<?> toMessage(ObjectMapper objectMapper) throws IOException {
+        byte[] payload = binaryPayload ? GameDeltaCodec.encode(delta) : objectMapper.writeValueAsBytes(delta);
+        // Writes a new content-length
+        byte[] frame = encoder.encode(headers, payload);
+        return text ? new TextMessage(frame) : new BinaryMessage(frame);
+    }
+
+    // Other message types on a game topic are not merged
+    private static GameDelta fromJson(String gameId, JsonNode node) {
+        if (!"GAME_DELTA".equals(node.path("type").asText())) {
+            return null;
+        }
+        Map<String, int[]> players = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> entries = node.path("players").fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            int[] deltas = new int[LiveGameAggregate.PLAYER_STAT_COUNT];
+            for (int slot = 0; slot < LiveGameAggregate.PLAYER_STAT_COUNT; slot++) {
+                deltas[slot] = entry.getValue().path(GameDelta.PLAYER_STAT_NAMES[slot]).asInt();
+            }
+            players.put(entry.getKey(), deltas);
+        }
+        int[] team = null;
+        if (node.hasNonNull("team")) {
+            team = new int[LiveGameAggregate.TEAM_STAT_COUNT];
+            for (int slot = 0; slot < LiveGameAggregate.TEAM_STAT_COUNT; slot++) {
+                team[slot] = node.path("team").path(GameDelta.TEAM_STAT_NAMES[slot]).asInt();
+            }
+        }
+        return new GameDelta(gameId, node.path("seq").asLong(), players, team);
+    }
+}
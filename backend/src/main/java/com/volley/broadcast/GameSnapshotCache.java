@@ -0,0 +1,111 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.service.LiveGameAggregate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Full state of each game as of the last delta broadcast on this node, serialized at most once per
+// delta, for subscribers that need to start from somewhere (GameSnapshotSubscriptions, SSE feed seeds).
+//
+// Seeded from the live aggregate and moved forward by the same deltas the broker sends. On the
+// owner node the seed is taken before the game's first write (see GameBroadcastScheduler.preload),
+// so snapshot plus later deltas is exact. Other nodes seed on first use from their own box score,
+// which can be behind or ahead of the deltas in flight, as the SSE feed always was; their STOMP
+// subscribers get the owner's snapshot instead (OwnerSnapshotClient).
+@Component
+public class GameSnapshotCache {
+
+    @Autowired
+    private LiveGameAggregate liveGameAggregate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private Counter sent;
+    private Counter encoded;
+
+    @PostConstruct
+    public void registerMetrics() {
+        sent = meterRegistry.counter("volley.broadcast.snapshots.sent");
+        encoded = meterRegistry.counter("volley.broadcast.snapshots.encoded");
+        Gauge.builder("volley.broadcast.snapshots.games", entries, Map::size).register(meterRegistry);
+    }
+
+    public GameSnapshotFrame snapshot(String gameId) {
+        Entry entry = entry(gameId);
+        GameSnapshotFrame frame;
+        synchronized (entry) {
+            if (entry.frame == null) {
+                try {
+                    entry.frame = new GameSnapshotFrame(entry.totals.getSeq(),
+                        objectMapper.writeValueAsBytes(entry.totals.toSnapshot(gameId)));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Failed to serialize snapshot for game " + gameId, e);
+                }
+                encoded.increment();
+            }
+            frame = entry.frame;
+        }
+        sent.increment();
+        return frame;
+    }
+
+    void preload(String gameId) {
+        entry(gameId);
+    }
+
+    // Called for every delta before the broker sends it, so a snapshot never misses a frame the new subscriber will not get
+    void apply(GameDelta delta) {
+        Entry entry = entries.get(delta.getGameId());
+        if (entry == null) {
+            return;
+        }
+        entry.lastUsedNanos = System.nanoTime();
+        synchronized (entry) {
+            entry.totals.apply(delta);
+            entry.frame = null;
+        }
+    }
+
+    GameTotals copy(String gameId) {
+        Entry entry = entry(gameId);
+        synchronized (entry) {
+            return new GameTotals(entry.totals);
+        }
+    }
+
+    // Reseeded from the live aggregate on next use; on the owner that is before the game's next write
+    void evictIdle(long idleBeforeNanos) {
+        entries.values().removeIf(entry -> entry.lastUsedNanos < idleBeforeNanos);
+    }
+
+    private Entry entry(String gameId) {
+        Entry entry = entries.computeIfAbsent(gameId, id -> new Entry(new GameTotals(liveGameAggregate.getBoxScore(id))));
+        entry.lastUsedNanos = System.nanoTime();
+        return entry;
+    }
+
+    private static class Entry {
+        final GameTotals totals;
+        // Null until requested after the last delta
+        GameSnapshotFrame frame;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        Entry(GameTotals totals) {
+            this.totals = totals;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.volley.broadcast;
+
+// A game's GAME_SNAPSHOT JSON, serialized once and sent as is by GameSnapshotMessageConverter
+public class GameSnapshotFrame {
+
+    private final long seq;
+    private final byte[] json;
+
+    GameSnapshotFrame(long seq, byte[] json) {
+        this.seq = seq;
+        this.json = json;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    // Shared by every reply; never modified
+    public byte[] getJson() {
+        return json;
+    }
+}
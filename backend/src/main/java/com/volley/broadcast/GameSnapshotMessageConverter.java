@@ -0,0 +1,23 @@
+package com.volley.broadcast;
+
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+
+// Writes the cached JSON of a GameSnapshotFrame instead of serializing it per subscriber; outbound only
+public class GameSnapshotMessageConverter extends AbstractMessageConverter {
+
+    public GameSnapshotMessageConverter() {
+        super(MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GameSnapshotFrame.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return ((GameSnapshotFrame) payload).getJson();
+    }
+}
@@ -0,0 +1,202 @@
+package com.volley.broadcast;
+
+import com.volley.cluster.GameSharding;
+import com.volley.service.GameDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Answers SUBSCRIBE /app/games/{gameId} with the game's snapshot, so a reconnecting client rebuilds
+// its state from its subscriptions alone. The client subscribes to /topic/games/{gameId} for deltas
+// first and to /app/games/{gameId} second.
+//
+// Both SUBSCRIBE frames can be handled on different inbound threads, in either order. A snapshot
+// read before the broker knows the topic subscription could miss a delta broadcast in between, so
+// the reply is only read once the broker has registered it; deltas that reach the client before the
+// snapshot, or that it already holds, are told apart by seq. For a game owned by another node the
+// snapshot is the owner's (OwnerSnapshotClient), as the deltas here are the ones it relays.
+@Component
+public class GameSnapshotSubscriptions {
+
+    public static final String DESTINATION_PREFIX = "/app/games/";
+
+    @Autowired
+    private GameSnapshotCache gameSnapshotCache;
+
+    @Autowired
+    private SlowConsumerGuard slowConsumerGuard;
+
+    @Autowired
+    private GameDirectory gameDirectory;
+
+    @Autowired
+    private GameSharding gameSharding;
+
+    @Autowired
+    private OwnerSnapshotClient ownerSnapshotClient;
+
+    @Value("${volley.broadcast.snapshot-on-subscribe:true}")
+    private boolean enabled;
+
+    private final Map<String, SessionGames> sessions = new ConcurrentHashMap<>();
+
+    // Null when disabled; a null reply sends nothing
+    public CompletableFuture<GameSnapshotFrame> snapshot(String gameId, String sessionId, String subscriptionId) {
+        if (!enabled || sessionId == null || subscriptionId == null || !gameDirectory.exists(gameId)) {
+            return null;
+        }
+        Reply reply = new Reply(gameId, sessionId, subscriptionId);
+        SessionGames games = sessions.computeIfAbsent(sessionId, id -> new SessionGames());
+        String topicSubscriptionId;
+        synchronized (games) {
+            topicSubscriptionId = games.topics.get(gameId);
+            if (topicSubscriptionId == null) {
+                games.waiting.put(subscriptionId, reply);
+            }
+        }
+        if (topicSubscriptionId != null) {
+            reply.send(topicSubscriptionId);
+        }
+        return reply.future;
+    }
+
+    // Wraps the simple broker's registry (see StompBrokerConfig)
+    public SubscriptionRegistry decorate(SubscriptionRegistry registry) {
+        return new SubscriptionRegistry() {
+            @Override
+            public void registerSubscription(Message<?> message) {
+                registry.registerSubscription(message);
+                registered(SimpMessageHeaderAccessor.wrap(message));
+            }
+
+            @Override
+            public void unregisterSubscription(Message<?> message) {
+                registry.unregisterSubscription(message);
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+                SessionGames games = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+                if (games != null && accessor.getSubscriptionId() != null) {
+                    Reply waiting;
+                    synchronized (games) {
+                        games.topics.values().remove(accessor.getSubscriptionId());
+                        waiting = games.waiting.remove(accessor.getSubscriptionId());
+                    }
+                    cancel(waiting);
+                }
+            }
+
+            @Override
+            public void unregisterAllSubscriptions(String sessionId) {
+                registry.unregisterAllSubscriptions(sessionId);
+                SessionGames games = sessions.remove(sessionId);
+                if (games != null) {
+                    synchronized (games) {
+                        games.waiting.values().forEach(GameSnapshotSubscriptions.this::cancel);
+                        games.waiting.clear();
+                    }
+                }
+            }
+
+            @Override
+            public MultiValueMap<String, String> findSubscriptions(Message<?> message) {
+                return registry.findSubscriptions(message);
+            }
+        };
+    }
+
+    private void registered(SimpMessageHeaderAccessor accessor) {
+        String gameId = snapshotGameId(accessor.getDestination());
+        if (!enabled || accessor.getSessionId() == null || accessor.getSubscriptionId() == null || gameId == null) {
+            return;
+        }
+        SessionGames games = sessions.computeIfAbsent(accessor.getSessionId(), id -> new SessionGames());
+        List<Reply> ready = new ArrayList<>();
+        synchronized (games) {
+            games.topics.put(gameId, accessor.getSubscriptionId());
+            Iterator<Reply> waiting = games.waiting.values().iterator();
+            while (waiting.hasNext()) {
+                Reply reply = waiting.next();
+                if (reply.gameId.equals(gameId)) {
+                    waiting.remove();
+                    ready.add(reply);
+                }
+            }
+        }
+        for (Reply reply : ready) {
+            reply.send(accessor.getSubscriptionId());
+        }
+    }
+
+    private void cancel(Reply reply) {
+        if (reply != null) {
+            reply.future.complete(null);
+        }
+    }
+
+    // The game of a /topic/games/{gameId} destination, the one whose deltas the snapshot lines up with
+    private static String snapshotGameId(String destination) {
+        if (destination == null || !destination.startsWith(GameBroadcastScheduler.DESTINATION_PREFIX)
+                || destination.length() == GameBroadcastScheduler.DESTINATION_PREFIX.length()
+                || destination.indexOf('/', GameBroadcastScheduler.DESTINATION_PREFIX.length()) >= 0) {
+            return null;
+        }
+        return destination.substring(GameBroadcastScheduler.DESTINATION_PREFIX.length());
+    }
+
+    private static class SessionGames {
+        // game id -> the session's subscription to /topic/games/{gameId}, once the broker has it
+        final Map<String, String> topics = new HashMap<>();
+        // snapshot subscription id -> reply waiting for the topic subscription
+        final Map<String, Reply> waiting = new HashMap<>();
+    }
+
+    private class Reply {
+        final String gameId;
+        final String sessionId;
+        final String subscriptionId;
+        final CompletableFuture<GameSnapshotFrame> future = new CompletableFuture<>();
+
+        Reply(String gameId, String sessionId, String subscriptionId) {
+            this.gameId = gameId;
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+        }
+
+        // Runs on whichever inbound thread saw its SUBSCRIBE second
+        void send(String topicSubscriptionId) {
+            slowConsumerGuard.awaitSnapshot(sessionId, subscriptionId, topicSubscriptionId);
+            if (!gameSharding.isLocal(gameId)) {
+                ownerSnapshotClient.fetch(gameId).whenComplete((frame, error) -> {
+                    if (error != null) {
+                        failed(error);
+                    } else {
+                        future.complete(frame);
+                    }
+                });
+                return;
+            }
+            try {
+                future.complete(gameSnapshotCache.snapshot(gameId));
+            } catch (RuntimeException e) {
+                failed(e);
+            }
+        }
+
+        // No snapshot will be queued, so the topic's deltas may merge again
+        private void failed(Throwable error) {
+            slowConsumerGuard.snapshotFailed(sessionId, subscriptionId);
+            future.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.volley.broadcast;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+// Live subscriber counts per destination, so each frame format is only encoded when someone receives it
+@Component
+public class GameSubscriptions {
+
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    // session id -> subscription id -> destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Set<String> connected = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("volley.stomp.sessions", connected, Set::size)
+            .register(meterRegistry);
+        // Per-game counts are summarised, since a game id tag would grow without bound
+        Gauge.builder("volley.broadcast.games.watched", this, subscriptions -> subscriptions.gameCounts().count())
+            .register(meterRegistry);
+        Gauge.builder("volley.broadcast.subscribers", this, subscriptions -> subscriptions.gameCounts().sum())
+            .register(meterRegistry);
+        Gauge.builder("volley.broadcast.subscribers.max", this, subscriptions -> subscriptions.gameCounts().max().orElse(0))
+            .description("Subscribers on the most watched game")
+            .register(meterRegistry);
+    }
+
+    public int subscribers(String destination) {
+        AtomicInteger count = counts.get(destination);
+        return count != null ? count.get() : 0;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (sessionId != null) {
+            connected.add(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null || destination == null) {
+            return;
+        }
+        String previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+            .put(accessor.getSubscriptionId(), destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        counts.compute(destination, (d, count) -> {
+            AtomicInteger updated = count != null ? count : new AtomicInteger();
+            updated.incrementAndGet();
+            return updated;
+        });
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (destination != null) {
+                decrement(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        connected.remove(event.getSessionId());
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    // Subscribers per game destination, JSON and binary together
+    private IntStream gameCounts() {
+        Map<String, Integer> games = new HashMap<>();
+        counts.forEach((destination, count) -> {
+            if (destination.startsWith(GameBroadcastScheduler.DESTINATION_PREFIX)) {
+                String game = destination.endsWith(GameBroadcastScheduler.BINARY_SUFFIX)
+                    ? destination.substring(0, destination.length() - GameBroadcastScheduler.BINARY_SUFFIX.length())
+                    : destination;
+                games.merge(game, count.get(), Integer::sum);
+            }
+        });
+        return games.values().stream().mapToInt(Integer::intValue);
+    }
+
+    private void decrement(String destination) {
+        // Atomic with compute() above, so a destination disappears exactly when its last subscriber leaves
+        counts.computeIfPresent(destination, (d, count) -> count.decrementAndGet() > 0 ? count : null);
+    }
+}
@@ -0,0 +1,80 @@
+package com.volley.broadcast;
+
+import com.volley.service.BoxScore;
+import com.volley.service.LiveGameAggregate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// A game's per-player and team totals as of one broadcast seq: a box score seed plus every delta
+// applied after it. Not thread-safe; owners lock around it.
+class GameTotals {
+
+    private final long[] team = new long[LiveGameAggregate.TEAM_STAT_COUNT];
+    private final Map<String, long[]> players = new TreeMap<>();
+    // Seq of the last delta applied, 0 for a bare seed
+    private long seq;
+
+    GameTotals(BoxScore seed) {
+        for (int i = 0; i < GameDelta.TEAM_STAT_NAMES.length; i++) {
+            team[i] = seed.getTeam().get(GameDelta.TEAM_STAT_NAMES[i]);
+        }
+        for (Map.Entry<String, Map<String, Long>> entry : seed.getPlayers().entrySet()) {
+            long[] totals = new long[LiveGameAggregate.PLAYER_STAT_COUNT];
+            for (int i = 0; i < GameDelta.PLAYER_STAT_NAMES.length; i++) {
+                totals[i] = entry.getValue().get(GameDelta.PLAYER_STAT_NAMES[i]);
+            }
+            players.put(entry.getKey(), totals);
+        }
+    }
+
+    GameTotals(GameTotals other) {
+        System.arraycopy(other.team, 0, team, 0, team.length);
+        other.players.forEach((playerId, totals) -> players.put(playerId, totals.clone()));
+        seq = other.seq;
+    }
+
+    long getSeq() {
+        return seq;
+    }
+
+    void apply(GameDelta delta) {
+        for (Map.Entry<String, int[]> entry : delta.getPlayerDeltas().entrySet()) {
+            long[] totals = players.computeIfAbsent(entry.getKey(), id -> new long[LiveGameAggregate.PLAYER_STAT_COUNT]);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += entry.getValue()[i];
+            }
+        }
+        // Team totals in a delta are absolute
+        if (delta.getTeamTotals() != null) {
+            for (int i = 0; i < team.length; i++) {
+                team[i] = delta.getTeamTotals()[i];
+            }
+        }
+        seq = delta.getSeq();
+    }
+
+    // The GAME_SNAPSHOT message: clients apply deltas with a higher seq on top of it
+    Map<String, Object> toSnapshot(String gameId) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("type", "GAME_SNAPSHOT");
+        state.put("gameId", gameId);
+        state.put("seq", seq);
+        Map<String, Long> teamTotals = new LinkedHashMap<>();
+        for (int i = 0; i < GameDelta.TEAM_STAT_NAMES.length; i++) {
+            teamTotals.put(GameDelta.TEAM_STAT_NAMES[i], team[i]);
+        }
+        state.put("team", teamTotals);
+        Map<String, Map<String, Long>> playerTotals = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : players.entrySet()) {
+            Map<String, Long> stats = new LinkedHashMap<>();
+            for (int i = 0; i < GameDelta.PLAYER_STAT_NAMES.length; i++) {
+                stats.put(GameDelta.PLAYER_STAT_NAMES[i], entry.getValue()[i]);
+            }
+            playerTotals.put(entry.getKey(), stats);
+        }
+        state.put("players", playerTotals);
+        return state;
+    }
+}
@@ -0,0 +1,28 @@
+package com.volley.broadcast;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Single-node bus: deltas go straight to the local listeners
+@Component
+@ConditionalOnProperty(name = "volley.cluster.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessGameEventBus implements GameEventBus {
+
+    private final List<Consumer<GameDelta>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(GameDelta delta) {
+        for (Consumer<GameDelta> listener : listeners) {
+            listener.accept(delta);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<GameDelta> listener) {
+        listeners.add(listener);
+    }
+}
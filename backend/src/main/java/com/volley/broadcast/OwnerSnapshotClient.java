@@ -0,0 +1,62 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.cluster.ClusterNode;
+import com.volley.cluster.GameOwnerFilter;
+import com.volley.cluster.GameSharding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+// Snapshots of games owned by another node, fetched from the owner (ClusterController). One seeded
+// here would come from this node's own box score, which can be behind or ahead of the deltas the
+// owner relays; the owner's lines up with their seq, since it relays a delta only after its own
+// GameSnapshotCache holds it (TcpGameEventBus.publish delivers locally first).
+@Component
+public class OwnerSnapshotClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    private GameSharding gameSharding;
+
+    @Autowired
+    private GameOwnerFilter gameOwnerFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(2))
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+
+    CompletableFuture<GameSnapshotFrame> fetch(String gameId) {
+        ClusterNode owner = gameSharding.ownerOf(gameId);
+        HttpRequest request = gameOwnerFilter
+            .peerRequest(owner, "GET", "/cluster/games/" + UriUtils.encodePathSegment(gameId, StandardCharsets.UTF_8) + "/snapshot")
+            .timeout(REQUEST_TIMEOUT)
+            .GET()
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Game owner " + owner.getId() + " answered " + response.statusCode()
+                    + " for the snapshot of game " + gameId);
+            }
+            try {
+                return new GameSnapshotFrame(objectMapper.readTree(response.body()).path("seq").asLong(), response.body());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Outbound STOMP sessions that merge queued game deltas instead of buffering every one
+// (see ConflatingWebSocketSession), and how far behind those sessions are
+@Component
+public class SlowConsumerGuard {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Off: Spring's decorator, which buffers every frame up to the same limits
+    @Value("${volley.stomp.conflate:true}")
+    private boolean enabled;
+
+    private final Map<String, ConflatingWebSocketSession> sessions = new ConcurrentHashMap<>();
+    private Timer lag;
+    private Counter conflated;
+
+    @PostConstruct
+    public void registerMetrics() {
+        lag = Timer.builder("volley.stomp.session.lag")
+            .description("Time from a frame being queued for a session to it being written")
+            .register(meterRegistry);
+        conflated = meterRegistry.counter("volley.stomp.frames.conflated");
+        Gauge.builder("volley.stomp.sessions.lagging", sessions, s -> s.values().stream()
+                .filter(session -> session.queuedBytes() > 0).count())
+            .register(meterRegistry);
+        Gauge.builder("volley.stomp.session.lag.max", this, SlowConsumerGuard::maxLagSeconds)
+            .description("How long the oldest unsent frame on any session has been waiting")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("volley.stomp.queued.bytes", sessions, s -> s.values().stream()
+                .mapToLong(ConflatingWebSocketSession::queuedBytes).sum())
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public WebSocketSession decorate(WebSocketSession session, int sendTimeLimitMs, int bufferSizeLimit) {
+        ConflatingWebSocketSession decorated =
+            new ConflatingWebSocketSession(session, this, objectMapper, sendTimeLimitMs, bufferSizeLimit);
+        sessions.put(session.getId(), decorated);
+        return decorated;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        ConflatingWebSocketSession session = sessions.remove(event.getSessionId());
+        if (session != null) {
+            session.release();
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        ConflatingWebSocketSession session = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (session != null && accessor.getSubscriptionId() != null) {
+            session.unsubscribed(accessor.getSubscriptionId());
+        }
+    }
+
+    // The topic subscription's deltas are held back from merging until the snapshot is queued
+    void awaitSnapshot(String sessionId, String snapshotSubscriptionId, String topicSubscriptionId) {
+        ConflatingWebSocketSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.awaitSnapshot(snapshotSubscriptionId, topicSubscriptionId);
+        }
+    }
+
+    void snapshotFailed(String sessionId, String snapshotSubscriptionId) {
+        ConflatingWebSocketSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.unsubscribed(snapshotSubscriptionId);
+        }
+    }
+
+    void sessionClosed(ConflatingWebSocketSession session) {
+        sessions.remove(session.getId(), session);
+        session.release();
+    }
+
+    void frameSent(long lagNanos) {
+        lag.record(lagNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void frameConflated() {
+        conflated.increment();
+    }
+
+    void sessionDropped(String reason) {
+        meterRegistry.counter("volley.stomp.sessions.dropped", "reason", reason).increment();
+    }
+
+    private double maxLagSeconds() {
+        long now = System.nanoTime();
+        long max = 0;
+        for (ConflatingWebSocketSession session : sessions.values()) {
+            max = Math.max(max, session.lagNanos(now));
+        }
+        return max / 1e9;
+    }
+}
@@ -0,0 +1,320 @@
+package com.volley.broadcast;
+
+import com.volley.cluster.ClusterNode;
+import com.volley.cluster.ClusterSecret;
+import com.volley.cluster.GameSharding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Relays deltas between nodes over plain TCP, one outbound connection per peer.
+//
+// The listener binds to this node's host from volley.cluster.nodes. A connecting peer must
+// answer a random challenge with its HMAC under volley.cluster.secret before it may send
+// anything. Each frame on the wire is then the game id (DataOutput UTF), the GameDeltaCodec
+// length as an int, then the codec bytes; a frame over bus-max-frame-bytes closes the connection. Publishing never blocks on the network: every peer
+// has a bounded queue drained by its own sender thread, and frames for a peer that
+// stays unreachable are dropped once its queue is full.
+@Component
+@ConditionalOnProperty(name = "volley.cluster.bus", havingValue = "tcp")
+public class TcpGameEventBus implements GameEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(TcpGameEventBus.class);
+
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MS = 2000;
+    private static final int HANDSHAKE_TIMEOUT_MS = 2000;
+    private static final int CHALLENGE_BYTES = 32;
+    // Keeps bus signatures from being valid anywhere else the secret is used
+    private static final byte[] HANDSHAKE_CONTEXT = "volley-game-bus:".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private GameSharding gameSharding;
+
+    @Autowired
+    private ClusterSecret clusterSecret;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${volley.cluster.bus-queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${volley.cluster.bus-max-frame-bytes:1048576}")
+    private int maxFrameBytes;
+
+    private final List<Consumer<GameDelta>> listeners = new CopyOnWriteArrayList<>();
+    private final List<PeerLink> peers = new ArrayList<>();
+    private final List<Socket> inbound = new CopyOnWriteArrayList<>();
+    private final SecureRandom random = new SecureRandom();
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+    private Counter framesSent;
+    private Counter framesReceived;
+    private Counter framesDropped;
+
+    @PostConstruct
+    public void start() throws IOException {
+        ClusterNode local = gameSharding.getLocalNode();
+        if (local == null) {
+            throw new IllegalStateException("volley.cluster.bus=tcp needs volley.cluster.nodes and volley.cluster.node-id");
+        }
+        framesSent = meterRegistry.counter("volley.cluster.bus.frames", "direction", "sent");
+        framesReceived = meterRegistry.counter("volley.cluster.bus.frames", "direction", "received");
+        framesDropped = meterRegistry.counter("volley.cluster.bus.frames", "direction", "dropped");
+        running = true;
+
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(local.getHost(), local.getBusPort()));
+        daemon("game-bus-accept", this::acceptLoop).start();
+
+        for (ClusterNode peer : gameSharding.getPeers()) {
+            PeerLink link = new PeerLink(peer, new ArrayBlockingQueue<>(queueCapacity));
+            link.thread = daemon("game-bus-send-" + peer.getId(), link::sendLoop);
+            peers.add(link);
+            link.thread.start();
+        }
+        log.info("Game event bus listening on {}:{} with peers {}", local.getHost(), local.getBusPort(), gameSharding.getPeers());
+    }
+
+    @Override
+    public void publish(GameDelta delta) {
+        deliver(delta);
+        if (peers.isEmpty()) {
+            return;
+        }
+        byte[] payload = GameDeltaCodec.encode(delta);
+        if (payload.length > maxFrameBytes) {
+            // Peers would drop the connection over it
+            log.warn("Not relaying a {} byte delta for game {} over volley.cluster.bus-max-frame-bytes",
+                payload.length, delta.getGameId());
+            framesDropped.increment();
+            return;
+        }
+        byte[] frame = frame(delta.getGameId(), payload);
+        for (PeerLink peer : peers) {
+            if (!peer.queue.offer(frame)) {
+                framesDropped.increment();
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<GameDelta> listener) {
+        listeners.add(listener);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeQuietly(serverSocket);
+        for (PeerLink peer : peers) {
+            peer.thread.interrupt();
+            closeQuietly(peer.socket);
+        }
+        for (Socket socket : inbound) {
+            closeQuietly(socket);
+        }
+    }
+
+    private void deliver(GameDelta delta) {
+        for (Consumer<GameDelta> listener : listeners) {
+            listener.accept(delta);
+        }
+    }
+
+    private static byte[] frame(String gameId, byte[] payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + gameId.length() + 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(gameId);
+            out.writeInt(payload.length);
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                inbound.add(socket);
+                daemon("game-bus-receive-" + socket.getRemoteSocketAddress(), () -> receiveLoop(socket)).start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Game event bus accept failed", e);
+                }
+            }
+        }
+    }
+
+    private void receiveLoop(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            if (!challenge(socket, in)) {
+                log.warn("Game event bus rejected unauthenticated connection from {}", socket.getRemoteSocketAddress());
+                return;
+            }
+            while (running) {
+                String gameId = in.readUTF();
+                int length = in.readInt();
+                if (length < 0 || length > maxFrameBytes) {
+                    throw new IOException("Frame of " + length + " bytes exceeds volley.cluster.bus-max-frame-bytes");
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                framesReceived.increment();
+                deliver(GameDeltaCodec.decode(gameId, payload));
+            }
+        } catch (EOFException e) {
+            // Peer closed the connection; it reconnects on its next frame
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                log.warn("Game event bus connection from {} failed", socket.getRemoteSocketAddress(), e);
+            }
+        } finally {
+            inbound.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    // Accepting side: a fresh challenge per connection, so a recorded answer is worthless
+    private boolean challenge(Socket socket, DataInputStream in) throws IOException {
+        byte[] challenge = new byte[CHALLENGE_BYTES];
+        random.nextBytes(challenge);
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+        OutputStream out = socket.getOutputStream();
+        out.write(challenge);
+        out.flush();
+        byte[] answer = new byte[in.readUnsignedByte()];
+        in.readFully(answer);
+        socket.setSoTimeout(0);
+        return clusterSecret.verify(handshakeMessage(challenge), answer);
+    }
+
+    // Connecting side
+    private void answer(Socket socket) throws IOException {
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+        byte[] challenge = new byte[CHALLENGE_BYTES];
+        new DataInputStream(socket.getInputStream()).readFully(challenge);
+        socket.setSoTimeout(0);
+        byte[] answer = clusterSecret.sign(handshakeMessage(challenge));
+        OutputStream out = socket.getOutputStream();
+        out.write(answer.length);
+        out.write(answer);
+        out.flush();
+    }
+
+    private static byte[] handshakeMessage(byte[] challenge) {
+        byte[] message = Arrays.copyOf(HANDSHAKE_CONTEXT, HANDSHAKE_CONTEXT.length + challenge.length);
+        System.arraycopy(challenge, 0, message, HANDSHAKE_CONTEXT.length, challenge.length);
+        return message;
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Already closing
+            }
+        }
+    }
+
+    private class PeerLink {
+        final ClusterNode node;
+        final BlockingQueue<byte[]> queue;
+        Thread thread;
+        volatile Socket socket;
+
+        PeerLink(ClusterNode node, BlockingQueue<byte[]> queue) {
+            this.node = node;
+            this.queue = queue;
+        }
+
+        void sendLoop() {
+            long reconnectDelayMs = 100;
+            DataOutputStream out = null;
+            byte[] frame = null;
+            while (running) {
+                try {
+                    if (frame == null) {
+                        frame = queue.take();
+                    }
+                    if (out == null) {
+                        Socket connected = new Socket();
+                        connected.setTcpNoDelay(true);
+                        connected.connect(new InetSocketAddress(node.getHost(), node.getBusPort()), CONNECT_TIMEOUT_MS);
+                        socket = connected;
+                        answer(connected);
+                        out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream()));
+                        reconnectDelayMs = 100;
+                    }
+                    out.write(frame);
+                    framesSent.increment();
+                    frame = null;
+                    // Frames that queued up meanwhile share one flush
+                    while ((frame = queue.poll()) != null) {
+                        out.write(frame);
+                        framesSent.increment();
+                    }
+                    out.flush();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException e) {
+                    if (!running) {
+                        return;
+                    }
+                    log.debug("Game event bus peer {} unreachable, retrying in {}ms", node.getId(), reconnectDelayMs);
+                    closeQuietly(socket);
+                    out = null;
+                    try {
+                        Thread.sleep(reconnectDelayMs);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    reconnectDelayMs = Math.min(MAX_RECONNECT_DELAY_MS, reconnectDelayMs * 2);
+                }
+            }
+        }
+    }
+}
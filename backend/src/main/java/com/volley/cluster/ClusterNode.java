@@ -0,0 +1,51 @@
+package com.volley.cluster;
+
+public class ClusterNode {
+    private final String id;
+    private final String host;
+    private final int httpPort;
+    private final int busPort;
+
+    public ClusterNode(String id, String host, int httpPort, int busPort) {
+        this.id = id;
+        this.host = host;
+        this.httpPort = httpPort;
+        this.busPort = busPort;
+    }
+
+    // Parses one volley.cluster.nodes entry: id=host:httpPort:busPort
+    public static ClusterNode parse(String entry) {
+        String[] idAndAddress = entry.trim().split("=", 2);
+        String[] address = idAndAddress.length == 2 ? idAndAddress[1].split(":") : new String[0];
+        if (address.length != 3 || idAndAddress[0].isBlank()) {
+            throw new IllegalArgumentException("Cluster node must look like id=host:httpPort:busPort, got: " + entry);
+        }
+        return new ClusterNode(idAndAddress[0].trim(), address[0],
+            Integer.parseInt(address[1]), Integer.parseInt(address[2]));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    public int getBusPort() {
+        return busPort;
+    }
+
+    public String getBaseUrl() {
+        return "http://" + host + ":" + httpPort;
+    }
+
+    @Override
+    public String toString() {
+        return id + "=" + host + ":" + httpPort + ":" + busPort;
+    }
+}
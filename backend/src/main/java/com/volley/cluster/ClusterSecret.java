@@ -0,0 +1,73 @@
+package com.volley.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// Shared by every node of a cluster. Peers prove they hold it with an HMAC-SHA256 over
+// something the receiving side chose or can check, so the secret itself never crosses the wire.
+@Component
+public class ClusterSecret {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private GameSharding gameSharding;
+
+    @Value("${volley.cluster.secret:}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() {
+        if (secret.isBlank()) {
+            if (gameSharding.isClustered()) {
+                throw new IllegalStateException("volley.cluster.nodes needs volley.cluster.secret");
+            }
+            return;
+        }
+        key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public byte[] sign(byte[] message) {
+        if (key == null) {
+            throw new IllegalStateException("volley.cluster.secret is not set");
+        }
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(message);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    public String sign(String message) {
+        return Base64.getEncoder().encodeToString(sign(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public boolean verify(byte[] message, byte[] signature) {
+        // Constant time, so a peer cannot learn the signature a byte at a time
+        return key != null && signature != null && MessageDigest.isEqual(sign(message), signature);
+    }
+
+    public boolean verify(String message, String signature) {
+        if (signature == null) {
+            return false;
+        }
+        try {
+            return verify(message.getBytes(StandardCharsets.UTF_8), Base64.getDecoder().decode(signature));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
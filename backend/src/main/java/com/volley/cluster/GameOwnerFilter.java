@@ -0,0 +1,152 @@
+package com.volley.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Game requests are served by the game's owner node, so its live aggregate, broadcast
+// sequence and roster cache stay single-writer. A load balancer that hashes on the game id
+// (or follows X-Volley-Game-Owner) lands on the owner directly; anything else is proxied.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class GameOwnerFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(GameOwnerFilter.class);
+
+    public static final String OWNER_HEADER = "X-Volley-Game-Owner";
+    // Set on proxied requests so a node never forwards twice, even while node lists disagree.
+    // Only honoured with a valid signature, so a client cannot use it to skip the owner
+    public static final String FORWARDED_HEADER = "X-Volley-Forwarded-By";
+    public static final String FORWARDED_SIGNATURE_HEADER = "X-Volley-Forwarded-Signature";
+
+    private static final Pattern GAME_PATH = Pattern.compile("^/api/games/([^/]+)(/.*)?$");
+    // Streams are served by any node from the cluster bus; proxying would buffer them
+    private static final String FEED_SUFFIX = "/feed";
+
+    // Managed by HttpClient itself, or describing this hop only
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+        "connection", "content-length", "expect", "host", "upgrade", "keep-alive", "transfer-encoding", "http2-settings");
+
+    @Autowired
+    private GameSharding gameSharding;
+
+    @Autowired
+    private ClusterSecret clusterSecret;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(2))
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !gameSharding.isClustered() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Matcher matcher = GAME_PATH.matcher(request.getRequestURI());
+        if (!matcher.matches() || FEED_SUFFIX.equals(matcher.group(2))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ClusterNode owner = gameSharding.ownerOf(matcher.group(1));
+        response.setHeader(OWNER_HEADER, owner.getId());
+        if (owner == gameSharding.getLocalNode() || isForwardedByPeer(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        forward(owner, request, response);
+    }
+
+    // Also how the cluster endpoints (ClusterController) tell a peer's own requests from a client's
+    public boolean isForwardedByPeer(HttpServletRequest request) {
+        String forwardedBy = request.getHeader(FORWARDED_HEADER);
+        return forwardedBy != null
+            && clusterSecret.verify(forwardSignatureMessage(forwardedBy, request.getMethod(), pathAndQuery(request)),
+                request.getHeader(FORWARDED_SIGNATURE_HEADER));
+    }
+
+    // A request this node makes to a peer on its own behalf, signed as a forwarded one is
+    public HttpRequest.Builder peerRequest(ClusterNode peer, String method, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(peer.getBaseUrl() + pathAndQuery))
+            .header(FORWARDED_HEADER, gameSharding.getNodeId())
+            .header(FORWARDED_SIGNATURE_HEADER,
+                clusterSecret.sign(forwardSignatureMessage(gameSharding.getNodeId(), method, pathAndQuery)));
+    }
+
+    private static String forwardSignatureMessage(String nodeId, String method, String pathAndQuery) {
+        return nodeId + " " + method + " " + pathAndQuery;
+    }
+
+    private static String pathAndQuery(HttpServletRequest request) {
+        return request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+    }
+
+    private void forward(ClusterNode owner, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpRequest.Builder builder = peerRequest(owner, request.getMethod(), pathAndQuery(request))
+            .method(request.getMethod(), HttpRequest.BodyPublishers.ofByteArray(request.getInputStream().readAllBytes()));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            // A client's own copies of the forwarding headers are dropped at this edge
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase())
+                    && !name.equalsIgnoreCase(FORWARDED_HEADER) && !name.equalsIgnoreCase(FORWARDED_SIGNATURE_HEADER)) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+
+        HttpResponse<InputStream> forwarded;
+        try {
+            forwarded = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (IOException e) {
+            log.warn("Game owner {} unreachable for {} {}", owner.getId(), request.getMethod(), request.getRequestURI(), e);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        response.setStatus(forwarded.statusCode());
+        for (Map.Entry<String, List<String>> header : forwarded.headers().map().entrySet()) {
+            String name = header.getKey().toLowerCase();
+            if (!SKIPPED_HEADERS.contains(name) && !name.startsWith(":") && !name.equalsIgnoreCase(OWNER_HEADER)) {
+                for (String value : header.getValue()) {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        // Streamed, so a forwarded export never sits in memory
+        try (InputStream in = forwarded.body(); OutputStream out = response.getOutputStream()) {
+            in.transferTo(out);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.volley.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sticky game-to-node assignment by rendezvous (highest random weight) hashing.
+// Every node computes the same owner from the same node list, and adding or removing
+// a node only moves the games that node wins or owned.
+@Component
+public class GameSharding {
+
+    @Value("${volley.cluster.node-id:local}")
+    private String nodeId;
+
+    @Value("${volley.cluster.nodes:}")
+    private String nodesProperty;
+
+    private List<ClusterNode> nodes = List.of();
+    private ClusterNode localNode;
+
+    @PostConstruct
+    public void init() {
+        List<ClusterNode> parsed = new ArrayList<>();
+        Arrays.stream(nodesProperty.split(","))
+            .filter(entry -> !entry.isBlank())
+            .map(ClusterNode::parse)
+            .forEach(parsed::add);
+        nodes = List.copyOf(parsed);
+        localNode = nodes.stream().filter(node -> node.getId().equals(nodeId)).findFirst().orElse(null);
+        if (!nodes.isEmpty() && localNode == null) {
+            throw new IllegalStateException("volley.cluster.node-id " + nodeId + " is not in volley.cluster.nodes");
+        }
+    }
+
+    public boolean isClustered() {
+        return nodes.size() > 1;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public ClusterNode getLocalNode() {
+        return localNode;
+    }
+
+    public List<ClusterNode> getPeers() {
+        return nodes.stream().filter(node -> node != localNode).toList();
+    }
+
+    public ClusterNode ownerOf(String gameId) {
+        ClusterNode owner = null;
+        long best = 0;
+        for (ClusterNode node : nodes) {
+            long weight = weight(gameId, node.getId());
+            if (owner == null || Long.compareUnsigned(weight, best) > 0) {
+                owner = node;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+
+    public boolean isLocal(String gameId) {
+        return !isClustered() || ownerOf(gameId) == localNode;
+    }
+
+    // FNV-1a over "gameId/nodeId", finished with the murmur3 fmix64 avalanche
+    static long weight(String gameId, String nodeId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (gameId + "/" + nodeId).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,60 @@
+package com.volley.config;
+
+import com.volley.broadcast.GameSnapshotSubscriptions;
+import com.volley.broadcast.SlowConsumerGuard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.user.UserDestinationResolver;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+// What @EnableWebSocketMessageBroker imports, except that outbound sessions are decorated by
+// SlowConsumerGuard and the simple broker's subscriptions are seen by GameSnapshotSubscriptions;
+// the WebSocketMessageBrokerConfigurer beans (WebSocketConfig) still apply
+@Configuration
+public class StompBrokerConfig extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    @Autowired
+    private SlowConsumerGuard slowConsumerGuard;
+
+    @Autowired
+    private GameSnapshotSubscriptions gameSnapshotSubscriptions;
+
+    @Bean
+    @Override
+    public AbstractBrokerMessageHandler simpleBrokerMessageHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                                   AbstractSubscribableChannel clientOutboundChannel,
+                                                                   AbstractSubscribableChannel brokerChannel,
+                                                                   UserDestinationResolver userDestinationResolver) {
+        AbstractBrokerMessageHandler handler = super.simpleBrokerMessageHandler(
+            clientInboundChannel, clientOutboundChannel, brokerChannel, userDestinationResolver);
+        if (handler instanceof SimpleBrokerMessageHandler) {
+            SimpleBrokerMessageHandler simpleBroker = (SimpleBrokerMessageHandler) handler;
+            // Already configured (path matcher, selector header); only wrapped
+            simpleBroker.setSubscriptionRegistry(gameSnapshotSubscriptions.decorate(simpleBroker.getSubscriptionRegistry()));
+        }
+        return handler;
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                        AbstractSubscribableChannel clientOutboundChannel) {
+        return new SubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel) {
+            @Override
+            protected WebSocketSession decorateSession(WebSocketSession session) {
+                if (!slowConsumerGuard.isEnabled()) {
+                    return super.decorateSession(session);
+                }
+                // Limits as set in WebSocketConfig.configureWebSocketTransport
+                return slowConsumerGuard.decorate(session, getSendTimeLimit(), getSendBufferSizeLimit());
+            }
+        };
+    }
+}
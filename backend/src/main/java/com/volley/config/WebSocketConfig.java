@@ -1,19 +1,97 @@
 package com.volley.config;
 
+import com.volley.broadcast.GameDeltaMessageConverter;
+import com.volley.broadcast.GameSnapshotMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+import java.util.List;
+
+// The broker itself is enabled by StompBrokerConfig
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private Environment environment;
+
+    @Value("${volley.stomp.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${volley.stomp.send-buffer-size-bytes:131072}")
+    private int sendBufferSizeBytes;
+
+    @Value("${volley.stomp.socket-send-buffer-bytes:0}")
+    private int socketSendBufferBytes;
+
+    @Value("${volley.stomp.virtual.max-concurrency:256}")
+    private int virtualMaxConcurrency;
+
+    @Value("${volley.stomp.virtual.queue-capacity:10000}")
+    private int virtualQueueCapacity;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
+        if (isVirtual()) {
+            // Unbounded outbound concurrency would otherwise reorder frames within a session
+            config.setPreservePublishOrder(true);
+        }
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (isVirtual()) {
+            registration.taskExecutor(virtualThreadExecutor("stomp-inbound-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (isVirtual()) {
+            registration.taskExecutor(virtualThreadExecutor("stomp-outbound-"));
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Per session: a send stuck longer than this, or more than this many bytes waiting behind it, drops the session
+        registration.setSendTimeLimit(sendTimeLimitMs);
+        registration.setSendBufferSizeLimit(sendBufferSizeBytes);
+    }
+
+    // A fixed SO_SNDBUF instead of the kernel's autotuning (up to 4 MB per connection on Linux), so a
+    // stalled client pushes back after a few KB and its frames are merged instead of piling up in the kernel
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> socketSendBufferCustomizer() {
+        return factory -> {
+            if (socketSendBufferBytes > 0) {
+                factory.addConnectorCustomizers(connector ->
+                    connector.setProperty("socket.txBufSize", String.valueOf(socketSendBufferBytes)));
+            }
+        };
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Binary game deltas and pre-serialized snapshots; returning true keeps the default JSON, String and byte[] converters
+        messageConverters.add(new GameDeltaMessageConverter());
+        messageConverters.add(new GameSnapshotMessageConverter());
+        return true;
     }
 
     @Override
@@ -21,5 +99,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        if (isVirtual()) {
+            // Messages from one session run one at a time, so a SUBSCRIBE is not overtaken by the next frame
+            registry.setPreserveReceiveOrder(true);
+        }
+    }
+
+    // Same switch Spring Boot uses for Tomcat and @Async: spring.threads.virtual.enabled on Java 21+
+    private boolean isVirtual() {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+
+    // Up to max-concurrency virtual threads, then a bounded queue; a full queue rejects the message
+    // rather than letting a burst of spectators start threads and hold frames without limit
+    private ThreadPoolTaskExecutor virtualThreadExecutor(String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory());
+        executor.setCorePoolSize(virtualMaxConcurrency);
+        executor.setMaxPoolSize(virtualMaxConcurrency);
+        executor.setQueueCapacity(virtualQueueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(1);
+        return executor;
     }
 }
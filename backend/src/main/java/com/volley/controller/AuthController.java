@@ -2,11 +2,16 @@ package com.volley.controller;
 
 import com.volley.dto.LoginRequest;
 import com.volley.dto.LoginResponse;
+import com.volley.security.LoginThrottledException;
 import com.volley.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
@@ -16,13 +21,20 @@ public class AuthController {
     private AuthService authService;
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest loginRequest) {
-        try {
-            LoginResponse response = authService.authenticate(loginRequest.getEmail(), loginRequest.getPassword());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest loginRequest) {
+        // The request thread is released while the password is verified on the login pool
+        return authService.authenticate(loginRequest.getEmail(), loginRequest.getPassword())
+            .thenApply(ResponseEntity::ok)
+            .exceptionally(this::loginFailed);
+    }
+
+    private ResponseEntity<LoginResponse> loginFailed(Throwable error) {
+        if (AuthService.unwrap(error) instanceof LoginThrottledException throttled) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(throttled.getRetryAfterSeconds()))
+                .build();
         }
+        return ResponseEntity.badRequest().build();
     }
 
     @PostMapping("/logout")
@@ -0,0 +1,52 @@
+package com.volley.controller;
+
+import com.volley.broadcast.GameSnapshotCache;
+import com.volley.cluster.GameOwnerFilter;
+import com.volley.cluster.GameSharding;
+import com.volley.service.GameDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Node-to-node requests, signed with volley.cluster.secret; outside /api, so not proxied to an owner
+@RestController
+@RequestMapping("/cluster")
+public class ClusterController {
+
+    @Autowired
+    private GameOwnerFilter gameOwnerFilter;
+
+    @Autowired
+    private GameSharding gameSharding;
+
+    @Autowired
+    private GameDirectory gameDirectory;
+
+    @Autowired
+    private GameSnapshotCache gameSnapshotCache;
+
+    // The GAME_SNAPSHOT a non-owner answers SUBSCRIBE /app/games/{gameId} with (see OwnerSnapshotClient)
+    @GetMapping("/games/{gameId}/snapshot")
+    public ResponseEntity<byte[]> getSnapshot(@PathVariable String gameId, HttpServletRequest request) {
+        if (!gameOwnerFilter.isForwardedByPeer(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        // Node lists disagree; only the owner's snapshot lines up with the deltas it relays
+        if (!gameSharding.isLocal(gameId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (!gameDirectory.exists(gameId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(gameSnapshotCache.snapshot(gameId).getJson());
+    }
+}
@@ -1,15 +1,34 @@
 package com.volley.controller;
 
+import com.volley.broadcast.GameSnapshotFrame;
+import com.volley.broadcast.GameSnapshotSubscriptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
+import java.util.concurrent.CompletableFuture;
+
 @Controller
 public class GameSocketController {
 
+    @Autowired
+    private GameSnapshotSubscriptions gameSnapshotSubscriptions;
+
     @MessageMapping("/game.sendMessage")
     @SendTo("/topic/games")
     public String sendMessage(String message) {
         return message;
     }
+
+    // SUBSCRIBE /app/games/{gameId}, after /topic/games/{gameId}: one GAME_SNAPSHOT for this subscriber,
+    // sent once the broker has the topic subscription; deltas with a seq at or below the snapshot's are already in it
+    @SubscribeMapping("/games/{gameId}")
+    public CompletableFuture<GameSnapshotFrame> subscribeGame(@DestinationVariable String gameId,
+                                                              SimpMessageHeaderAccessor headers) {
+        return gameSnapshotSubscriptions.snapshot(gameId, headers.getSessionId(), headers.getSubscriptionId());
+    }
 }
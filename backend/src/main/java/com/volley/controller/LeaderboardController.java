@@ -0,0 +1,43 @@
+package com.volley.controller;
+
+import com.volley.analytics.LeaderboardMetric;
+import com.volley.analytics.LeaderboardService;
+import com.volley.dto.LeaderboardEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/leaderboards")
+@CrossOrigin(origins = "*")
+public class LeaderboardController {
+
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @GetMapping
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(
+            @RequestParam(defaultValue = "kills-per-set") String metric,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "3") int minSets,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        // from/to bound the season; minSets keeps one-set players off the ratio boards
+        try {
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            LeaderboardMetric leaderboardMetric = LeaderboardMetric.fromParam(metric);
+            return ResponseEntity.ok(leaderboardService.getLeaderboard(leaderboardMetric, from, to, minSets, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -1,15 +1,36 @@
 package com.volley.controller;
 
+import com.volley.broadcast.GameFeedService;
 import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.StatBatchRequest;
+import com.volley.dto.StatBatchResponse;
 import com.volley.dto.TeamStatRequest;
 import com.volley.model.Player;
 import com.volley.model.PlayerStat;
 import com.volley.model.TeamStat;
+import com.volley.model.User;
+import com.volley.service.BoxScore;
+import com.volley.service.ClientSequenceService;
+import com.volley.service.GameDirectory;
+import com.volley.service.GameExportService;
+import com.volley.service.GameState;
+import com.volley.service.Roster;
+import com.volley.service.RosterService;
+import com.volley.service.SequencedResult;
 import com.volley.service.StatsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -19,46 +40,218 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class StatsController {
 
+    // Offline clients number their writes so retries are not counted twice
+    private static final String DEVICE_HEADER = "X-Device-Id";
+    private static final String SEQ_HEADER = "X-Client-Seq";
+    private static final String DUPLICATE_HEADER = "X-Volley-Duplicate";
+
     @Autowired
     private StatsService statsService;
 
+    @Autowired
+    private GameExportService gameExportService;
+
+    @Autowired
+    private RosterService rosterService;
+
+    @Autowired
+    private ClientSequenceService clientSequenceService;
+
+    @Autowired
+    private GameFeedService gameFeedService;
+
+    @Autowired
+    private GameDirectory gameDirectory;
+
     @GetMapping("/games/{gameId}/players")
-    public ResponseEntity<List<Player>> getPlayers(@PathVariable String gameId) {
-        List<Player> players = statsService.getPlayersForGame(gameId);
-        return ResponseEntity.ok(players);
+    public ResponseEntity<List<Player>> getPlayers(
+            @PathVariable String gameId,
+            @AuthenticationPrincipal User user) {
+
+        // A matching If-None-Match gets a 304 from Spring before the body is serialized
+        Roster roster = rosterService.getRoster(gameId, user);
+        return rosterResponse(roster);
+    }
+
+    @PutMapping("/games/{gameId}/roster/{playerId}")
+    public ResponseEntity<List<Player>> addRosterPlayer(
+            @PathVariable String gameId,
+            @PathVariable String playerId,
+            @AuthenticationPrincipal User user) {
+
+        try {
+            return rosterResponse(rosterService.addPlayer(gameId, playerId, user));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/games/{gameId}/roster/{playerId}")
+    public ResponseEntity<List<Player>> removeRosterPlayer(
+            @PathVariable String gameId,
+            @PathVariable String playerId,
+            @AuthenticationPrincipal User user) {
+
+        try {
+            return rosterResponse(rosterService.removePlayer(gameId, playerId, user));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/games/{gameId}/team-stats")
     public ResponseEntity<TeamStat> getTeamStats(@PathVariable String gameId) {
-        TeamStat teamStats = statsService.getTeamStatsForGame(gameId);
-        return ResponseEntity.ok(teamStats);
+        try {
+            TeamStat teamStats = statsService.getTeamStatsForGame(gameId);
+            return ResponseEntity.ok(teamStats);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/games/{gameId}/boxscore")
+    public ResponseEntity<BoxScore> getBoxScore(@PathVariable String gameId) {
+        // Versioned by every write, so polling dashboards mostly get a 304
+        BoxScore boxScore;
+        try {
+            boxScore = statsService.getBoxScore(gameId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+            .eTag(boxScore.getEtag())
+            .cacheControl(CacheControl.noCache())
+            .body(boxScore);
+    }
+
+    @GetMapping(value = "/games/{gameId}/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void getFeed(
+            @PathVariable String gameId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        if (!gameDirectory.exists(gameId)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        // Read-only spectator stream; a reconnect resumes from Last-Event-ID without touching the database
+        gameFeedService.subscribe(gameId, lastEventId, request, response);
+    }
+
+    @GetMapping("/games/{gameId}/state")
+    public ResponseEntity<GameState> getGameState(
+            @PathVariable String gameId,
+            @RequestParam(required = false) String at,
+            @RequestParam(required = false) Integer set) {
+
+        // at: team event seq or timestamp; set: state at the end of that set
+        try {
+            return ResponseEntity.ok(statsService.getGameState(gameId, at, set));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping("/games/{gameId}/players/{playerId}/stats")
     public ResponseEntity<PlayerStat> recordPlayerStat(
             @PathVariable String gameId,
             @PathVariable String playerId,
-            @RequestBody PlayerStatRequest request) {
+            @RequestBody PlayerStatRequest request,
+            @RequestHeader(value = DEVICE_HEADER, required = false) String deviceId,
+            @RequestHeader(value = SEQ_HEADER, required = false) Long clientSeq) {
         
-        PlayerStat stat = statsService.recordPlayerStat(gameId, playerId, request);
-        return ResponseEntity.ok(stat);
+        try {
+            return sequencedResponse(clientSequenceService.apply(deviceId, clientSeq, gameId,
+                () -> statsService.recordPlayerStat(gameId, playerId, request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping("/games/{gameId}/team-stats")
     public ResponseEntity<TeamStat> recordTeamStat(
             @PathVariable String gameId,
-            @RequestBody TeamStatRequest request) {
+            @RequestBody TeamStatRequest request,
+            @RequestHeader(value = DEVICE_HEADER, required = false) String deviceId,
+            @RequestHeader(value = SEQ_HEADER, required = false) Long clientSeq) {
         
-        TeamStat stat = statsService.recordTeamStat(gameId, request);
-        return ResponseEntity.ok(stat);
+        try {
+            return sequencedResponse(clientSequenceService.apply(deviceId, clientSeq, gameId,
+                () -> statsService.recordTeamStat(gameId, request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/games/{gameId}/stats:batch")
+    public ResponseEntity<StatBatchResponse> recordBatch(
+            @PathVariable String gameId,
+            @RequestBody StatBatchRequest request,
+            @RequestHeader(value = DEVICE_HEADER, required = false) String deviceId,
+            @RequestHeader(value = SEQ_HEADER, required = false) Long clientSeq) {
+
+        try {
+            return sequencedResponse(clientSequenceService.apply(deviceId, clientSeq, gameId,
+                () -> statsService.recordBatch(gameId, request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/games/{gameId}/reports/player/{playerId}")
     public ResponseEntity<List<Map<String, Object>>> getPlayerReport(
             @PathVariable String gameId,
-            @PathVariable String playerId) {
-        
-        List<Map<String, Object>> report = statsService.getPlayerReport(gameId, playerId);
-        return ResponseEntity.ok(report);
+            @PathVariable String playerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+
+        try {
+            List<Map<String, Object>> report = statsService.getPlayerReport(gameId, playerId, since);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/games/{gameId}/events/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @PathVariable String gameId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        if (!gameDirectory.exists(gameId)) {
+            return ResponseEntity.notFound().build();
+        }
+        // Rows are streamed from a database cursor straight to the response
+        if ("ndjson".equals(format)) {
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"game-events.ndjson\"")
+                .body(out -> gameExportService.exportNdjson(gameId, out));
+        }
+        if ("csv".equals(format)) {
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"game-events.csv\"")
+                .body(out -> gameExportService.exportCsv(gameId, out));
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    // A retry is answered with the original result, or 204 once that is no longer held
+    private <T> ResponseEntity<T> sequencedResponse(SequencedResult<T> result) {
+        if (!result.isDuplicate()) {
+            return ResponseEntity.ok(result.getValue());
+        }
+        if (result.getValue() == null) {
+            return ResponseEntity.noContent().header(DUPLICATE_HEADER, "true").build();
+        }
+        return ResponseEntity.ok().header(DUPLICATE_HEADER, "true").body(result.getValue());
+    }
+
+    private ResponseEntity<List<Player>> rosterResponse(Roster roster) {
+        return ResponseEntity.ok()
+            .eTag(roster.getEtag())
+            .cacheControl(CacheControl.noCache())
+            .body(roster.getPlayers());
     }
 }
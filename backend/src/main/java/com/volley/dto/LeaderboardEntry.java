@@ -0,0 +1,107 @@
+package com.volley.dto;
+
+public class LeaderboardEntry {
+    private int rank;
+    private String playerId;
+    private long games;
+    private long sets;
+    private long kills;
+    private long blocks;
+    private long aces;
+    private long digs;
+    private long assists;
+    private long errors;
+    private double value;
+
+    // Constructors
+    public LeaderboardEntry() {}
+
+    // Getters and setters
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public void setGames(long games) {
+        this.games = games;
+    }
+
+    public long getSets() {
+        return sets;
+    }
+
+    public void setSets(long sets) {
+        this.sets = sets;
+    }
+
+    public long getKills() {
+        return kills;
+    }
+
+    public void setKills(long kills) {
+        this.kills = kills;
+    }
+
+    public long getBlocks() {
+        return blocks;
+    }
+
+    public void setBlocks(long blocks) {
+        this.blocks = blocks;
+    }
+
+    public long getAces() {
+        return aces;
+    }
+
+    public void setAces(long aces) {
+        this.aces = aces;
+    }
+
+    public long getDigs() {
+        return digs;
+    }
+
+    public void setDigs(long digs) {
+        this.digs = digs;
+    }
+
+    public long getAssists() {
+        return assists;
+    }
+
+    public void setAssists(long assists) {
+        this.assists = assists;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.volley.dto;
+
+public class StatBatchEntry {
+    private String playerId;
+    private PlayerStatRequest playerStat;
+    private TeamStatRequest teamStat;
+
+    // Constructors
+    public StatBatchEntry() {}
+
+    // Getters and setters
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+
+    public PlayerStatRequest getPlayerStat() {
+        return playerStat;
+    }
+
+    public void setPlayerStat(PlayerStatRequest playerStat) {
+        this.playerStat = playerStat;
+    }
+
+    public TeamStatRequest getTeamStat() {
+        return teamStat;
+    }
+
+    public void setTeamStat(TeamStatRequest teamStat) {
+        this.teamStat = teamStat;
+    }
+}
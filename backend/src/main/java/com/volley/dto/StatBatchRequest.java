@@ -0,0 +1,20 @@
+package com.volley.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StatBatchRequest {
+    private List<StatBatchEntry> events = new ArrayList<>();
+
+    // Constructors
+    public StatBatchRequest() {}
+
+    // Getters and setters
+    public List<StatBatchEntry> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<StatBatchEntry> events) {
+        this.events = events;
+    }
+}
@@ -0,0 +1,36 @@
+package com.volley.dto;
+
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamStat;
+
+import java.util.List;
+
+public class StatBatchResponse {
+    private List<PlayerStat> playerStats;
+    private TeamStat teamStat;
+
+    // Constructors
+    public StatBatchResponse() {}
+
+    public StatBatchResponse(List<PlayerStat> playerStats, TeamStat teamStat) {
+        this.playerStats = playerStats;
+        this.teamStat = teamStat;
+    }
+
+    // Getters and setters
+    public List<PlayerStat> getPlayerStats() {
+        return playerStats;
+    }
+
+    public void setPlayerStats(List<PlayerStat> playerStats) {
+        this.playerStats = playerStats;
+    }
+
+    public TeamStat getTeamStat() {
+        return teamStat;
+    }
+
+    public void setTeamStat(TeamStat teamStat) {
+        this.teamStat = teamStat;
+    }
+}
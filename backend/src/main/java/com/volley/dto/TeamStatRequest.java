@@ -6,6 +6,8 @@ public class TeamStatRequest {
     private Integer missedServes;
     private Integer aces;
     private Integer timeouts;
+    // Marks the tap that closed a set; a snapshot is taken at every set boundary
+    private Boolean endOfSet;
 
     // Constructors
     public TeamStatRequest() {}
@@ -50,4 +52,12 @@ public class TeamStatRequest {
     public void setTimeouts(Integer timeouts) {
         this.timeouts = timeouts;
     }
+
+    public Boolean getEndOfSet() {
+        return endOfSet;
+    }
+
+    public void setEndOfSet(Boolean endOfSet) {
+        this.endOfSet = endOfSet;
+    }
 }
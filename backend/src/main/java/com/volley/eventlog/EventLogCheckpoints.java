@@ -0,0 +1,34 @@
+package com.volley.eventlog;
+
+import com.volley.model.EventLogCheckpoint;
+import com.volley.repository.EventLogCheckpointRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+// This node's checkpoint row. Nodes sharing a database each keep their own log, so each has a row.
+// Saved in the same transaction as the team_stats totals it vouches for.
+@Component
+public class EventLogCheckpoints {
+
+    @Autowired
+    private EventLogCheckpointRepository eventLogCheckpointRepository;
+
+    @Value("${volley.cluster.node-id:local}")
+    private String nodeId;
+
+    // Null when this node has never checkpointed against this database
+    public Long find() {
+        return eventLogCheckpointRepository.findById(nodeId).map(EventLogCheckpoint::getPosition).orElse(null);
+    }
+
+    public void save(long position) {
+        EventLogCheckpoint checkpoint = eventLogCheckpointRepository.findById(nodeId)
+            .orElse(new EventLogCheckpoint(nodeId));
+        checkpoint.setPosition(position);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        eventLogCheckpointRepository.save(checkpoint);
+    }
+}
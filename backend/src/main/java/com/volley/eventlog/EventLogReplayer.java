@@ -0,0 +1,354 @@
+package com.volley.eventlog;
+
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamEvent;
+import com.volley.model.TeamStat;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.repository.TeamEventRepository;
+import com.volley.repository.TeamStatRepository;
+import com.volley.service.LiveGameAggregate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Runs before the web server starts, so no request can observe a half-replayed game.
+//
+// A tap is logged and synced before its player row or team event commits, and cancelled in the log
+// if that write fails, so the log holds every acknowledged tap. team_stats is flushed by
+// LiveGameAggregate in the same transaction as this node's checkpoint, so a database that has a
+// checkpoint holds every acknowledged tap below it; for the taps after it, replay adds the team
+// deltas to team_stats and restores whichever rows the database lost (a commit is not on disk until
+// the database syncs it). Against an empty database (the in-memory dev default) everything is
+// rebuilt from the whole log.
+@Component
+public class EventLogReplayer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLogReplayer.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private StatEventLog statEventLog;
+
+    @Autowired
+    private PlayerStatRepository playerStatRepository;
+
+    @Autowired
+    private TeamStatRepository teamStatRepository;
+
+    @Autowired
+    private TeamEventRepository teamEventRepository;
+
+    @Autowired
+    private EventLogCheckpoints eventLogCheckpoints;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!statEventLog.isEnabled()) {
+            return;
+        }
+        Long checkpoint = eventLogCheckpoints.find();
+        if (checkpoint != null) {
+            replayTail(checkpoint);
+            return;
+        }
+        if (playerStatRepository.count() > 0 || teamStatRepository.count() > 0) {
+            // Written before checkpoints existed, so the log cannot tell which taps the totals hold
+            log.warn("Database has stats but no event log checkpoint for this node; starting one at the end of the log");
+            eventLogCheckpoints.save(statEventLog.position());
+            return;
+        }
+
+        Replay replay = new Replay();
+        try {
+            statEventLog.replay(0, replay::accept);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay stat event log", e);
+        }
+        replay.finish();
+        log.info("Replayed {} player taps and {} team taps from the stat event log",
+            replay.playerTaps, replay.teamTaps);
+    }
+
+    private void replayTail(long checkpoint) {
+        TailReplay replay = new TailReplay();
+        try {
+            statEventLog.replay(checkpoint, replay::accept);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay stat event log", e);
+        }
+
+        long end = statEventLog.position();
+        int[] restored = new TransactionTemplate(transactionManager).execute(status -> {
+            int playerRows = restorePlayerStats(replay.playerStats);
+            int teamEvents = restoreTeamEvents(replay.teamEvents);
+            for (TeamStat delta : replay.teamDeltas.values()) {
+                TeamStat stat = teamStatRepository.findByGameId(delta.getGameId()).orElse(new TeamStat(delta.getGameId()));
+                stat.setTotalPoints(stat.getTotalPoints() + delta.getTotalPoints());
+                stat.setErrors(stat.getErrors() + delta.getErrors());
+                stat.setMissedServes(stat.getMissedServes() + delta.getMissedServes());
+                stat.setAces(stat.getAces() + delta.getAces());
+                stat.setTimeouts(stat.getTimeouts() + delta.getTimeouts());
+                stat.setTimestamp(LocalDateTime.parse(delta.getTimestamp()));
+                teamStatRepository.save(stat);
+            }
+            // Also replaces a checkpoint past the end of a log that was wiped
+            eventLogCheckpoints.save(end);
+            return new int[] {playerRows, teamEvents};
+        });
+        log.info("Replayed {} player taps and {} team taps after event log checkpoint {}; "
+            + "restored {} player rows and {} team events the database had lost",
+            replay.playerStats.size(), replay.teamEvents.size(), checkpoint, restored[0], restored[1]);
+    }
+
+    // A committed row may not have reached the disk before a crash. Rows are only inserted for taps
+    // that no stored row with the same content accounts for, so a second replay adds nothing
+    private int restorePlayerStats(List<PlayerStat> logged) {
+        List<PlayerStat> missing = new ArrayList<>();
+        for (List<PlayerStat> taps : groupByGame(logged, PlayerStat::getGameId).values()) {
+            LocalDateTime since = taps.stream().map(stat -> LocalDateTime.parse(stat.getTimestamp()))
+                .min(LocalDateTime::compareTo).orElseThrow();
+            Map<List<Object>, Integer> stored = new HashMap<>();
+            for (PlayerStat stat : playerStatRepository.findByGameIdAndTimestampGreaterThanEqual(taps.get(0).getGameId(), since)) {
+                stored.merge(playerKey(stat), 1, Integer::sum);
+            }
+            for (PlayerStat stat : taps) {
+                if (!take(stored, playerKey(stat))) {
+                    missing.add(stat);
+                }
+            }
+        }
+        playerStatRepository.saveAll(missing);
+        return missing.size();
+    }
+
+    // Team events are saved in seq order, so the ones lost are the newest of their game
+    private int restoreTeamEvents(List<TeamEvent> logged) {
+        int restored = 0;
+        for (List<TeamEvent> taps : groupByGame(logged, TeamEvent::getGameId).values()) {
+            String gameId = taps.get(0).getGameId();
+            Map<List<Object>, Integer> stored = new HashMap<>();
+            for (TeamEvent event : teamEventRepository.findByGameIdAndTimestampGreaterThanEqual(gameId, taps.get(0).getTimestamp())) {
+                stored.merge(teamEventKey(event), 1, Integer::sum);
+            }
+            long seq = teamEventRepository.findLastSeq(gameId);
+            for (TeamEvent tap : taps) {
+                if (!take(stored, teamEventKey(tap))) {
+                    TeamEvent event = new TeamEvent(gameId, ++seq, tap.getTimestamp());
+                    event.setTotalPoints(tap.getTotalPoints());
+                    event.setErrors(tap.getErrors());
+                    event.setMissedServes(tap.getMissedServes());
+                    event.setAces(tap.getAces());
+                    event.setTimeouts(tap.getTimeouts());
+                    event.setEndOfSet(tap.isEndOfSet());
+                    teamEventRepository.save(event);
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    private static <T> Map<String, List<T>> groupByGame(List<T> taps, Function<T, String> gameId) {
+        Map<String, List<T>> byGame = new LinkedHashMap<>();
+        for (T tap : taps) {
+            byGame.computeIfAbsent(gameId.apply(tap), key -> new ArrayList<>()).add(tap);
+        }
+        return byGame;
+    }
+
+    private static boolean take(Map<List<Object>, Integer> stored, List<Object> key) {
+        Integer count = stored.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            stored.remove(key);
+        } else {
+            stored.put(key, count - 1);
+        }
+        return true;
+    }
+
+    private static List<Object> playerKey(PlayerStat stat) {
+        return List.of(stat.getPlayerId(), stat.getTimestamp(), stat.getKills(), stat.getBlocks(), stat.getAces(),
+            stat.getDigs(), stat.getAssists(), stat.getErrors());
+    }
+
+    private static List<Object> teamEventKey(TeamEvent event) {
+        return List.of(event.getTimestamp(), event.getTotalPoints(), event.getErrors(), event.getMissedServes(),
+            event.getAces(), event.getTimeouts(), event.isEndOfSet());
+    }
+
+    // Taps after the checkpoint as the rows they were saved as, plus the team deltas for team_stats
+    private static class TailReplay {
+        private final List<PlayerStat> playerStats = new ArrayList<>();
+        private final List<TeamEvent> teamEvents = new ArrayList<>();
+        private final Map<String, TeamStat> teamDeltas = new HashMap<>();
+        private long currentTapId = -1;
+        private PlayerStat currentPlayerStat;
+        private TeamEvent currentTeamEvent;
+
+        void accept(StatEvent event) {
+            if (event.getKind() == StatEvent.KIND_CANCEL) {
+                // Of a tap below the checkpoint, whose team deltas team_stats may already hold
+                if (event.getPlayerId() == null) {
+                    TeamStat stat = teamDeltas.computeIfAbsent(event.getGameId(), TeamStat::new);
+                    applyTeamStat(stat, event.getStatCode(), -event.getDelta());
+                }
+                return;
+            }
+            boolean newTap = event.getTapId() != currentTapId;
+            currentTapId = event.getTapId();
+            // Logged with the timestamp the row was saved with
+            LocalDateTime timestamp = StatEventLog.toLocalDateTime(event.getTimestampNanos());
+
+            if (event.getKind() == StatEvent.KIND_PLAYER) {
+                if (newTap) {
+                    currentPlayerStat = new PlayerStat(event.getGameId(), event.getPlayerId());
+                    currentPlayerStat.setTimestamp(timestamp);
+                    playerStats.add(currentPlayerStat);
+                }
+                applyPlayerStat(currentPlayerStat, event.getStatCode(), event.getDelta());
+            } else if (event.getKind() == StatEvent.KIND_TEAM) {
+                if (newTap) {
+                    currentTeamEvent = new TeamEvent(event.getGameId(), 0, timestamp);
+                    teamEvents.add(currentTeamEvent);
+                }
+                applyTeamEvent(currentTeamEvent, event.getStatCode(), event.getDelta());
+                TeamStat stat = teamDeltas.computeIfAbsent(event.getGameId(), TeamStat::new);
+                applyTeamStat(stat, event.getStatCode(), event.getDelta());
+                stat.setTimestamp(timestamp);
+            }
+        }
+    }
+
+    private class Replay {
+        private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        private final List<PlayerStat> pendingPlayerStats = new ArrayList<>();
+        private final Map<String, TeamStat> teamStats = new HashMap<>();
+        private final List<TeamEvent> teamEvents = new ArrayList<>();
+        private final Map<String, TeamEvent> lastTeamEvents = new HashMap<>();
+        private TeamEvent currentTeamEvent;
+        private long currentTapId = -1;
+        private PlayerStat currentPlayerStat;
+        private long playerTaps;
+        private long teamTaps;
+
+        void accept(StatEvent event) {
+            boolean newTap = event.getTapId() != currentTapId;
+            currentTapId = event.getTapId();
+            LocalDateTime timestamp = StatEventLog.toLocalDateTime(event.getTimestampNanos());
+
+            if (event.getKind() == StatEvent.KIND_PLAYER) {
+                if (newTap) {
+                    currentPlayerStat = new PlayerStat(event.getGameId(), event.getPlayerId());
+                    currentPlayerStat.setTimestamp(timestamp);
+                    addPlayerStat(currentPlayerStat);
+                    playerTaps++;
+                }
+                applyPlayerStat(currentPlayerStat, event.getStatCode(), event.getDelta());
+            } else if (event.getKind() == StatEvent.KIND_TEAM) {
+                TeamStat stat = teamStats.computeIfAbsent(event.getGameId(), TeamStat::new);
+                if (newTap) {
+                    currentTeamEvent = newTeamEvent(event.getGameId(), timestamp);
+                    teamTaps++;
+                }
+                applyTeamStat(stat, event.getStatCode(), event.getDelta());
+                applyTeamEvent(currentTeamEvent, event.getStatCode(), event.getDelta());
+                stat.setTimestamp(timestamp);
+            }
+        }
+
+        void finish() {
+            savePlayerStats();
+            long end = statEventLog.position();
+            transactionTemplate.executeWithoutResult(status -> {
+                teamStatRepository.saveAll(teamStats.values());
+                teamEventRepository.saveAll(teamEvents);
+                eventLogCheckpoints.save(end);
+            });
+        }
+
+        // Same numbering as GameHistoryService: per-game seq, strictly increasing timestamps
+        private TeamEvent newTeamEvent(String gameId, LocalDateTime timestamp) {
+            TeamEvent previous = lastTeamEvents.get(gameId);
+            long seq = previous != null ? previous.getSeq() + 1 : 1;
+            if (previous != null && !timestamp.isAfter(previous.getTimestamp())) {
+                timestamp = previous.getTimestamp().plusNanos(1000);
+            }
+            TeamEvent teamEvent = new TeamEvent(gameId, seq, timestamp);
+            lastTeamEvents.put(gameId, teamEvent);
+            teamEvents.add(teamEvent);
+            return teamEvent;
+        }
+
+        private void addPlayerStat(PlayerStat stat) {
+            // The previous tap is complete once a new one starts
+            if (pendingPlayerStats.size() >= BATCH_SIZE) {
+                savePlayerStats();
+            }
+            pendingPlayerStats.add(stat);
+        }
+
+        private void savePlayerStats() {
+            if (pendingPlayerStats.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> playerStatRepository.saveAll(pendingPlayerStats));
+            pendingPlayerStats.clear();
+        }
+    }
+
+    private static void applyPlayerStat(PlayerStat stat, byte statCode, int delta) {
+        switch (statCode - 1) {
+            case LiveGameAggregate.PLAYER_KILLS -> stat.setKills(stat.getKills() + delta);
+            case LiveGameAggregate.PLAYER_BLOCKS -> stat.setBlocks(stat.getBlocks() + delta);
+            case LiveGameAggregate.PLAYER_ACES -> stat.setAces(stat.getAces() + delta);
+            case LiveGameAggregate.PLAYER_DIGS -> stat.setDigs(stat.getDigs() + delta);
+            case LiveGameAggregate.PLAYER_ASSISTS -> stat.setAssists(stat.getAssists() + delta);
+            case LiveGameAggregate.PLAYER_ERRORS -> stat.setErrors(stat.getErrors() + delta);
+            default -> { }
+        }
+    }
+
+    private static void applyTeamEvent(TeamEvent event, byte statCode, int delta) {
+        switch (statCode - 1) {
+            case LiveGameAggregate.TEAM_TOTAL_POINTS -> event.setTotalPoints(event.getTotalPoints() + delta);
+            case LiveGameAggregate.TEAM_ERRORS -> event.setErrors(event.getErrors() + delta);
+            case LiveGameAggregate.TEAM_MISSED_SERVES -> event.setMissedServes(event.getMissedServes() + delta);
+            case LiveGameAggregate.TEAM_ACES -> event.setAces(event.getAces() + delta);
+            case LiveGameAggregate.TEAM_TIMEOUTS -> event.setTimeouts(event.getTimeouts() + delta);
+            case StatEvent.TEAM_END_OF_SET -> event.setEndOfSet(true);
+            default -> { }
+        }
+    }
+
+    private static void applyTeamStat(TeamStat stat, byte statCode, int delta) {
+        switch (statCode - 1) {
+            case LiveGameAggregate.TEAM_TOTAL_POINTS -> stat.setTotalPoints(stat.getTotalPoints() + delta);
+            case LiveGameAggregate.TEAM_ERRORS -> stat.setErrors(stat.getErrors() + delta);
+            case LiveGameAggregate.TEAM_MISSED_SERVES -> stat.setMissedServes(stat.getMissedServes() + delta);
+            case LiveGameAggregate.TEAM_ACES -> stat.setAces(stat.getAces() + delta);
+            case LiveGameAggregate.TEAM_TIMEOUTS -> stat.setTimeouts(stat.getTimeouts() + delta);
+            default -> { }
+        }
+    }
+}
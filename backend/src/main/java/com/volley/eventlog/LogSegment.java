@@ -0,0 +1,140 @@
+package com.volley.eventlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+class LogSegment {
+
+    // Fixed-width record layout:
+    //  0 tapId (long)       8 timestamp nanos (long)
+    // 16 kind (byte)       17 stat code (byte)
+    // 18 game id length    19 player id length
+    // 20 delta (int)       24 game id (32 bytes)
+    // 56 player id (32)    88 crc32 of bytes 0..87 (int)
+    static final int RECORD_SIZE = 96;
+    static final int MAX_ID_BYTES = 32;
+
+    private static final int GAME_OFFSET = 24;
+    private static final int PLAYER_OFFSET = 56;
+    private static final int CRC_OFFSET = 88;
+
+    private final Path path;
+    private final long baseIndex;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // Scratch space, only touched while the owning log holds its lock
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final ByteBuffer scratchBuffer = ByteBuffer.wrap(scratch);
+    private final CRC32 crc = new CRC32();
+
+    private LogSegment(Path path, long baseIndex, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.baseIndex = baseIndex;
+        this.capacity = buffer.capacity() / RECORD_SIZE;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static LogSegment openForWrite(Path path, long baseIndex, long sizeBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), sizeBytes - sizeBytes % RECORD_SIZE);
+        return new LogSegment(path, baseIndex, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    static LogSegment openForRead(Path path, long baseIndex) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new LogSegment(path, baseIndex, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getBaseIndex() {
+        return baseIndex;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    // Number of valid records from the start of the segment; a torn or empty slot ends it
+    int scanWritten() {
+        int slot = 0;
+        while (slot < capacity && isValid(slot)) {
+            slot++;
+        }
+        return slot;
+    }
+
+    void write(int slot, long tapId, long timestampNanos, byte kind, byte statCode, int delta,
+               byte[] gameId, byte[] playerId) {
+        scratchBuffer.clear();
+        scratchBuffer.putLong(tapId);
+        scratchBuffer.putLong(timestampNanos);
+        scratchBuffer.put(kind);
+        scratchBuffer.put(statCode);
+        scratchBuffer.put((byte) gameId.length);
+        scratchBuffer.put((byte) playerId.length);
+        scratchBuffer.putInt(delta);
+        scratchBuffer.put(GAME_OFFSET, gameId);
+        scratchBuffer.put(PLAYER_OFFSET, playerId);
+        Arrays.fill(scratch, GAME_OFFSET + gameId.length, PLAYER_OFFSET, (byte) 0);
+        Arrays.fill(scratch, PLAYER_OFFSET + playerId.length, CRC_OFFSET, (byte) 0);
+
+        crc.reset();
+        crc.update(scratch, 0, CRC_OFFSET);
+        scratchBuffer.putInt(CRC_OFFSET, (int) crc.getValue());
+
+        buffer.put(slot * RECORD_SIZE, scratch);
+    }
+
+    StatEvent read(int slot) {
+        if (!isValid(slot)) {
+            return null;
+        }
+        int offset = slot * RECORD_SIZE;
+        byte[] game = new byte[buffer.get(offset + 18)];
+        byte[] player = new byte[buffer.get(offset + 19)];
+        buffer.get(offset + GAME_OFFSET, game);
+        buffer.get(offset + PLAYER_OFFSET, player);
+        return new StatEvent(
+            buffer.getLong(offset),
+            buffer.getLong(offset + 8),
+            buffer.get(offset + 16),
+            buffer.get(offset + 17),
+            buffer.getInt(offset + 20),
+            new String(game, StandardCharsets.UTF_8),
+            player.length > 0 ? new String(player, StandardCharsets.UTF_8) : null);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean isValid(int slot) {
+        int offset = slot * RECORD_SIZE;
+        if (buffer.get(offset + 16) == 0) {
+            return false;
+        }
+        byte[] record = new byte[CRC_OFFSET];
+        buffer.get(offset, record);
+        CRC32 check = new CRC32();
+        check.update(record);
+        return (int) check.getValue() == buffer.getInt(offset + CRC_OFFSET);
+    }
+}
@@ -0,0 +1,62 @@
+package com.volley.eventlog;
+
+import com.volley.service.LiveGameAggregate;
+
+public class StatEvent {
+    public static final byte KIND_PLAYER = 1;
+    public static final byte KIND_TEAM = 2;
+    // Repeats the records of a tap whose database write failed, under that tap's id
+    public static final byte KIND_CANCEL = 3;
+
+    // Stat code used for a tap that carried no counters
+    public static final byte STAT_NONE = 0;
+
+    // Team tap slot after the counters, set on the tap that closed a set
+    public static final int TEAM_END_OF_SET = LiveGameAggregate.TEAM_STAT_COUNT;
+
+    private final long tapId;
+    private final long timestampNanos;
+    private final byte kind;
+    private final byte statCode;
+    private final int delta;
+    private final String gameId;
+    private final String playerId;
+
+    public StatEvent(long tapId, long timestampNanos, byte kind, byte statCode, int delta, String gameId, String playerId) {
+        this.tapId = tapId;
+        this.timestampNanos = timestampNanos;
+        this.kind = kind;
+        this.statCode = statCode;
+        this.delta = delta;
+        this.gameId = gameId;
+        this.playerId = playerId;
+    }
+
+    public long getTapId() {
+        return tapId;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public byte getKind() {
+        return kind;
+    }
+
+    public byte getStatCode() {
+        return statCode;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+}
@@ -0,0 +1,481 @@
+package com.volley.eventlog;
+
+import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.TeamStatRequest;
+import com.volley.service.LiveGameAggregate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+@Component
+public class StatEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(StatEventLog.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte[] NO_PLAYER = new byte[0];
+
+    @Value("${volley.eventlog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${volley.eventlog.dir:data/eventlog}")
+    private String dir;
+
+    @Value("${volley.eventlog.segment-size-bytes:67108864}")
+    private long segmentSizeBytes;
+
+    // When true, appenders wait for the group commit that covers their records
+    @Value("${volley.eventlog.sync:true}")
+    private boolean sync;
+
+    // Delete segments wholly below the checkpoint. Only safe when the database outlives the process:
+    // an in-memory database comes back empty and needs the whole log
+    @Value("${volley.eventlog.truncate:false}")
+    private boolean truncate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingWrites = lock.newCondition();
+    private final Condition durableAdvanced = lock.newCondition();
+
+    // Guarded by lock
+    private final List<LogSegment> sealed = new ArrayList<>();
+    private LogSegment current;
+    private long written;
+    private long durable;
+    // Set by the first failed fsync; nothing written after it is acknowledged
+    private Exception syncFailure;
+    private volatile boolean running;
+
+    private Thread syncThread;
+
+    // Per-append staging, guarded by lock
+    private final byte[] codes = new byte[LiveGameAggregate.PLAYER_STAT_COUNT];
+    private final int[] deltas = new int[LiveGameAggregate.PLAYER_STAT_COUNT];
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        segmentSizeBytes = Math.max(segmentSizeBytes, LogSegment.RECORD_SIZE * 1024L);
+
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            current = LogSegment.openForWrite(segmentPath(0), 0, segmentSizeBytes);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            current = LogSegment.openForWrite(last, baseIndexOf(last), segmentSizeBytes);
+        }
+        written = current.getBaseIndex() + current.scanWritten();
+        durable = written;
+        log.info("Opened stat event log at {} ({} segments, position {})", directory.toAbsolutePath(),
+            Math.max(1, segments.size()), written);
+
+        running = true;
+        syncThread = new Thread(this::syncLoop, "stat-event-log-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // End of the log: every tap appended so far lies below it
+    public long position() {
+        if (!enabled) {
+            return -1;
+        }
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Checked before a write starts, so an id the log cannot store fails the request up front
+    public void validateIds(String gameId, String playerId) {
+        if (!enabled) {
+            return;
+        }
+        encodeId(gameId);
+        if (playerId != null) {
+            encodeId(playerId);
+        }
+    }
+
+    public long appendPlayerStat(String gameId, String playerId, PlayerStatRequest request, LocalDateTime timestamp) {
+        if (!enabled) {
+            return -1;
+        }
+        byte[] game = encodeId(gameId);
+        byte[] player = encodeId(playerId);
+        lock.lock();
+        try {
+            checkWritable();
+            return appendStaged(StatEvent.KIND_PLAYER, -1, stagePlayer(request), game, player, timestamp);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendTeamStat(String gameId, TeamStatRequest request, LocalDateTime timestamp) {
+        if (!enabled) {
+            return -1;
+        }
+        byte[] game = encodeId(gameId);
+        lock.lock();
+        try {
+            checkWritable();
+            return appendStaged(StatEvent.KIND_TEAM, -1, stageTeam(request), game, NO_PLAYER, timestamp);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // For a tap appended at position whose database write then failed: replay leaves it out.
+    // Best effort, since a log that can no longer write cannot record the cancellation either
+    public void cancelPlayerStat(long position, String gameId, String playerId, PlayerStatRequest request,
+                                 LocalDateTime timestamp) {
+        if (!enabled || position < 0) {
+            return;
+        }
+        byte[] game = encodeId(gameId);
+        byte[] player = encodeId(playerId);
+        cancel(position, gameId, () -> stagePlayer(request), game, player, timestamp);
+    }
+
+    public void cancelTeamStat(long position, String gameId, TeamStatRequest request, LocalDateTime timestamp) {
+        if (!enabled || position < 0) {
+            return;
+        }
+        cancel(position, gameId, () -> stageTeam(request), encodeId(gameId), NO_PLAYER, timestamp);
+    }
+
+    // Throws if the records up to position can no longer become durable
+    public void awaitDurable(long position) {
+        if (!enabled || !sync || position < 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < position) {
+                if (syncFailure != null) {
+                    throw new UncheckedIOException("Stat event log sync failed", asIOException(syncFailure));
+                }
+                if (!running) {
+                    throw new IllegalStateException("Stat event log closed before position " + position + " was synced");
+                }
+                durableAdvanced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Every record at or after position, in order, leaving out cancelled taps. The cancellation of a
+    // tap before position is passed on, for a consumer that already counted the tap to take it back
+    public void replay(long position, Consumer<StatEvent> consumer) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> cancelled = new HashSet<>();
+        scan(position, event -> {
+            if (event.getKind() == StatEvent.KIND_CANCEL && event.getTapId() >= position) {
+                cancelled.add(event.getTapId());
+            }
+        });
+        scan(position, event -> {
+            if (!cancelled.contains(event.getTapId())) {
+                consumer.accept(event);
+            }
+        });
+    }
+
+    private void scan(long position, Consumer<StatEvent> consumer) throws IOException {
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && baseIndexOf(segments.get(i + 1)) <= position) {
+                continue;
+            }
+            LogSegment segment = LogSegment.openForRead(segments.get(i), baseIndexOf(segments.get(i)));
+            try {
+                int first = (int) Math.max(0, position - segment.getBaseIndex());
+                for (int slot = first; slot < segment.getCapacity(); slot++) {
+                    StatEvent event = segment.read(slot);
+                    if (event == null) {
+                        break;
+                    }
+                    consumer.accept(event);
+                }
+            } finally {
+                segment.close();
+            }
+        }
+    }
+
+    // Called once the database holds everything below position
+    public void checkpointed(long position) {
+        if (!enabled || !truncate) {
+            return;
+        }
+        long bound;
+        lock.lock();
+        try {
+            // Segments below durable have been forced and closed by the sync thread
+            bound = Math.min(position, durable);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            List<Path> segments = listSegments();
+            for (int i = 0; i + 1 < segments.size() && baseIndexOf(segments.get(i + 1)) <= bound; i++) {
+                Files.deleteIfExists(segments.get(i));
+                log.debug("Deleted checkpointed stat event log segment {}", segments.get(i).getFileName());
+            }
+        } catch (IOException e) {
+            // Retried at the next checkpoint
+            log.warn("Failed to delete checkpointed stat event log segments", e);
+        }
+    }
+
+    public static LocalDateTime toLocalDateTime(long timestampNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timestampNanos, 1_000_000_000L),
+            (int) Math.floorMod(timestampNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            pendingWrites.signalAll();
+            durableAdvanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        syncThread.join();
+
+        for (LogSegment segment : sealed) {
+            segment.force();
+            segment.close();
+        }
+        current.force();
+        current.close();
+    }
+
+    private void cancel(long position, String gameId, IntSupplier stage, byte[] game, byte[] player,
+                        LocalDateTime timestamp) {
+        long end;
+        lock.lock();
+        try {
+            checkWritable();
+            int count = stage.getAsInt();
+            // A tap occupies count records, or one marker, ending at position
+            end = appendStaged(StatEvent.KIND_CANCEL, position - Math.max(count, 1), count, game, player, timestamp);
+        } catch (RuntimeException e) {
+            log.error("Failed to cancel stat tap at {} for game {}; replay will restore it", position, gameId, e);
+            return;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            awaitDurable(end);
+        } catch (RuntimeException e) {
+            log.error("Cancellation of stat tap at {} for game {} may not be durable", position, gameId, e);
+        }
+    }
+
+    private int stagePlayer(PlayerStatRequest request) {
+        int count = 0;
+        count = stage(count, LiveGameAggregate.PLAYER_KILLS, request.getKills());
+        count = stage(count, LiveGameAggregate.PLAYER_BLOCKS, request.getBlocks());
+        count = stage(count, LiveGameAggregate.PLAYER_ACES, request.getAces());
+        count = stage(count, LiveGameAggregate.PLAYER_DIGS, request.getDigs());
+        count = stage(count, LiveGameAggregate.PLAYER_ASSISTS, request.getAssists());
+        return stage(count, LiveGameAggregate.PLAYER_ERRORS, request.getErrors());
+    }
+
+    private int stageTeam(TeamStatRequest request) {
+        int count = 0;
+        count = stage(count, LiveGameAggregate.TEAM_TOTAL_POINTS, request.getTotalPoints());
+        count = stage(count, LiveGameAggregate.TEAM_ERRORS, request.getErrors());
+        count = stage(count, LiveGameAggregate.TEAM_MISSED_SERVES, request.getMissedServes());
+        count = stage(count, LiveGameAggregate.TEAM_ACES, request.getAces());
+        count = stage(count, LiveGameAggregate.TEAM_TIMEOUTS, request.getTimeouts());
+        return stage(count, StatEvent.TEAM_END_OF_SET, Boolean.TRUE.equals(request.getEndOfSet()) ? 1 : null);
+    }
+
+    private int stage(int count, int stat, Integer delta) {
+        if (delta != null && delta != 0) {
+            codes[count] = (byte) (stat + 1);
+            deltas[count] = delta;
+            return count + 1;
+        }
+        return count;
+    }
+
+    // Records carry their tap's id: their own position, or for a cancellation the cancelled tap's
+    private long appendStaged(byte kind, long cancelledTapId, int count, byte[] game, byte[] player,
+                              LocalDateTime timestamp) {
+        if (count == 0) {
+            // Keep a marker so replay still sees the tap
+            codes[0] = StatEvent.STAT_NONE;
+            deltas[0] = 0;
+            count = 1;
+        }
+        int slot = (int) (written - current.getBaseIndex());
+        if (slot + count > current.getCapacity()) {
+            // A tap never straddles two segments
+            rollSegment();
+            slot = 0;
+        }
+
+        long tapId = cancelledTapId >= 0 ? cancelledTapId : written;
+        long nanos = timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+        for (int i = 0; i < count; i++) {
+            current.write(slot + i, tapId, nanos, kind, codes[i], deltas[i], game, player);
+        }
+        written = current.getBaseIndex() + slot + count;
+        pendingWrites.signal();
+        return written;
+    }
+
+    private void rollSegment() {
+        long baseIndex = current.getBaseIndex() + current.getCapacity();
+        try {
+            LogSegment next = LogSegment.openForWrite(segmentPath(baseIndex), baseIndex, segmentSizeBytes);
+            sealed.add(current);
+            current = next;
+            written = baseIndex;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll stat event log segment", e);
+        }
+    }
+
+    private void checkWritable() {
+        if (syncFailure != null) {
+            throw new UncheckedIOException("Stat event log sync failed", asIOException(syncFailure));
+        }
+        if (!running) {
+            throw new IllegalStateException("Stat event log is closed");
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            long target;
+            List<LogSegment> toForce;
+            LogSegment active;
+            lock.lock();
+            try {
+                while (running && written == durable) {
+                    pendingWrites.awaitUninterruptibly();
+                }
+                // On close, one last group covers whatever was appended before it
+                if (written == durable) {
+                    return;
+                }
+                target = written;
+                toForce = new ArrayList<>(sealed);
+                sealed.clear();
+                active = current;
+            } finally {
+                lock.unlock();
+            }
+
+            // fsync outside the lock so appenders keep filling the next group
+            try {
+                for (LogSegment segment : toForce) {
+                    segment.force();
+                    segment.close();
+                }
+                active.force();
+            } catch (IOException | RuntimeException e) {
+                log.error("Stat event log sync failed; rejecting writes until restart", e);
+                lock.lock();
+                try {
+                    // The kernel may have dropped the dirty pages, so a later fsync that succeeds proves nothing
+                    syncFailure = e;
+                    durableAdvanced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durable = target;
+                durableAdvanced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static IOException asIOException(Exception e) {
+        if (e instanceof IOException) {
+            return (IOException) e;
+        }
+        // MappedByteBuffer.force wraps its IOException
+        return e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : new IOException(e);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(dir))) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+    }
+
+    private Path segmentPath(long baseIndex) {
+        return Paths.get(dir, String.format("%s%020d%s", SEGMENT_PREFIX, baseIndex, SEGMENT_SUFFIX));
+    }
+
+    private static long baseIndexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] encodeId(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LogSegment.MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Id too long for the stat event log: " + id);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,41 @@
+package com.volley.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+// Parks waiting stages on a condition; no CPU is burned while idle, at the cost of a lock per advance
+class BlockingWaitStrategy implements WaitStrategy {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+
+    @Override
+    public long waitFor(long sequence, AtomicLong upstream, BooleanSupplier running) {
+        long available = upstream.get();
+        if (available >= sequence) {
+            return available;
+        }
+        lock.lock();
+        try {
+            // Checked under the lock, so an advance between the check and the await is not missed
+            while ((available = upstream.get()) < sequence && running.getAsBoolean()) {
+                advanced.awaitUninterruptibly();
+            }
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void signalAll() {
+        lock.lock();
+        try {
+            advanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
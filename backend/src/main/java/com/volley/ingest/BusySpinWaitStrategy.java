@@ -0,0 +1,21 @@
+package com.volley.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Lowest hand-off latency; each stage thread keeps a core busy, so only for dedicated hosts
+class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public long waitFor(long sequence, AtomicLong upstream, BooleanSupplier running) {
+        long available;
+        while ((available = upstream.get()) < sequence && running.getAsBoolean()) {
+            Thread.onSpinWait();
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAll() {
+    }
+}
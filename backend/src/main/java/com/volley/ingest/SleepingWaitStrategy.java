@@ -0,0 +1,35 @@
+package com.volley.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+// Spins briefly, then yields, then sleeps in short naps; no lock on the publishing side
+class SleepingWaitStrategy implements WaitStrategy {
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long SLEEP_NANOS = 100_000;
+
+    @Override
+    public long waitFor(long sequence, AtomicLong upstream, BooleanSupplier running) {
+        int counter = SPINS + YIELDS;
+        long available;
+        while ((available = upstream.get()) < sequence && running.getAsBoolean()) {
+            if (counter > YIELDS) {
+                counter--;
+                Thread.onSpinWait();
+            } else if (counter > 0) {
+                counter--;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAll() {
+    }
+}
@@ -0,0 +1,33 @@
+package com.volley.ingest;
+
+import com.volley.dto.PlayerStatRequest;
+import com.volley.model.PlayerStat;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+// One preallocated ring slot, refilled for every player stat tap that passes through it
+class TapEvent {
+    String gameId;
+    String playerId;
+    PlayerStatRequest request;
+    PlayerStat stat;
+    LocalDateTime timestamp;
+    // End of the tap in the event log, set by the persist stage
+    long position = -1;
+    // Set by the first stage that fails the tap; later stages skip it
+    RuntimeException failure;
+    // Completed by the persist stage
+    CompletableFuture<PlayerStat> ack;
+
+    void clear() {
+        gameId = null;
+        playerId = null;
+        request = null;
+        stat = null;
+        timestamp = null;
+        position = -1;
+        failure = null;
+        ack = null;
+    }
+}
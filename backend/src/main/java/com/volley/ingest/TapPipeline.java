@@ -0,0 +1,352 @@
+package com.volley.ingest;
+
+import com.volley.broadcast.GameBroadcastScheduler;
+import com.volley.dto.PlayerStatRequest;
+import com.volley.eventlog.StatEventLog;
+import com.volley.model.PlayerStat;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.service.GameHistoryService;
+import com.volley.service.LiveGameAggregate;
+import com.volley.service.PlayerTimeline;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Player stat taps pass through a preallocated ring in four stages, each on its own thread:
+// validate, persist (appending to the event log ahead of the insert), aggregate, broadcast.
+//
+// Every stage follows the one before it by sequence number and handles whatever has accumulated
+// in one go, so under load the persist stage turns many taps into one log sync and one JDBC
+// batch. The request returns as soon as its tap is persisted; live totals, the timeline and the
+// broadcast catch up moments later. The ring only wraps once the broadcast stage is done with a slot.
+@Component
+public class TapPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(TapPipeline.class);
+
+    @Autowired
+    private PlayerStatRepository playerStatRepository;
+
+    @Autowired
+    private StatEventLog statEventLog;
+
+    @Autowired
+    private LiveGameAggregate liveGameAggregate;
+
+    @Autowired
+    private PlayerTimeline playerTimeline;
+
+    @Autowired
+    private GameHistoryService gameHistoryService;
+
+    @Autowired
+    private GameBroadcastScheduler gameBroadcastScheduler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${volley.ingest.enabled:true}")
+    private boolean enabled;
+
+    // Rounded up to a power of two
+    @Value("${volley.ingest.ring-size:1024}")
+    private int ringSize;
+
+    @Value("${volley.ingest.max-batch:256}")
+    private int maxBatch;
+
+    @Value("${volley.ingest.wait-strategy:blocking}")
+    private String waitStrategyName;
+
+    private TapEvent[] ring;
+    private int mask;
+    private WaitStrategy waitStrategy;
+    private TransactionTemplate transactionTemplate;
+    private DistributionSummary batchSizes;
+
+    // Last sequence published by producers, and last sequence finished by each stage
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong validated = new AtomicLong(-1);
+    private final AtomicLong persisted = new AtomicLong(-1);
+    private final AtomicLong aggregated = new AtomicLong(-1);
+    private final AtomicLong broadcast = new AtomicLong(-1);
+
+    // Producers claim and publish one at a time, so the cursor always advances in order
+    private final ReentrantLock producerLock = new ReentrantLock();
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private final List<Thread> stages = new ArrayList<>();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        int size = Integer.highestOneBit(Math.max(ringSize, 2) - 1) << 1;
+        ring = new TapEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new TapEvent();
+        }
+        mask = size - 1;
+        waitStrategy = WaitStrategy.of(waitStrategyName);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        batchSizes = meterRegistry.summary("volley.ingest.batch.size");
+        Gauge.builder("volley.ingest.backlog", () -> cursor.get() - broadcast.get()).register(meterRegistry);
+
+        running = true;
+        accepting = true;
+        startEventStage("ingest-validate", cursor, validated, this::validate);
+        startStage("ingest-persist", validated, persisted, this::persist);
+        startEventStage("ingest-aggregate", persisted, aggregated, this::aggregate);
+        startEventStage("ingest-broadcast", aggregated, broadcast, this::broadcast);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Blocks until the tap is persisted; throws what the sync path would have thrown
+    public PlayerStat submit(String gameId, String playerId, PlayerStatRequest request, PlayerStat stat,
+                             LocalDateTime timestamp) {
+        CompletableFuture<PlayerStat> ack = new CompletableFuture<>();
+        producerLock.lock();
+        try {
+            if (!accepting) {
+                throw new IllegalStateException("Tap pipeline is shut down");
+            }
+            long sequence = cursor.get() + 1;
+            // A full ring holds producers back until the broadcast stage frees the slot
+            if (waitStrategy.waitFor(sequence - ring.length, broadcast, () -> running) < sequence - ring.length) {
+                throw new IllegalStateException("Tap pipeline is shut down");
+            }
+            TapEvent event = ring[(int) sequence & mask];
+            event.gameId = gameId;
+            event.playerId = playerId;
+            event.request = request;
+            event.stat = stat;
+            event.timestamp = timestamp;
+            event.ack = ack;
+            cursor.set(sequence);
+        } finally {
+            producerLock.unlock();
+        }
+        waitStrategy.signalAll();
+
+        try {
+            return ack.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        producerLock.lock();
+        try {
+            accepting = false;
+        } finally {
+            producerLock.unlock();
+        }
+        // Let in-flight taps finish before the event log and the database go away
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcast.get() < cursor.get() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        running = false;
+        waitStrategy.signalAll();
+        for (Thread stage : stages) {
+            stage.join(1000);
+        }
+        // Taps the persist stage never got to would otherwise leave their requests blocked for good.
+        // One it is still writing may yet commit; whichever completes its ack first wins
+        long abandoned = 0;
+        for (long sequence = persisted.get() + 1; sequence <= cursor.get(); sequence++) {
+            CompletableFuture<PlayerStat> ack = ring[(int) sequence & mask].ack;
+            if (ack != null
+                    && ack.completeExceptionally(new IllegalStateException("Tap pipeline shut down before the tap was persisted"))) {
+                abandoned++;
+            }
+        }
+        if (abandoned > 0) {
+            log.warn("Tap pipeline shut down with {} taps not persisted", abandoned);
+        }
+    }
+
+    private void validate(TapEvent event) {
+        if (event.gameId == null || event.gameId.isBlank() || event.playerId == null || event.playerId.isBlank()) {
+            event.failure = new IllegalArgumentException("gameId and playerId are required");
+            return;
+        }
+        try {
+            // The log rejects ids it cannot store; checked here so the tap fails alone rather than in the batch
+            statEventLog.validateIds(event.gameId, event.playerId);
+            liveGameAggregate.preload(event.gameId);
+            gameBroadcastScheduler.preload(event.gameId);
+        } catch (RuntimeException e) {
+            event.failure = e;
+        }
+    }
+
+    private void persist(long first, long last) {
+        // Write-ahead: the whole batch is logged and synced, in one group commit, before any row commits
+        List<TapEvent> batch = new ArrayList<>();
+        long position = -1;
+        for (long sequence = first; sequence <= last; sequence++) {
+            TapEvent event = ring[(int) sequence & mask];
+            if (event.failure != null) {
+                continue;
+            }
+            try {
+                event.position = statEventLog.appendPlayerStat(event.gameId, event.playerId, event.request, event.timestamp);
+                position = event.position;
+                batch.add(event);
+            } catch (RuntimeException e) {
+                event.failure = e;
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                statEventLog.awaitDurable(position);
+                save(batch);
+            } catch (RuntimeException e) {
+                log.warn("Failed to log {} player stat taps", batch.size(), e);
+                for (TapEvent event : batch) {
+                    event.failure = e;
+                }
+            }
+            int committed = 0;
+            for (TapEvent event : batch) {
+                if (event.failure == null) {
+                    committed++;
+                }
+            }
+            if (committed > 0) {
+                batchSizes.record(committed);
+            }
+        }
+
+        for (long sequence = first; sequence <= last; sequence++) {
+            TapEvent event = ring[(int) sequence & mask];
+            if (event.failure == null) {
+                event.ack.complete(event.stat);
+            } else {
+                event.ack.completeExceptionally(event.failure);
+            }
+        }
+    }
+
+    // One transaction for the whole batch. A tap whose row cannot be written is cancelled in the log,
+    // and the rest go on to the later stages
+    private void save(List<TapEvent> batch) {
+        List<PlayerStat> stats = new ArrayList<>();
+        for (TapEvent event : batch) {
+            stats.add(event.stat);
+        }
+        try {
+            List<PlayerStat> saved = transactionTemplate.execute(status -> playerStatRepository.saveAll(stats));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).stat = saved.get(i);
+            }
+        } catch (RuntimeException e) {
+            // The whole transaction rolled back; row by row, only the tap that broke it fails
+            log.warn("Failed to persist {} player stat taps as a batch, retrying one at a time", batch.size(), e);
+            for (TapEvent event : batch) {
+                try {
+                    event.stat = transactionTemplate.execute(status -> playerStatRepository.save(event.stat));
+                } catch (RuntimeException rowFailure) {
+                    log.warn("Failed to persist player stat tap for game {}", event.gameId, rowFailure);
+                    event.failure = rowFailure;
+                    statEventLog.cancelPlayerStat(event.position, event.gameId, event.playerId, event.request,
+                        event.timestamp);
+                }
+            }
+        }
+    }
+
+    private void aggregate(TapEvent event) {
+        if (event.failure != null) {
+            return;
+        }
+        liveGameAggregate.addPlayerStat(event.gameId, event.stat);
+        playerTimeline.record(event.stat, event.timestamp);
+        gameHistoryService.playerStatRecorded(event.gameId, event.timestamp);
+    }
+
+    private void broadcast(TapEvent event) {
+        if (event.failure == null) {
+            // Coalesced per game by the scheduler
+            gameBroadcastScheduler.playerStatRecorded(event.gameId, event.stat);
+        }
+        event.clear();
+    }
+
+    // A failing event is logged and skipped, so one bad tap cannot stop the stage
+    private void startEventStage(String name, AtomicLong upstream, AtomicLong own, EventHandler handler) {
+        startStage(name, upstream, own, (first, last) -> {
+            for (long sequence = first; sequence <= last; sequence++) {
+                TapEvent event = ring[(int) sequence & mask];
+                try {
+                    handler.onEvent(event);
+                } catch (RuntimeException e) {
+                    log.warn("Tap pipeline stage {} failed for game {}", name, event.gameId, e);
+                }
+            }
+        });
+    }
+
+    private void startStage(String name, AtomicLong upstream, AtomicLong own, BatchHandler handler) {
+        Thread thread = new Thread(() -> {
+            while (true) {
+                long next = own.get() + 1;
+                long available = waitStrategy.waitFor(next, upstream, () -> running);
+                if (available < next) {
+                    return;
+                }
+                long last = Math.min(available, next + maxBatch - 1);
+                handler.onBatch(next, last);
+                own.set(last);
+                waitStrategy.signalAll();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        stages.add(thread);
+    }
+
+    private interface EventHandler {
+        void onEvent(TapEvent event);
+    }
+
+    private interface BatchHandler {
+        void onBatch(long first, long last);
+    }
+}
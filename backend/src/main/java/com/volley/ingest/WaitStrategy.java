@@ -0,0 +1,29 @@
+package com.volley.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// How a pipeline stage waits for the stage in front of it
+public interface WaitStrategy {
+
+    // Waits until upstream reaches sequence and returns its value; less than sequence only once running is false
+    long waitFor(long sequence, AtomicLong upstream, BooleanSupplier running);
+
+    // Called after any sequence in the pipeline advances
+    void signalAll();
+
+    static WaitStrategy of(String name) {
+        switch (name) {
+            case "blocking":
+                return new BlockingWaitStrategy();
+            case "sleeping":
+                return new SleepingWaitStrategy();
+            case "yielding":
+                return new YieldingWaitStrategy();
+            case "busy-spin":
+                return new BusySpinWaitStrategy();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+}
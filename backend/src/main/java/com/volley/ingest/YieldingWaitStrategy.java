@@ -0,0 +1,29 @@
+package com.volley.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Spins briefly, then yields the core on every check; needs a spare core per stage to pay off
+class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPINS = 100;
+
+    @Override
+    public long waitFor(long sequence, AtomicLong upstream, BooleanSupplier running) {
+        int counter = SPINS;
+        long available;
+        while ((available = upstream.get()) < sequence && running.getAsBoolean()) {
+            if (counter > 0) {
+                counter--;
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAll() {
+    }
+}
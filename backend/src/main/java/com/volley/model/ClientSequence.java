@@ -0,0 +1,76 @@
+package com.volley.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Highest client sequence number applied for one device in one game
+@Entity
+@Table(name = "client_sequences", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_client_sequences_device_game", columnNames = {"device_id", "game_id"})
+})
+public class ClientSequence {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false, length = 64)
+    private String deviceId;
+
+    @Column(name = "game_id", nullable = false)
+    private String gameId;
+
+    @Column(nullable = false)
+    private long highWater;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ClientSequence() {}
+
+    public ClientSequence(String deviceId, String gameId) {
+        this.deviceId = deviceId;
+        this.gameId = gameId;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getHighWater() {
+        return highWater;
+    }
+
+    public void setHighWater(long highWater) {
+        this.highWater = highWater;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,51 @@
+package com.volley.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Position in one node's stat event log that team_stats is complete up to
+@Entity
+@Table(name = "event_log_checkpoints")
+public class EventLogCheckpoint {
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private long position;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public EventLogCheckpoint() {}
+
+    public EventLogCheckpoint(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    // Getters and setters
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
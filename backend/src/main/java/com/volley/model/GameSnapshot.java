@@ -0,0 +1,119 @@
+package com.volley.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Compacted game state covering every event up to and including timestamp
+@Entity
+@Table(name = "game_snapshots", indexes = {
+    @Index(name = "idx_game_snapshots_game_ts", columnList = "game_id, timestamp")
+})
+public class GameSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "game_id", nullable = false)
+    private String gameId;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    // Last team event included
+    @Column(nullable = false)
+    private long teamSeq;
+
+    private int setsCompleted = 0;
+
+    private int totalPoints = 0;
+    private int errors = 0;
+    private int missedServes = 0;
+    private int aces = 0;
+    private int timeouts = 0;
+
+    // JSON object of player id -> counters in LiveGameAggregate slot order
+    @Column(nullable = false, length = 65535)
+    private String playerTotals;
+
+    // Constructors
+    public GameSnapshot() {}
+
+    public GameSnapshot(String gameId, LocalDateTime timestamp, long teamSeq) {
+        this.gameId = gameId;
+        this.timestamp = timestamp;
+        this.teamSeq = teamSeq;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public long getTeamSeq() {
+        return teamSeq;
+    }
+
+    public int getSetsCompleted() {
+        return setsCompleted;
+    }
+
+    public void setSetsCompleted(int setsCompleted) {
+        this.setsCompleted = setsCompleted;
+    }
+
+    public int getTotalPoints() {
+        return totalPoints;
+    }
+
+    public void setTotalPoints(int totalPoints) {
+        this.totalPoints = totalPoints;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public void setErrors(int errors) {
+        this.errors = errors;
+    }
+
+    public int getMissedServes() {
+        return missedServes;
+    }
+
+    public void setMissedServes(int missedServes) {
+        this.missedServes = missedServes;
+    }
+
+    public int getAces() {
+        return aces;
+    }
+
+    public void setAces(int aces) {
+        this.aces = aces;
+    }
+
+    public int getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(int timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public String getPlayerTotals() {
+        return playerTotals;
+    }
+
+    public void setPlayerTotals(String playerTotals) {
+        this.playerTotals = playerTotals;
+    }
+}
@@ -2,6 +2,8 @@ package com.volley.model;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "players")
@@ -22,6 +24,10 @@ public class Player {
     @JsonIgnore
     private User user;
 
+    @ManyToMany(mappedBy = "players")
+    @JsonIgnore
+    private Set<Game> games = new HashSet<>();
+
     // Constructors
     public Player() {}
 
@@ -73,6 +79,14 @@ public class Player {
         this.user = user;
     }
 
+    public Set<Game> getGames() {
+        return games;
+    }
+
+    public void setGames(Set<Game> games) {
+        this.games = games;
+    }
+
     public String getUserId() {
         return user != null ? user.getId().toString() : null;
     }
@@ -4,16 +4,22 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "player_stats")
+@Table(name = "player_stats", indexes = {
+    @Index(name = "idx_player_stats_game_player_ts",
+        columnList = "game_id, player_id, timestamp, id, kills, blocks, aces, digs, assists, errors"),
+    @Index(name = "idx_player_stats_game_ts", columnList = "game_id, timestamp"),
+    @Index(name = "idx_player_stats_ts", columnList = "timestamp")
+})
 public class PlayerStat {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_stats_seq")
+    @SequenceGenerator(name = "player_stats_seq", sequenceName = "player_stats_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false)
+    @Column(name = "game_id", nullable = false)
     private String gameId;
 
-    @Column(nullable = false)
+    @Column(name = "player_id", nullable = false)
     private String playerId;
 
     private int kills = 0;
@@ -0,0 +1,110 @@
+package com.volley.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One immutable team tap; team_stats only keeps the running totals
+@Entity
+@Table(name = "team_events", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_team_events_game_seq", columnNames = {"game_id", "seq"})
+}, indexes = {
+    @Index(name = "idx_team_events_game_ts", columnList = "game_id, timestamp")
+})
+public class TeamEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_events_seq")
+    @SequenceGenerator(name = "team_events_seq", sequenceName = "team_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "game_id", nullable = false)
+    private String gameId;
+
+    // Per-game position, starting at 1
+    @Column(nullable = false)
+    private long seq;
+
+    private int totalPoints = 0;
+    private int errors = 0;
+    private int missedServes = 0;
+    private int aces = 0;
+    private int timeouts = 0;
+
+    private boolean endOfSet = false;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    // Constructors
+    public TeamEvent() {}
+
+    public TeamEvent(String gameId, long seq, LocalDateTime timestamp) {
+        this.gameId = gameId;
+        this.seq = seq;
+        this.timestamp = timestamp;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getTotalPoints() {
+        return totalPoints;
+    }
+
+    public void setTotalPoints(int totalPoints) {
+        this.totalPoints = totalPoints;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public void setErrors(int errors) {
+        this.errors = errors;
+    }
+
+    public int getMissedServes() {
+        return missedServes;
+    }
+
+    public void setMissedServes(int missedServes) {
+        this.missedServes = missedServes;
+    }
+
+    public int getAces() {
+        return aces;
+    }
+
+    public void setAces(int aces) {
+        this.aces = aces;
+    }
+
+    public int getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(int timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public boolean isEndOfSet() {
+        return endOfSet;
+    }
+
+    public void setEndOfSet(boolean endOfSet) {
+        this.endOfSet = endOfSet;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+}
@@ -4,13 +4,15 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "team_stats")
+@Table(name = "team_stats", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_team_stats_game_id", columnNames = "game_id")
+})
 public class TeamStat {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
+    @Column(name = "game_id", nullable = false)
     private String gameId;
 
     private int totalPoints = 0;
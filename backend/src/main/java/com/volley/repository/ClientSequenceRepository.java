@@ -0,0 +1,12 @@
+package com.volley.repository;
+
+import com.volley.model.ClientSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ClientSequenceRepository extends JpaRepository<ClientSequence, Long> {
+    Optional<ClientSequence> findByDeviceIdAndGameId(String deviceId, String gameId);
+}
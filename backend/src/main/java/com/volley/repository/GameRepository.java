@@ -0,0 +1,9 @@
+package com.volley.repository;
+
+import com.volley.model.Game;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GameRepository extends JpaRepository<Game, String> {
+}
@@ -0,0 +1,14 @@
+package com.volley.repository;
+
+import com.volley.model.GameSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface GameSnapshotRepository extends JpaRepository<GameSnapshot, Long> {
+    // Nearest snapshot at or before a point in time
+    Optional<GameSnapshot> findFirstByGameIdAndTimestampLessThanEqualOrderByTimestampDesc(String gameId, LocalDateTime at);
+}
@@ -9,4 +9,5 @@ import java.util.List;
 @Repository
 public interface PlayerRepository extends JpaRepository<Player, Long> {
     List<Player> findByUser_Id(Long userId);
+    List<Player> findByGames_IdOrderByJerseyNumberAsc(String gameId);
 }
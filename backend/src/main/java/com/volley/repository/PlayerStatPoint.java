@@ -0,0 +1,28 @@
+package com.volley.repository;
+
+import java.time.LocalDateTime;
+
+// One tap reduced to the columns the player report needs
+public class PlayerStatPoint {
+    private final Long id;
+    private final LocalDateTime timestamp;
+    private final int performance;
+
+    public PlayerStatPoint(Long id, LocalDateTime timestamp, Integer performance) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.performance = performance != null ? performance : 0;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public int getPerformance() {
+        return performance;
+    }
+}
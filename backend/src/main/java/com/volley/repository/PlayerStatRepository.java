@@ -1,13 +1,48 @@
 package com.volley.repository;
 
 import com.volley.model.PlayerStat;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PlayerStatRepository extends JpaRepository<PlayerStat, Long> {
     List<PlayerStat> findByGameIdAndPlayerIdOrderByTimestampAsc(String gameId, String playerId);
     List<PlayerStat> findByGameIdOrderByTimestampAsc(String gameId);
+    List<PlayerStat> findByGameIdAndTimestampGreaterThanEqual(String gameId, LocalDateTime since);
+
+    // Cursor-backed; must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<PlayerStat> streamByGameIdOrderByTimestampAsc(String gameId);
+
+    @Query("SELECT s.playerId AS playerId, SUM(s.kills) AS kills, SUM(s.blocks) AS blocks, SUM(s.aces) AS aces, " +
+           "SUM(s.digs) AS digs, SUM(s.assists) AS assists, SUM(s.errors) AS errors " +
+           "FROM PlayerStat s WHERE s.gameId = :gameId GROUP BY s.playerId")
+    List<PlayerStatTotals> sumByPlayerForGame(@Param("gameId") String gameId);
+
+    // Per-player totals over (after, until], served from idx_player_stats_game_ts
+    @Query("SELECT s.playerId AS playerId, SUM(s.kills) AS kills, SUM(s.blocks) AS blocks, SUM(s.aces) AS aces, " +
+           "SUM(s.digs) AS digs, SUM(s.assists) AS assists, SUM(s.errors) AS errors " +
+           "FROM PlayerStat s WHERE s.gameId = :gameId AND s.timestamp > :after AND s.timestamp <= :until " +
+           "GROUP BY s.playerId")
+    List<PlayerStatTotals> sumByPlayerBetween(@Param("gameId") String gameId, @Param("after") LocalDateTime after,
+                                              @Param("until") LocalDateTime until);
+
+    // Without materializing entities. Every column it reads is in idx_player_stats_game_player_ts, so
+    // Postgres can use an index-only scan; H2 reads each row from the table regardless
+    @Query("SELECT new com.volley.repository.PlayerStatPoint(s.id, s.timestamp, " +
+           "s.kills + s.blocks + s.aces + s.digs + s.assists - s.errors) " +
+           "FROM PlayerStat s WHERE s.gameId = :gameId AND s.playerId = :playerId ORDER BY s.timestamp ASC")
+    List<PlayerStatPoint> findReportPoints(@Param("gameId") String gameId, @Param("playerId") String playerId);
 }
@@ -0,0 +1,11 @@
+package com.volley.repository;
+
+public interface PlayerStatTotals {
+    String getPlayerId();
+    Long getKills();
+    Long getBlocks();
+    Long getAces();
+    Long getDigs();
+    Long getAssists();
+    Long getErrors();
+}
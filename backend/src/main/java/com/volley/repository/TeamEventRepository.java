@@ -0,0 +1,29 @@
+package com.volley.repository;
+
+import com.volley.model.TeamEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TeamEventRepository extends JpaRepository<TeamEvent, Long> {
+    Optional<TeamEvent> findByGameIdAndSeq(String gameId, long seq);
+
+    List<TeamEvent> findByGameIdAndEndOfSetTrueOrderBySeqAsc(String gameId);
+
+    List<TeamEvent> findByGameIdAndTimestampGreaterThanEqual(String gameId, LocalDateTime since);
+
+    @Query("SELECT COALESCE(MAX(e.seq), 0) FROM TeamEvent e WHERE e.gameId = :gameId")
+    long findLastSeq(@Param("gameId") String gameId);
+
+    // Events after a snapshot, up to a point in time
+    @Query("SELECT e FROM TeamEvent e WHERE e.gameId = :gameId AND e.seq > :afterSeq AND e.timestamp <= :until " +
+           "ORDER BY e.seq")
+    List<TeamEvent> findTail(@Param("gameId") String gameId, @Param("afterSeq") long afterSeq,
+                             @Param("until") LocalDateTime until);
+}
@@ -2,6 +2,10 @@ package com.volley.security;
 
 import com.volley.model.User;
 import com.volley.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +19,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -25,34 +30,61 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Time spent authenticating the request, by how the token was resolved
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        cachedTimer = meterRegistry.timer("volley.auth.filter", "result", "cached");
+        verifiedTimer = meterRegistry.timer("volley.auth.filter", "result", "verified");
+        rejectedTimer = meterRegistry.timer("volley.auth.filter", "result", "rejected");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwtToken = requestTokenHeader.substring(7);
+            long start = System.nanoTime();
+            Timer timer = cachedTimer;
 
-        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwtToken);
-            } catch (Exception e) {
-                logger.error("Unable to get JWT Token or JWT Token has expired");
+            // Cache hit skips signature verification and the user lookup
+            User userDetails = jwtTokenCache.get(jwtToken);
+            if (userDetails == null) {
+                timer = rejectedTimer;
+                try {
+                    // Single parse: verifies the signature and the expiry together
+                    Claims claims = jwtUtil.extractAllClaims(jwtToken);
+                    userDetails = userRepository.findByEmail(claims.getSubject()).orElse(null);
+                    if (userDetails != null) {
+                        timer = verifiedTimer;
+                        jwtTokenCache.put(jwtToken, userDetails, claims.getExpiration());
+                    }
+                } catch (Exception e) {
+                    logger.error("Unable to get JWT Token or JWT Token has expired");
+                }
             }
-        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User userDetails = userRepository.findByEmail(username).orElse(null);
-            
-            if (userDetails != null && jwtUtil.validateToken(jwtToken, username)) {
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
+            if (userDetails != null) {
+                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                     new UsernamePasswordAuthenticationToken(userDetails, null, new ArrayList<>());
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
             }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
         chain.doFilter(request, response);
     }
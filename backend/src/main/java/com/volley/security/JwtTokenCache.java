@@ -0,0 +1,87 @@
+package com.volley.security;
+
+import com.volley.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class JwtTokenCache {
+
+    // 0 disables the cache
+    @Value("${volley.security.token-cache.max-size:10000}")
+    private int maxSize;
+
+    // Upper bound on how long a cached principal can outlive changes to the user row
+    @Value("${volley.security.token-cache.max-ttl-ms:300000}")
+    private long maxTtlMs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public User get(String token) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        String key = key(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.user;
+    }
+
+    public void put(String token, User user, Date tokenExpiration) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(tokenExpiration.getTime(), now + maxTtlMs);
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(key(token), new Entry(user, expiresAt));
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        // Still full: drop an arbitrary tenth of the entries
+        Iterator<Entry> iterator = entries.values().iterator();
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    // Keyed by a digest so raw bearer tokens are never held in memory
+    private static String key(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        final User user;
+        final long expiresAt;
+
+        Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.volley.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs BCrypt checks on a small dedicated pool, so a login storm queues here instead of
+// holding Tomcat threads that stat ingestion needs. A login is shed with an estimated retry
+// delay when the queue is full, or when it waited so long its client has likely given up;
+// nothing is recorded against the account either way.
+@Component
+public class PasswordVerifier {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Disabled verifies on the request thread, the old behaviour; kept for load-test comparisons
+    @Value("${volley.auth.login-pool.enabled:true}")
+    private boolean enabled;
+
+    // 0 sizes the pool to the core count
+    @Value("${volley.auth.login-pool.threads:0}")
+    private int threads;
+
+    @Value("${volley.auth.login-pool.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${volley.auth.login-pool.max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    private ThreadPoolExecutor executor;
+    // Moving average of one verification, for Retry-After
+    private volatile long averageNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @PostConstruct
+    public void start() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "login-bcrypt-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("volley.auth.login.queue", executor, pool -> pool.getQueue().size())
+            .register(meterRegistry);
+    }
+
+    // Fails with LoginThrottledException when the login is shed
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(timedMatches(rawPassword, encodedPassword));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new LoginThrottledException(retryAfterSeconds());
+                }
+                return timedMatches(rawPassword, encodedPassword);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new LoginThrottledException(retryAfterSeconds()));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private boolean timedMatches(String rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        boolean matches = passwordEncoder.matches(rawPassword, encodedPassword);
+        averageNanos += (System.nanoTime() - start - averageNanos) / 8;
+        return matches;
+    }
+
+    // Time to drain the current queue across the pool, rounded up to whole seconds
+    private long retryAfterSeconds() {
+        long drainNanos = executor.getQueue().size() * averageNanos / executor.getMaximumPoolSize();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(drainNanos) + 1);
+    }
+}
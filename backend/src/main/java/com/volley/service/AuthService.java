@@ -4,12 +4,18 @@ import com.volley.dto.LoginResponse;
 import com.volley.model.User;
 import com.volley.repository.UserRepository;
 import com.volley.security.JwtUtil;
+import com.volley.security.LoginThrottledException;
+import com.volley.security.PasswordVerifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class AuthService {
@@ -18,25 +24,47 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordVerifier passwordVerifier;
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    public LoginResponse authenticate(String email, String password) throws Exception {
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new Exception("User not found"));
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Fails with BadCredentialsException for a wrong email or password, and with
+    // LoginThrottledException when password verification is saturated
+    public CompletableFuture<LoginResponse> authenticate(String email, String password) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return checkCredentials(email, password).whenComplete((response, error) -> {
+            String outcome = error == null ? "success"
+                : unwrap(error) instanceof LoginThrottledException ? "throttled" : "failure";
+            sample.stop(meterRegistry.timer("volley.auth.authenticate", "outcome", outcome));
+        });
+    }
 
-        if (!passwordEncoder.matches(password, user.getPasswordHash())) {
-            throw new Exception("Invalid password");
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private CompletableFuture<LoginResponse> checkCredentials(String email, String password) {
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user == null) {
+            return CompletableFuture.failedFuture(new BadCredentialsException("User not found"));
         }
 
-        String token = jwtUtil.generateToken(email);
-        
-        Map<String, Object> userMap = new HashMap<>();
-        userMap.put("id", user.getId().toString());
-        userMap.put("email", user.getEmail());
+        return passwordVerifier.matches(password, user.getPasswordHash()).thenApply(matches -> {
+            if (!matches) {
+                throw new CompletionException(new BadCredentialsException("Invalid password"));
+            }
+
+            String token = jwtUtil.generateToken(email);
+
+            Map<String, Object> userMap = new HashMap<>();
+            userMap.put("id", user.getId().toString());
+            userMap.put("email", user.getEmail());
 
-        return new LoginResponse(token, userMap);
+            return new LoginResponse(token, userMap);
+        });
     }
 }
@@ -0,0 +1,67 @@
+package com.volley.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Immutable per-player and team totals of a game at one version of LiveGameAggregate
+public class BoxScore {
+    private final String gameId;
+    private final long version;
+    private final String etag;
+    private final Map<String, Long> team;
+    private final Map<String, Map<String, Long>> players;
+
+    BoxScore(String gameId, long version, String etag, long[] team, Map<String, long[]> players) {
+        this.gameId = gameId;
+        this.version = version;
+        this.etag = etag;
+
+        Map<String, Long> teamTotals = new LinkedHashMap<>();
+        teamTotals.put("totalPoints", team[LiveGameAggregate.TEAM_TOTAL_POINTS]);
+        teamTotals.put("errors", team[LiveGameAggregate.TEAM_ERRORS]);
+        teamTotals.put("missedServes", team[LiveGameAggregate.TEAM_MISSED_SERVES]);
+        teamTotals.put("aces", team[LiveGameAggregate.TEAM_ACES]);
+        teamTotals.put("timeouts", team[LiveGameAggregate.TEAM_TIMEOUTS]);
+        this.team = Collections.unmodifiableMap(teamTotals);
+
+        Map<String, Map<String, Long>> playerTotals = new TreeMap<>();
+        for (Map.Entry<String, long[]> entry : players.entrySet()) {
+            long[] counters = entry.getValue();
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("kills", counters[LiveGameAggregate.PLAYER_KILLS]);
+            stats.put("blocks", counters[LiveGameAggregate.PLAYER_BLOCKS]);
+            stats.put("aces", counters[LiveGameAggregate.PLAYER_ACES]);
+            stats.put("digs", counters[LiveGameAggregate.PLAYER_DIGS]);
+            stats.put("assists", counters[LiveGameAggregate.PLAYER_ASSISTS]);
+            stats.put("errors", counters[LiveGameAggregate.PLAYER_ERRORS]);
+            playerTotals.put(entry.getKey(), Collections.unmodifiableMap(stats));
+        }
+        this.players = Collections.unmodifiableMap(playerTotals);
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public Map<String, Long> getTeam() {
+        return team;
+    }
+
+    public Map<String, Map<String, Long>> getPlayers() {
+        return players;
+    }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public String getEtag() {
+        return etag;
+    }
+}
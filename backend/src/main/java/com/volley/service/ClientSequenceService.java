@@ -0,0 +1,196 @@
+package com.volley.service;
+
+import com.volley.model.ClientSequence;
+import com.volley.repository.ClientSequenceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Makes stat writes idempotent for clients that send X-Device-Id and X-Client-Seq.
+//
+// Each (device, game) pair gets a SequenceWindow in memory, so a retry is recognised without a
+// query. Only the high-water mark is persisted, on the flush interval; after a restart everything
+// up to it is treated as applied, and retries of the last interval before a crash can apply twice.
+// Windows are keyed by game as well as device so that they live on the node that owns the game.
+@Service
+public class ClientSequenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientSequenceService.class);
+
+    private static final int MAX_DEVICE_ID_LENGTH = 64;
+
+    @Autowired
+    private ClientSequenceRepository clientSequenceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${volley.dedupe.window-size:1024}")
+    private int windowSize;
+
+    @Value("${volley.dedupe.result-slots:64}")
+    private int resultSlots;
+
+    @Value("${volley.dedupe.idle-ttl-ms:21600000}")
+    private long idleTtlMs;
+
+    @Value("${volley.dedupe.max-windows:50000}")
+    private int maxWindows;
+
+    private final Map<String, SequenceWindow> windows = new ConcurrentHashMap<>();
+    private Counter duplicates;
+    private Counter expired;
+
+    @PostConstruct
+    public void registerMetrics() {
+        duplicates = meterRegistry.counter("volley.dedupe.duplicates");
+        expired = meterRegistry.counter("volley.dedupe.expired");
+        meterRegistry.gaugeMapSize("volley.dedupe.windows", List.of(), windows);
+    }
+
+    // Runs the write once per (device, game, seq); a retry gets the original result back instead.
+    // A number older than the window is refused (400). Requests without the headers are applied as before.
+    public <T> SequencedResult<T> apply(String deviceId, Long seq, String gameId, Supplier<T> write) {
+        if (deviceId == null && seq == null) {
+            return new SequencedResult<>(write.get(), false);
+        }
+        if (deviceId == null || deviceId.isBlank() || deviceId.length() > MAX_DEVICE_ID_LENGTH || seq == null || seq < 1) {
+            throw new IllegalArgumentException("X-Device-Id and a positive X-Client-Seq must be sent together");
+        }
+
+        String key = gameId + '\n' + deviceId;
+        while (true) {
+            SequenceWindow window = window(key, deviceId, gameId);
+            // Held across the write, so a retry that races the original waits for its result
+            window.lock.lock();
+            try {
+                if (window.evicted) {
+                    continue;
+                }
+                window.touch();
+                if (window.expired(seq)) {
+                    // Counting it could double a write, dropping it could lose one
+                    expired.increment();
+                    throw new IllegalArgumentException("X-Client-Seq " + seq + " is older than the last " + windowSize
+                        + " tracked for device " + deviceId + " in game " + gameId);
+                }
+                if (window.applied(seq)) {
+                    duplicates.increment();
+                    @SuppressWarnings("unchecked")
+                    T original = (T) window.result(seq);
+                    return new SequencedResult<>(original, true);
+                }
+                T result;
+                try {
+                    result = write.get();
+                } catch (CommittedWriteException e) {
+                    // Stored even though the request fails, so its retry must not store it again
+                    window.markApplied(seq, null);
+                    throw e;
+                }
+                window.markApplied(seq, result);
+                return new SequencedResult<>(result, false);
+            } finally {
+                window.lock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${volley.dedupe.flush-interval-ms:1000}")
+    public void flush() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        List<Map.Entry<String, SequenceWindow>> entries = new ArrayList<>(windows.entrySet());
+        for (Map.Entry<String, SequenceWindow> entry : entries) {
+            persist(entry.getKey(), entry.getValue());
+            if (entry.getValue().getLastUsedNanos() < idleBefore) {
+                evict(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // Over the cap, the least recently used go first
+        int excess = windows.size() - maxWindows;
+        if (excess > 0) {
+            entries = new ArrayList<>(windows.entrySet());
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue().getLastUsedNanos()));
+            for (Map.Entry<String, SequenceWindow> entry : entries.subList(0, Math.min(excess, entries.size()))) {
+                evict(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private SequenceWindow window(String key, String deviceId, String gameId) {
+        SequenceWindow window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        // Only the first request from a device in a game, after a restart or eviction, reads the table
+        long persistedHigh = clientSequenceRepository.findByDeviceIdAndGameId(deviceId, gameId)
+            .map(ClientSequence::getHighWater)
+            .orElse(0L);
+        return windows.computeIfAbsent(key, k -> new SequenceWindow(windowSize, resultSlots, persistedHigh));
+    }
+
+    private void persist(String key, SequenceWindow window) {
+        long high;
+        window.lock.lock();
+        try {
+            high = window.getHigh();
+        } finally {
+            window.lock.unlock();
+        }
+        if (high <= window.getPersistedHigh()) {
+            return;
+        }
+        int separator = key.indexOf('\n');
+        String gameId = key.substring(0, separator);
+        String deviceId = key.substring(separator + 1);
+        try {
+            ClientSequence sequence = clientSequenceRepository.findByDeviceIdAndGameId(deviceId, gameId)
+                .orElse(new ClientSequence(deviceId, gameId));
+            sequence.setHighWater(Math.max(sequence.getHighWater(), high));
+            sequence.setUpdatedAt(LocalDateTime.now());
+            clientSequenceRepository.save(sequence);
+            window.setPersistedHigh(high);
+        } catch (RuntimeException e) {
+            // Retried on the next flush
+            log.warn("Failed to persist client sequence for device {} in game {}", deviceId, gameId, e);
+        }
+    }
+
+    private void evict(String key, SequenceWindow window) {
+        // A window in use is left for the next flush
+        if (!window.lock.tryLock()) {
+            return;
+        }
+        try {
+            if (window.getHigh() > window.getPersistedHigh()) {
+                return;
+            }
+            window.evicted = true;
+            windows.remove(key, window);
+        } finally {
+            window.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.volley.service;
+
+// A stat write committed but a step after it failed; a retry of the request must not apply it again
+public class CommittedWriteException extends RuntimeException {
+
+    public CommittedWriteException(RuntimeException cause) {
+        super("Stat write committed, but a later step failed: " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,41 @@
+package com.volley.service;
+
+import com.volley.repository.GameRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-game state (live totals, broadcast channels, timelines, history, snapshots) is only created
+// for ids in the games table, so requests for made-up game ids cannot grow those maps.
+// Games are registered by RosterService on their first roster request.
+@Component
+public class GameDirectory {
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    // Only existing ids are remembered, so a game registered later is found on its next request
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+
+    public boolean exists(String gameId) {
+        if (gameId == null || gameId.isBlank()) {
+            return false;
+        }
+        if (known.contains(gameId)) {
+            return true;
+        }
+        if (!gameRepository.existsById(gameId)) {
+            return false;
+        }
+        known.add(gameId);
+        return true;
+    }
+
+    public void require(String gameId) {
+        if (!exists(gameId)) {
+            throw new IllegalArgumentException("Unknown game: " + gameId);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.volley.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.volley.model.PlayerStat;
+import com.volley.repository.PlayerStatRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class GameExportService {
+
+    @Autowired
+    private PlayerStatRepository playerStatRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void exportNdjson(String gameId, OutputStream out) throws IOException {
+        try (Stream<PlayerStat> stats = playerStatRepository.streamByGameIdOrderByTimestampAsc(gameId)) {
+            SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+            Iterator<PlayerStat> iterator = stats.iterator();
+            while (iterator.hasNext()) {
+                PlayerStat stat = iterator.next();
+                writer.write(stat);
+                // Keep the persistence context empty so memory stays flat
+                entityManager.detach(stat);
+            }
+            writer.flush();
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCsv(String gameId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,gameId,playerId,kills,blocks,aces,digs,assists,errors,timestamp\n");
+        try (Stream<PlayerStat> stats = playerStatRepository.streamByGameIdOrderByTimestampAsc(gameId)) {
+            Iterator<PlayerStat> iterator = stats.iterator();
+            while (iterator.hasNext()) {
+                PlayerStat stat = iterator.next();
+                writer.write(stat.getId());
+                writer.write(',');
+                writer.write(csvField(stat.getGameId()));
+                writer.write(',');
+                writer.write(csvField(stat.getPlayerId()));
+                writer.write(',');
+                writer.write(Integer.toString(stat.getKills()));
+                writer.write(',');
+                writer.write(Integer.toString(stat.getBlocks()));
+                writer.write(',');
+                writer.write(Integer.toString(stat.getAces()));
+                writer.write(',');
+                writer.write(Integer.toString(stat.getDigs()));
+                writer.write(',');
+                writer.write(Integer.toString(stat.getAssists()));
+                writer.write(',');
+                writer.write(Integer.toString(stat.getErrors()));
+                writer.write(',');
+                writer.write(stat.getTimestamp());
+                writer.write('\n');
+                entityManager.detach(stat);
+            }
+        }
+        writer.flush();
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,244 @@
+package com.volley.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volley.dto.TeamStatRequest;
+import com.volley.model.GameSnapshot;
+import com.volley.model.TeamEvent;
+import com.volley.repository.GameSnapshotRepository;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.repository.TeamEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Immutable team event history plus compacted snapshots, for point-in-time game state.
+//
+// A query loads the nearest snapshot at or before the requested time and applies only the
+// events after it, so its cost is bounded by the snapshot interval rather than the game length.
+// Snapshots are taken every snapshot-every events and at every set boundary, after a short
+// settle delay so requests already in flight with an earlier timestamp have committed.
+@Service
+public class GameHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(GameHistoryService.class);
+
+    private static final LocalDateTime BEFORE_ANY_EVENT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final TypeReference<Map<String, int[]>> PLAYER_TOTALS = new TypeReference<>() {};
+
+    @Autowired
+    private TeamEventRepository teamEventRepository;
+
+    @Autowired
+    private GameSnapshotRepository gameSnapshotRepository;
+
+    @Autowired
+    private PlayerStatRepository playerStatRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${volley.history.snapshot-every:200}")
+    private int snapshotEvery;
+
+    @Value("${volley.history.settle-ms:2000}")
+    private long settleMs;
+
+    @Value("${volley.games.idle-ttl-ms:1800000}")
+    private long idleTtlMs;
+
+    private final Map<String, GameLog> games = new ConcurrentHashMap<>();
+    private ScheduledExecutorService snapshotter;
+
+    @PostConstruct
+    public void start() {
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshotter.shutdown();
+    }
+
+    // beforeSave runs under the game's lock with the event as it will be saved, timestamp and seq
+    // assigned, so the event log can record it ahead of the insert in the same order
+    public TeamEvent recordTeamEvent(String gameId, TeamStatRequest request, LocalDateTime timestamp,
+                                     Consumer<TeamEvent> beforeSave) {
+        GameLog game = lockGame(gameId);
+        TeamEvent event;
+        try {
+            // Team events get strictly increasing timestamps, so a seq maps to exactly one point in time
+            LocalDateTime eventTime = timestamp.isAfter(game.lastTimestamp) ? timestamp : game.lastTimestamp.plusNanos(1000);
+            event = new TeamEvent(gameId, game.lastSeq + 1, eventTime);
+            if (request.getTotalPoints() != null) event.setTotalPoints(request.getTotalPoints());
+            if (request.getErrors() != null) event.setErrors(request.getErrors());
+            if (request.getMissedServes() != null) event.setMissedServes(request.getMissedServes());
+            if (request.getAces() != null) event.setAces(request.getAces());
+            if (request.getTimeouts() != null) event.setTimeouts(request.getTimeouts());
+            event.setEndOfSet(Boolean.TRUE.equals(request.getEndOfSet()));
+            beforeSave.accept(event);
+            event = teamEventRepository.save(event);
+            game.lastSeq = event.getSeq();
+            game.lastTimestamp = eventTime;
+        } finally {
+            game.lock.unlock();
+        }
+        eventRecorded(gameId, game, event.getTimestamp(), event.isEndOfSet());
+        return event;
+    }
+
+    public void playerStatRecorded(String gameId, LocalDateTime timestamp) {
+        eventRecorded(gameId, game(gameId), timestamp, false);
+    }
+
+    public GameState stateAt(String gameId, LocalDateTime at) {
+        GameSnapshot snapshot = gameSnapshotRepository
+            .findFirstByGameIdAndTimestampLessThanEqualOrderByTimestampDesc(gameId, at).orElse(null);
+        GameState state = snapshot != null ? GameState.fromSnapshot(snapshot, readPlayerTotals(snapshot)) : new GameState(gameId);
+        LocalDateTime after = snapshot != null ? snapshot.getTimestamp() : BEFORE_ANY_EVENT;
+
+        teamEventRepository.findTail(gameId, state.getSeq(), at).forEach(state::apply);
+        playerStatRepository.sumByPlayerBetween(gameId, after, at).forEach(state::apply);
+        state.setAt(at);
+        return state;
+    }
+
+    // State right after the given team event
+    public GameState stateAtSeq(String gameId, long seq) {
+        TeamEvent event = teamEventRepository.findByGameIdAndSeq(gameId, seq)
+            .orElseThrow(() -> new IllegalArgumentException("No team event " + seq + " in game " + gameId));
+        return stateAt(gameId, event.getTimestamp());
+    }
+
+    // State at the end of the given set, counting from 1
+    public GameState stateAtEndOfSet(String gameId, int set) {
+        List<TeamEvent> setEnds = teamEventRepository.findByGameIdAndEndOfSetTrueOrderBySeqAsc(gameId);
+        if (set < 1 || set > setEnds.size()) {
+            throw new IllegalArgumentException("Set " + set + " of game " + gameId + " has not ended");
+        }
+        return stateAtSeq(gameId, setEnds.get(set - 1).getSeq());
+    }
+
+    public GameSnapshot snapshot(String gameId, LocalDateTime at) {
+        GameState state = stateAt(gameId, at);
+        GameSnapshot snapshot = state.toSnapshot();
+        try {
+            snapshot.setPlayerTotals(objectMapper.writeValueAsString(state.getPlayerCounters()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode player totals", e);
+        }
+        return gameSnapshotRepository.save(snapshot);
+    }
+
+    private void eventRecorded(String gameId, GameLog game, LocalDateTime timestamp, boolean endOfSet) {
+        boolean due;
+        game.lock.lock();
+        try {
+            game.sinceSnapshot++;
+            due = endOfSet || game.sinceSnapshot >= snapshotEvery;
+            if (due) {
+                game.sinceSnapshot = 0;
+            }
+        } finally {
+            game.lock.unlock();
+        }
+        if (due) {
+            snapshotter.schedule(() -> {
+                try {
+                    snapshot(gameId, timestamp);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to snapshot game {} at {}", gameId, timestamp, e);
+                }
+            }, settleMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Map<String, int[]> readPlayerTotals(GameSnapshot snapshot) {
+        try {
+            return objectMapper.readValue(snapshot.getPlayerTotals(), PLAYER_TOTALS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt player totals in snapshot " + snapshot.getId(), e);
+        }
+    }
+
+    // A game nobody has recorded events for in idle-ttl-ms is dropped; its seq is read again on next use
+    @Scheduled(fixedDelayString = "${volley.games.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        for (Map.Entry<String, GameLog> entry : games.entrySet()) {
+            GameLog game = entry.getValue();
+            // A game in use is left for the next pass
+            if (game.lastUsedNanos < idleBefore && game.lock.tryLock()) {
+                try {
+                    game.evicted = true;
+                    games.remove(entry.getKey(), game);
+                } finally {
+                    game.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Locked and still in the map, so two threads never number events from different copies
+    private GameLog lockGame(String gameId) {
+        while (true) {
+            GameLog game = game(gameId);
+            game.lock.lock();
+            if (!game.evicted) {
+                return game;
+            }
+            game.lock.unlock();
+        }
+    }
+
+    private GameLog game(String gameId) {
+        GameLog game = games.computeIfAbsent(gameId, id -> new GameLog());
+        game.lastUsedNanos = System.nanoTime();
+        if (!game.loaded) {
+            game.lock.lock();
+            try {
+                if (!game.loaded) {
+                    // Continue the sequence after a restart
+                    game.lastSeq = teamEventRepository.findLastSeq(gameId);
+                    game.lastTimestamp = teamEventRepository.findByGameIdAndSeq(gameId, game.lastSeq)
+                        .map(TeamEvent::getTimestamp).orElse(BEFORE_ANY_EVENT);
+                    game.loaded = true;
+                }
+            } finally {
+                game.lock.unlock();
+            }
+        }
+        return game;
+    }
+
+    private static class GameLog {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile boolean loaded;
+        volatile long lastUsedNanos = System.nanoTime();
+        // Guarded by lock
+        boolean evicted;
+        long lastSeq;
+        LocalDateTime lastTimestamp;
+        int sinceSnapshot;
+    }
+}
@@ -0,0 +1,129 @@
+package com.volley.service;
+
+import com.volley.model.GameSnapshot;
+import com.volley.model.TeamEvent;
+import com.volley.repository.PlayerStatTotals;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Team and player totals as of a point in the game, built from a snapshot plus the events after it
+public class GameState {
+    private final String gameId;
+    private LocalDateTime at;
+    private long seq;
+    private int setsCompleted;
+    private final int[] team = new int[LiveGameAggregate.TEAM_STAT_COUNT];
+    private final Map<String, int[]> players = new TreeMap<>();
+    private int tailEvents;
+
+    public GameState(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public static GameState fromSnapshot(GameSnapshot snapshot, Map<String, int[]> playerTotals) {
+        GameState state = new GameState(snapshot.getGameId());
+        state.at = snapshot.getTimestamp();
+        state.seq = snapshot.getTeamSeq();
+        state.setsCompleted = snapshot.getSetsCompleted();
+        state.team[LiveGameAggregate.TEAM_TOTAL_POINTS] = snapshot.getTotalPoints();
+        state.team[LiveGameAggregate.TEAM_ERRORS] = snapshot.getErrors();
+        state.team[LiveGameAggregate.TEAM_MISSED_SERVES] = snapshot.getMissedServes();
+        state.team[LiveGameAggregate.TEAM_ACES] = snapshot.getAces();
+        state.team[LiveGameAggregate.TEAM_TIMEOUTS] = snapshot.getTimeouts();
+        state.players.putAll(playerTotals);
+        return state;
+    }
+
+    public GameSnapshot toSnapshot() {
+        GameSnapshot snapshot = new GameSnapshot(gameId, at, seq);
+        snapshot.setSetsCompleted(setsCompleted);
+        snapshot.setTotalPoints(team[LiveGameAggregate.TEAM_TOTAL_POINTS]);
+        snapshot.setErrors(team[LiveGameAggregate.TEAM_ERRORS]);
+        snapshot.setMissedServes(team[LiveGameAggregate.TEAM_MISSED_SERVES]);
+        snapshot.setAces(team[LiveGameAggregate.TEAM_ACES]);
+        snapshot.setTimeouts(team[LiveGameAggregate.TEAM_TIMEOUTS]);
+        return snapshot;
+    }
+
+    void apply(TeamEvent event) {
+        team[LiveGameAggregate.TEAM_TOTAL_POINTS] += event.getTotalPoints();
+        team[LiveGameAggregate.TEAM_ERRORS] += event.getErrors();
+        team[LiveGameAggregate.TEAM_MISSED_SERVES] += event.getMissedServes();
+        team[LiveGameAggregate.TEAM_ACES] += event.getAces();
+        team[LiveGameAggregate.TEAM_TIMEOUTS] += event.getTimeouts();
+        if (event.isEndOfSet()) {
+            setsCompleted++;
+        }
+        seq = event.getSeq();
+        tailEvents++;
+    }
+
+    void apply(PlayerStatTotals totals) {
+        int[] counters = players.computeIfAbsent(totals.getPlayerId(), id -> new int[LiveGameAggregate.PLAYER_STAT_COUNT]);
+        counters[LiveGameAggregate.PLAYER_KILLS] += totals.getKills().intValue();
+        counters[LiveGameAggregate.PLAYER_BLOCKS] += totals.getBlocks().intValue();
+        counters[LiveGameAggregate.PLAYER_ACES] += totals.getAces().intValue();
+        counters[LiveGameAggregate.PLAYER_DIGS] += totals.getDigs().intValue();
+        counters[LiveGameAggregate.PLAYER_ASSISTS] += totals.getAssists().intValue();
+        counters[LiveGameAggregate.PLAYER_ERRORS] += totals.getErrors().intValue();
+    }
+
+    void setAt(LocalDateTime at) {
+        this.at = at;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    // Last team event included
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getSetsCompleted() {
+        return setsCompleted;
+    }
+
+    // Team events applied on top of the snapshot; stays small while snapshots keep up
+    public int getTailEvents() {
+        return tailEvents;
+    }
+
+    public Map<String, Integer> getTeam() {
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        totals.put("totalPoints", team[LiveGameAggregate.TEAM_TOTAL_POINTS]);
+        totals.put("errors", team[LiveGameAggregate.TEAM_ERRORS]);
+        totals.put("missedServes", team[LiveGameAggregate.TEAM_MISSED_SERVES]);
+        totals.put("aces", team[LiveGameAggregate.TEAM_ACES]);
+        totals.put("timeouts", team[LiveGameAggregate.TEAM_TIMEOUTS]);
+        return totals;
+    }
+
+    public Map<String, Map<String, Integer>> getPlayers() {
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> entry : players.entrySet()) {
+            int[] counters = entry.getValue();
+            Map<String, Integer> stats = new LinkedHashMap<>();
+            stats.put("kills", counters[LiveGameAggregate.PLAYER_KILLS]);
+            stats.put("blocks", counters[LiveGameAggregate.PLAYER_BLOCKS]);
+            stats.put("aces", counters[LiveGameAggregate.PLAYER_ACES]);
+            stats.put("digs", counters[LiveGameAggregate.PLAYER_DIGS]);
+            stats.put("assists", counters[LiveGameAggregate.PLAYER_ASSISTS]);
+            stats.put("errors", counters[LiveGameAggregate.PLAYER_ERRORS]);
+            result.put(entry.getKey(), stats);
+        }
+        return result;
+    }
+
+    Map<String, int[]> getPlayerCounters() {
+        return players;
+    }
+}
@@ -0,0 +1,381 @@
+package com.volley.service;
+
+import com.volley.dto.TeamStatRequest;
+import com.volley.eventlog.EventLogCheckpoints;
+import com.volley.eventlog.StatEventLog;
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamStat;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.repository.PlayerStatTotals;
+import com.volley.repository.TeamStatRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class LiveGameAggregate {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveGameAggregate.class);
+
+    // Team counter slots
+    public static final int TEAM_TOTAL_POINTS = 0;
+    public static final int TEAM_ERRORS = 1;
+    public static final int TEAM_MISSED_SERVES = 2;
+    public static final int TEAM_ACES = 3;
+    public static final int TEAM_TIMEOUTS = 4;
+    public static final int TEAM_STAT_COUNT = 5;
+
+    // Player counter slots
+    public static final int PLAYER_KILLS = 0;
+    public static final int PLAYER_BLOCKS = 1;
+    public static final int PLAYER_ACES = 2;
+    public static final int PLAYER_DIGS = 3;
+    public static final int PLAYER_ASSISTS = 4;
+    public static final int PLAYER_ERRORS = 5;
+    public static final int PLAYER_STAT_COUNT = 6;
+
+    @Autowired
+    private TeamStatRepository teamStatRepository;
+
+    @Autowired
+    private PlayerStatRepository playerStatRepository;
+
+    @Autowired
+    private StatEventLog statEventLog;
+
+    @Autowired
+    private EventLogCheckpoints eventLogCheckpoints;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${volley.games.idle-ttl-ms:1800000}")
+    private long idleTtlMs;
+
+    private final Map<String, GameCounters> games = new ConcurrentHashMap<>();
+    // Team taps hold the read side from their log append until their deltas are pending, so a flush
+    // under the write side drains exactly the team taps below the log position it checkpoints
+    private final ReentrantReadWriteLock teamWrites = new ReentrantReadWriteLock();
+    private TransactionTemplate transactionTemplate;
+    // Flush thread only
+    private long checkpointed = -1;
+    // Part of every box score ETag, so one from before a restart never matches
+    private final long epoch = System.currentTimeMillis();
+    // Also part of the ETag: a game reloaded after eviction starts its version from 0 again
+    private final AtomicLong loads = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Lock teamWriteLock() {
+        return teamWrites.readLock();
+    }
+
+    public void addTeamStat(String gameId, TeamStatRequest request) {
+        addTeamStat(gameId, request, 1);
+    }
+
+    // Takes back a team tap whose team event failed to commit; same locking as the add
+    public void removeTeamStat(String gameId, TeamStatRequest request) {
+        addTeamStat(gameId, request, -1);
+    }
+
+    private void addTeamStat(String gameId, TeamStatRequest request, int sign) {
+        GameCounters game = game(gameId);
+        game.addTeam(TEAM_TOTAL_POINTS, request.getTotalPoints(), sign);
+        game.addTeam(TEAM_ERRORS, request.getErrors(), sign);
+        game.addTeam(TEAM_MISSED_SERVES, request.getMissedServes(), sign);
+        game.addTeam(TEAM_ACES, request.getAces(), sign);
+        game.addTeam(TEAM_TIMEOUTS, request.getTimeouts(), sign);
+        game.lastUpdated = LocalDateTime.now();
+        game.teamVersion.incrementAndGet();
+        game.version.incrementAndGet();
+    }
+
+    // Called before a player stat is saved; seeding afterwards would count the saved row twice
+    public void preload(String gameId) {
+        game(gameId);
+    }
+
+    public void addPlayerStat(String gameId, PlayerStat stat) {
+        GameCounters game = game(gameId);
+        LongAdder[] counters = game.player(stat.getPlayerId());
+        counters[PLAYER_KILLS].add(stat.getKills());
+        counters[PLAYER_BLOCKS].add(stat.getBlocks());
+        counters[PLAYER_ACES].add(stat.getAces());
+        counters[PLAYER_DIGS].add(stat.getDigs());
+        counters[PLAYER_ASSISTS].add(stat.getAssists());
+        counters[PLAYER_ERRORS].add(stat.getErrors());
+        game.version.incrementAndGet();
+    }
+
+    // Rebuilt only when a write has bumped the game's version since the last call
+    public BoxScore getBoxScore(String gameId) {
+        GameCounters game = game(gameId);
+        // Read before the counters (writers bump it after), so the totals include at least this version
+        long version = game.version.get();
+        BoxScore cached = game.boxScore;
+        if (cached != null && cached.getVersion() == version) {
+            return cached;
+        }
+
+        long[] team = new long[TEAM_STAT_COUNT];
+        for (int i = 0; i < TEAM_STAT_COUNT; i++) {
+            team[i] = game.teamTotals[i].sum();
+        }
+        Map<String, long[]> players = new HashMap<>();
+        for (Map.Entry<String, LongAdder[]> entry : game.players.entrySet()) {
+            long[] totals = new long[PLAYER_STAT_COUNT];
+            for (int i = 0; i < PLAYER_STAT_COUNT; i++) {
+                totals[i] = entry.getValue()[i].sum();
+            }
+            players.put(entry.getKey(), totals);
+        }
+        BoxScore boxScore = new BoxScore(gameId, version, "\"" + epoch + "." + game.load + "." + version + "\"", team, players);
+        game.boxScore = boxScore;
+        return boxScore;
+    }
+
+    public long getTeamTotal(String gameId, int stat) {
+        return game(gameId).teamTotals[stat].sum();
+    }
+
+    public long getPlayerTotal(String gameId, String playerId, int stat) {
+        LongAdder[] counters = game(gameId).players.get(playerId);
+        return counters != null ? counters[stat].sum() : 0;
+    }
+
+    // Rebuilt only when a team tap has bumped the game's team version since the last call. Shared by
+    // every reader until then, so it must not be modified
+    public TeamStat getTeamStat(String gameId) {
+        GameCounters game = game(gameId);
+        long version = game.teamVersion.get();
+        Long teamStatId = game.teamStatId;
+        CachedTeamStat cached = game.teamStat;
+        if (cached != null && cached.version == version && Objects.equals(cached.teamStatId, teamStatId)) {
+            return cached.stat;
+        }
+
+        TeamStat stat = new TeamStat(gameId);
+        stat.setId(teamStatId);
+        stat.setTotalPoints((int) game.teamTotals[TEAM_TOTAL_POINTS].sum());
+        stat.setErrors((int) game.teamTotals[TEAM_ERRORS].sum());
+        stat.setMissedServes((int) game.teamTotals[TEAM_MISSED_SERVES].sum());
+        stat.setAces((int) game.teamTotals[TEAM_ACES].sum());
+        stat.setTimeouts((int) game.teamTotals[TEAM_TIMEOUTS].sum());
+        stat.setTimestamp(game.lastUpdated);
+        game.teamStat = new CachedTeamStat(version, teamStatId, stat);
+        return stat;
+    }
+
+    // Writes the pending team deltas and the event log checkpoint in one transaction, so after a
+    // crash replay adds back exactly the team taps that never reached team_stats
+    @Scheduled(fixedDelayString = "${volley.aggregate.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<GameCounters, int[]> drained = new HashMap<>();
+        long position;
+        teamWrites.writeLock().lock();
+        try {
+            position = statEventLog.position();
+            for (GameCounters game : games.values()) {
+                int[] deltas = game.drainTeamPending();
+                if (deltas != null) {
+                    drained.put(game, deltas);
+                }
+            }
+        } finally {
+            teamWrites.writeLock().unlock();
+        }
+        if (drained.isEmpty() && position == checkpointed) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<GameCounters, int[]> entry : drained.entrySet()) {
+                    GameCounters game = entry.getKey();
+                    int[] deltas = entry.getValue();
+                    TeamStat stat = teamStatRepository.findByGameId(game.gameId).orElse(new TeamStat(game.gameId));
+                    stat.setTotalPoints(stat.getTotalPoints() + deltas[TEAM_TOTAL_POINTS]);
+                    stat.setErrors(stat.getErrors() + deltas[TEAM_ERRORS]);
+                    stat.setMissedServes(stat.getMissedServes() + deltas[TEAM_MISSED_SERVES]);
+                    stat.setAces(stat.getAces() + deltas[TEAM_ACES]);
+                    stat.setTimeouts(stat.getTimeouts() + deltas[TEAM_TIMEOUTS]);
+                    stat.setTimestamp(game.lastUpdated);
+                    stat = teamStatRepository.save(stat);
+                    game.teamStatId = Long.valueOf(stat.getId());
+                }
+                if (position >= 0) {
+                    eventLogCheckpoints.save(position);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them under a later checkpoint
+            drained.forEach(GameCounters::restoreTeamPending);
+            log.warn("Failed to flush team stats for {} games", drained.size(), e);
+            return;
+        }
+        checkpointed = position;
+        statEventLog.checkpointed(position);
+    }
+
+    // A game nobody has read or written for idle-ttl-ms is dropped and reloaded from the database on
+    // next use. Synchronized with flush, and under the lock team taps hold, so no team delta can be
+    // drained from or added to counters that are being dropped
+    @Scheduled(fixedDelayString = "${volley.games.evict-interval-ms:60000}")
+    public synchronized void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        teamWrites.writeLock().lock();
+        try {
+            games.values().removeIf(game -> game.lastUsedNanos < idleBefore && !game.hasTeamPending());
+        } finally {
+            teamWrites.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private GameCounters game(String gameId) {
+        GameCounters game = games.get(gameId);
+        if (game != null) {
+            game.lastUsedNanos = System.nanoTime();
+            return game;
+        }
+        // Load outside the map so a slow query never blocks other games
+        GameCounters loaded = load(gameId);
+        GameCounters existing = games.putIfAbsent(gameId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private GameCounters load(String gameId) {
+        GameCounters game = new GameCounters(gameId, loads.incrementAndGet());
+        teamStatRepository.findByGameId(gameId).ifPresent(stat -> {
+            game.teamStatId = Long.valueOf(stat.getId());
+            game.teamTotals[TEAM_TOTAL_POINTS].add(stat.getTotalPoints());
+            game.teamTotals[TEAM_ERRORS].add(stat.getErrors());
+            game.teamTotals[TEAM_MISSED_SERVES].add(stat.getMissedServes());
+            game.teamTotals[TEAM_ACES].add(stat.getAces());
+            game.teamTotals[TEAM_TIMEOUTS].add(stat.getTimeouts());
+            game.lastUpdated = LocalDateTime.parse(stat.getTimestamp());
+        });
+        for (PlayerStatTotals totals : playerStatRepository.sumByPlayerForGame(gameId)) {
+            LongAdder[] counters = game.player(totals.getPlayerId());
+            counters[PLAYER_KILLS].add(totals.getKills());
+            counters[PLAYER_BLOCKS].add(totals.getBlocks());
+            counters[PLAYER_ACES].add(totals.getAces());
+            counters[PLAYER_DIGS].add(totals.getDigs());
+            counters[PLAYER_ASSISTS].add(totals.getAssists());
+            counters[PLAYER_ERRORS].add(totals.getErrors());
+        }
+        return game;
+    }
+
+    private static LongAdder[] newCounters(int size) {
+        LongAdder[] counters = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    private static class CachedTeamStat {
+        final long version;
+        // The first flush gives the game its team_stats id
+        final Long teamStatId;
+        final TeamStat stat;
+
+        CachedTeamStat(long version, Long teamStatId, TeamStat stat) {
+            this.version = version;
+            this.teamStatId = teamStatId;
+            this.stat = stat;
+        }
+    }
+
+    private static class GameCounters {
+        final String gameId;
+        final long load;
+        volatile long lastUsedNanos = System.nanoTime();
+        // Running totals served to readers
+        final LongAdder[] teamTotals = newCounters(TEAM_STAT_COUNT);
+        // Deltas not yet written to the team_stats row
+        final AtomicIntegerArray teamPending = new AtomicIntegerArray(TEAM_STAT_COUNT);
+        final Map<String, LongAdder[]> players = new ConcurrentHashMap<>();
+        volatile Long teamStatId;
+        volatile LocalDateTime lastUpdated = LocalDateTime.now();
+        // Bumped after every write, after the counters
+        final AtomicLong version = new AtomicLong();
+        volatile BoxScore boxScore;
+        // Bumped after every team write only, so player taps leave the cached team stat alone
+        final AtomicLong teamVersion = new AtomicLong();
+        volatile CachedTeamStat teamStat;
+
+        GameCounters(String gameId, long load) {
+            this.gameId = gameId;
+            this.load = load;
+        }
+
+        void addTeam(int stat, Integer delta, int sign) {
+            if (delta != null && delta != 0) {
+                teamTotals[stat].add(sign * delta);
+                teamPending.addAndGet(stat, sign * delta);
+            }
+        }
+
+        LongAdder[] player(String playerId) {
+            return players.computeIfAbsent(playerId, id -> newCounters(PLAYER_STAT_COUNT));
+        }
+
+        int[] drainTeamPending() {
+            int[] deltas = null;
+            for (int i = 0; i < TEAM_STAT_COUNT; i++) {
+                int delta = teamPending.getAndSet(i, 0);
+                if (delta != 0) {
+                    if (deltas == null) {
+                        deltas = new int[TEAM_STAT_COUNT];
+                    }
+                    deltas[i] = delta;
+                }
+            }
+            return deltas;
+        }
+
+        boolean hasTeamPending() {
+            for (int i = 0; i < TEAM_STAT_COUNT; i++) {
+                if (teamPending.get(i) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void restoreTeamPending(int[] deltas) {
+            for (int i = 0; i < TEAM_STAT_COUNT; i++) {
+                teamPending.addAndGet(i, deltas[i]);
+            }
+        }
+    }
+}
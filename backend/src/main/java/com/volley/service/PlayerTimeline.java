@@ -0,0 +1,206 @@
+package com.volley.service;
+
+import com.volley.model.PlayerStat;
+import com.volley.repository.PlayerStatPoint;
+import com.volley.repository.PlayerStatRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class PlayerTimeline {
+
+    // Rows newer than this at load time may still be on their way to record()
+    private static final long IN_FLIGHT_WINDOW_MS = 60_000;
+
+    @Autowired
+    private PlayerStatRepository playerStatRepository;
+
+    @Value("${volley.timeline.bucket-width-ms:60000}")
+    private long bucketWidthMs;
+
+    @Value("${volley.games.idle-ttl-ms:1800000}")
+    private long idleTtlMs;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    public void record(PlayerStat stat, LocalDateTime timestamp) {
+        Series target = lockSeries(stat.getGameId(), stat.getPlayerId());
+        try {
+            if (target.loadedIds.remove(stat.getId())) {
+                // Already counted by the cold load
+                return;
+            }
+            target.add(bucketStart(timestamp), performanceScore(stat));
+        } finally {
+            target.lock.unlock();
+        }
+    }
+
+    // Buckets starting at or after since (all buckets when since is null), oldest first
+    public List<Map<String, Object>> getBuckets(String gameId, String playerId, LocalDateTime since) {
+        long from = since != null ? bucketStart(since) : Long.MIN_VALUE;
+        Series source = lockSeries(gameId, playerId);
+        try {
+            int start = source.indexOf(from);
+            if (start < 0) {
+                start = -start - 1;
+            }
+            List<Map<String, Object>> points = new ArrayList<>(source.size - start);
+            for (int i = start; i < source.size; i++) {
+                Map<String, Object> dataPoint = new HashMap<>();
+                dataPoint.put("timestamp", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(toLocalDateTime(source.starts[i])));
+                dataPoint.put("value", source.scores[i]);
+                dataPoint.put("cumulative", source.cumulative[i]);
+                points.add(dataPoint);
+            }
+            return points;
+        } finally {
+            source.lock.unlock();
+        }
+    }
+
+    // Positive actions minus errors, clamped per tap so one bad tap never goes negative
+    public static int performanceScore(PlayerStat stat) {
+        int performance = stat.getKills() + stat.getBlocks() + stat.getAces() + stat.getDigs() + stat.getAssists() - stat.getErrors();
+        return Math.max(0, performance);
+    }
+
+    // Series nobody has read or written for idle-ttl-ms are dropped and reloaded on next use
+    @Scheduled(fixedDelayString = "${volley.games.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            Series idle = entry.getValue();
+            if (idle.lastUsedNanos < idleBefore && idle.lock.tryLock()) {
+                try {
+                    idle.evicted = true;
+                    series.remove(entry.getKey(), idle);
+                } finally {
+                    idle.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Locked and still in the map, so a tap is never added to a dropped series
+    private Series lockSeries(String gameId, String playerId) {
+        while (true) {
+            Series locked = series(gameId, playerId);
+            locked.lock.lock();
+            if (!locked.evicted) {
+                return locked;
+            }
+            locked.lock.unlock();
+        }
+    }
+
+    private Series series(String gameId, String playerId) {
+        String key = gameId + '\u0000' + playerId;
+        Series existing = series.get(key);
+        if (existing != null) {
+            existing.lastUsedNanos = System.nanoTime();
+            return existing;
+        }
+        Series loaded = load(gameId, playerId);
+        existing = series.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Series load(String gameId, String playerId) {
+        Series loaded = new Series();
+        long inFlightFrom = System.currentTimeMillis() - IN_FLIGHT_WINDOW_MS;
+        for (PlayerStatPoint point : playerStatRepository.findReportPoints(gameId, playerId)) {
+            long millis = point.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            loaded.add(millis - Math.floorMod(millis, bucketWidthMs), Math.max(0, point.getPerformance()));
+            if (millis >= inFlightFrom) {
+                loaded.loadedIds.add(String.valueOf(point.getId()));
+            }
+        }
+        return loaded;
+    }
+
+    private long bucketStart(LocalDateTime timestamp) {
+        long millis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return millis - Math.floorMod(millis, bucketWidthMs);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+            (int) Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static class Series {
+        final ReentrantLock lock = new ReentrantLock();
+        final Set<String> loadedIds = new HashSet<>();
+        volatile long lastUsedNanos = System.nanoTime();
+        // Guarded by lock
+        boolean evicted;
+        long[] starts = new long[16];
+        int[] scores = new int[16];
+        long[] cumulative = new long[16];
+        int size;
+
+        void add(long bucketStart, int score) {
+            int index = indexOf(bucketStart);
+            if (index < 0) {
+                index = -index - 1;
+                insertBucket(index, bucketStart);
+            }
+            scores[index] += score;
+            // Usually the last bucket, so this loop runs once
+            for (int i = index; i < size; i++) {
+                cumulative[i] = (i > 0 ? cumulative[i - 1] : 0) + scores[i];
+            }
+        }
+
+        // Binary search over bucket starts; the common case is a hit on the last bucket
+        int indexOf(long bucketStart) {
+            if (size > 0 && starts[size - 1] == bucketStart) {
+                return size - 1;
+            }
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < bucketStart) {
+                    low = mid + 1;
+                } else if (starts[mid] > bucketStart) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertBucket(int index, long bucketStart) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+                cumulative = Arrays.copyOf(cumulative, size * 2);
+            }
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(scores, index, scores, index + 1, size - index);
+            System.arraycopy(cumulative, index, cumulative, index + 1, size - index);
+            starts[index] = bucketStart;
+            scores[index] = 0;
+            size++;
+        }
+    }
+}
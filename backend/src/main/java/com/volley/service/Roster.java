@@ -0,0 +1,34 @@
+package com.volley.service;
+
+import com.volley.model.Player;
+
+import java.util.List;
+
+// Immutable snapshot of a game's roster; a new version replaces it on every change
+public class Roster {
+    private final String gameId;
+    private final long version;
+    private final List<Player> players;
+
+    public Roster(String gameId, long version, List<Player> players) {
+        this.gameId = gameId;
+        this.version = version;
+        this.players = List.copyOf(players);
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public String getEtag() {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,58 @@
+package com.volley.service;
+
+import com.volley.model.Player;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+@Component
+public class RosterCache {
+
+    // Seeded from the clock so an ETag from before a restart never matches a new roster
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+    private final Map<String, Roster> rosters = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public Roster get(String gameId, Function<String, List<Player>> loader) {
+        Roster cached = rosters.get(gameId);
+        if (cached != null) {
+            return cached;
+        }
+        ReentrantLock lock = lock(gameId);
+        lock.lock();
+        try {
+            cached = rosters.get(gameId);
+            if (cached == null) {
+                cached = new Roster(gameId, versions.incrementAndGet(), loader.apply(gameId));
+                rosters.put(gameId, cached);
+            }
+            return cached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs the change under the game's lock so no reader can cache the roster from before it;
+    // the cached version survives when the change reports that nothing was modified
+    public void update(String gameId, BooleanSupplier change) {
+        ReentrantLock lock = lock(gameId);
+        lock.lock();
+        try {
+            if (change.getAsBoolean()) {
+                rosters.remove(gameId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lock(String gameId) {
+        return locks.computeIfAbsent(gameId, id -> new ReentrantLock());
+    }
+}
@@ -0,0 +1,77 @@
+package com.volley.service;
+
+import com.volley.model.Game;
+import com.volley.model.Player;
+import com.volley.model.User;
+import com.volley.repository.GameRepository;
+import com.volley.repository.PlayerRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Service
+public class RosterService {
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private RosterCache rosterCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Programmatic so each roster change commits before RosterCache releases the game's lock
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Roster getRoster(String gameId, User coach) {
+        return rosterCache.get(gameId, id -> transactionTemplate.execute(status -> {
+            findOrRegister(id, coach);
+            return playerRepository.findByGames_IdOrderByJerseyNumberAsc(id);
+        }));
+    }
+
+    public Roster addPlayer(String gameId, String playerId, User coach) {
+        rosterCache.update(gameId, () -> Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Game game = findOrRegister(gameId, coach);
+            Player player = playerRepository.findById(Long.valueOf(playerId))
+                .orElseThrow(() -> new IllegalArgumentException("Player not found: " + playerId));
+            return game.getPlayers().add(player);
+        })));
+        return getRoster(gameId, coach);
+    }
+
+    public Roster removePlayer(String gameId, String playerId, User coach) {
+        Long id = Long.valueOf(playerId);
+        rosterCache.update(gameId, () -> Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Game game = findOrRegister(gameId, coach);
+            return game.getPlayers().removeIf(player -> id.toString().equals(player.getId()));
+        })));
+        return getRoster(gameId, coach);
+    }
+
+    // Games are created client-side, so the first request for an unknown id registers it
+    // with the requesting coach's players
+    private Game findOrRegister(String gameId, User coach) {
+        return gameRepository.findById(gameId).orElseGet(() -> {
+            Game game = new Game(gameId, coach);
+            if (coach != null) {
+                List<Player> players = playerRepository.findByUser_Id(coach.getId());
+                game.getPlayers().addAll(players);
+            }
+            return gameRepository.save(game);
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.volley.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Which of one device's most recent sequence numbers have been applied in one game.
+//
+// A bitmap covers (high - size, high]. A number at or below that floor can no longer be told apart,
+// applied or not, so it is expired rather than assumed either way. The last resultSlots results are
+// kept so a retry can be answered with what the original request returned.
+class SequenceWindow {
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    private final long[] bits;
+    private final int size;
+    private final long[] resultSeqs;
+    private final Object[] results;
+    private long high;
+    private long persistedHigh;
+    private volatile long lastUsedNanos;
+    boolean evicted;
+
+    // Everything at or below a persisted high-water mark counts as applied
+    SequenceWindow(int size, int resultSlots, long persistedHigh) {
+        this.size = size;
+        this.bits = new long[(size + 63) / 64];
+        this.resultSeqs = new long[resultSlots];
+        this.results = new Object[resultSlots];
+        this.high = persistedHigh;
+        this.persistedHigh = persistedHigh;
+        Arrays.fill(bits, -1L);
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    boolean expired(long seq) {
+        return seq <= high - size;
+    }
+
+    // Only meaningful for a number that has not expired
+    boolean applied(long seq) {
+        if (seq > high) {
+            return false;
+        }
+        int bit = bit(seq);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    void markApplied(long seq, Object result) {
+        if (seq > high) {
+            // Slide forward, clearing the bits of the numbers skipped over
+            long cleared = Math.min(seq - high, size);
+            for (long skipped = seq - cleared + 1; skipped <= seq; skipped++) {
+                int bit = bit(skipped);
+                bits[bit >>> 6] &= ~(1L << bit);
+            }
+            high = seq;
+        }
+        int bit = bit(seq);
+        bits[bit >>> 6] |= 1L << bit;
+
+        int slot = (int) Math.floorMod(seq, (long) results.length);
+        resultSeqs[slot] = seq;
+        results[slot] = result;
+    }
+
+    // The original result, or null once it has been overwritten or was lost in a restart
+    Object result(long seq) {
+        int slot = (int) Math.floorMod(seq, (long) results.length);
+        return resultSeqs[slot] == seq ? results[slot] : null;
+    }
+
+    long getHigh() {
+        return high;
+    }
+
+    long getPersistedHigh() {
+        return persistedHigh;
+    }
+
+    void setPersistedHigh(long persistedHigh) {
+        this.persistedHigh = persistedHigh;
+    }
+
+    void touch() {
+        lastUsedNanos = System.nanoTime();
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    private int bit(long seq) {
+        return (int) Math.floorMod(seq, (long) size);
+    }
+}
@@ -0,0 +1,20 @@
+package com.volley.service;
+
+public class SequencedResult<T> {
+    private final T value;
+    private final boolean duplicate;
+
+    public SequencedResult(T value, boolean duplicate) {
+        this.value = value;
+        this.duplicate = duplicate;
+    }
+
+    // Null for a duplicate whose original result is no longer held
+    public T getValue() {
+        return value;
+    }
+
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+}
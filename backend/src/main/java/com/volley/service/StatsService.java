@@ -1,116 +1,339 @@
 package com.volley.service;
 
+import com.volley.broadcast.GameBroadcastScheduler;
 import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.StatBatchEntry;
+import com.volley.dto.StatBatchRequest;
+import com.volley.dto.StatBatchResponse;
 import com.volley.dto.TeamStatRequest;
-import com.volley.model.Player;
+import com.volley.eventlog.StatEventLog;
+import com.volley.ingest.TapPipeline;
 import com.volley.model.PlayerStat;
 import com.volley.model.TeamStat;
-import com.volley.repository.PlayerRepository;
 import com.volley.repository.PlayerStatRepository;
-import com.volley.repository.TeamStatRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class StatsService {
 
     @Autowired
-    private PlayerRepository playerRepository;
+    private PlayerStatRepository playerStatRepository;
 
     @Autowired
-    private PlayerStatRepository playerStatRepository;
+    private GameBroadcastScheduler gameBroadcastScheduler;
+
+    @Autowired
+    private LiveGameAggregate liveGameAggregate;
+
+    @Autowired
+    private StatEventLog statEventLog;
+
+    @Autowired
+    private PlayerTimeline playerTimeline;
+
+    @Autowired
+    private GameHistoryService gameHistoryService;
 
     @Autowired
-    private TeamStatRepository teamStatRepository;
+    private TapPipeline tapPipeline;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private GameDirectory gameDirectory;
 
-    public List<Player> getPlayersForGame(String gameId) {
-        // For MVP, return all players
-        return playerRepository.findAll();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Percentiles and SLO buckets come from management.metrics.distribution
+    private Timer recordPlayerTimer;
+    private Timer recordTeamTimer;
+    private Timer recordBatchTimer;
+    private Timer reportTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        recordPlayerTimer = meterRegistry.timer("volley.stats.record", "type", "player");
+        recordTeamTimer = meterRegistry.timer("volley.stats.record", "type", "team");
+        recordBatchTimer = meterRegistry.timer("volley.stats.record", "type", "batch");
+        reportTimer = meterRegistry.timer("volley.stats.report");
     }
 
     public TeamStat getTeamStatsForGame(String gameId) {
-        return teamStatRepository.findByGameId(gameId)
-            .orElse(new TeamStat(gameId));
+        gameDirectory.require(gameId);
+        return liveGameAggregate.getTeamStat(gameId);
+    }
+
+    public BoxScore getBoxScore(String gameId) {
+        gameDirectory.require(gameId);
+        return liveGameAggregate.getBoxScore(gameId);
+    }
+
+    public GameState getGameState(String gameId, String at, Integer set) {
+        gameDirectory.require(gameId);
+        if (set != null) {
+            return gameHistoryService.stateAtEndOfSet(gameId, set);
+        }
+        if (at == null || at.isBlank()) {
+            return gameHistoryService.stateAt(gameId, LocalDateTime.now());
+        }
+        if (at.chars().allMatch(Character::isDigit)) {
+            return gameHistoryService.stateAtSeq(gameId, Long.parseLong(at));
+        }
+        return gameHistoryService.stateAt(gameId, parseTimestamp(at));
     }
 
     public PlayerStat recordPlayerStat(String gameId, String playerId, PlayerStatRequest request) {
-        PlayerStat stat = new PlayerStat(gameId, playerId);
-        
-        // Set the stat values from request
-        if (request.getKills() != null) stat.setKills(request.getKills());
-        if (request.getBlocks() != null) stat.setBlocks(request.getBlocks());
-        if (request.getAces() != null) stat.setAces(request.getAces());
-        if (request.getDigs() != null) stat.setDigs(request.getDigs());
-        if (request.getAssists() != null) stat.setAssists(request.getAssists());
-        if (request.getErrors() != null) stat.setErrors(request.getErrors());
+        gameDirectory.require(gameId);
+        return recordPlayerTimer.record(() -> doRecordPlayerStat(gameId, playerId, request));
+    }
+
+    public TeamStat recordTeamStat(String gameId, TeamStatRequest request) {
+        gameDirectory.require(gameId);
+        return recordTeamTimer.record(() -> doRecordTeamStat(gameId, request));
+    }
+
+    public StatBatchResponse recordBatch(String gameId, StatBatchRequest request) {
+        gameDirectory.require(gameId);
+        return recordBatchTimer.record(() -> doRecordBatch(gameId, request));
+    }
 
-        stat = playerStatRepository.save(stat);
+    // Time-bucketed performance series, maintained incrementally by PlayerTimeline
+    public List<Map<String, Object>> getPlayerReport(String gameId, String playerId, LocalDateTime since) {
+        gameDirectory.require(gameId);
+        return reportTimer.record(() -> playerTimeline.getBuckets(gameId, playerId, since));
+    }
+
+    private PlayerStat doRecordPlayerStat(String gameId, String playerId, PlayerStatRequest request) {
+        LocalDateTime now = now();
+        if (tapPipeline.isEnabled()) {
+            // Returns once persisted; the remaining stages run on the pipeline's threads
+            return tapPipeline.submit(gameId, playerId, request, newPlayerStat(gameId, playerId, request, now), now);
+        }
+
+        statEventLog.validateIds(gameId, playerId);
+        liveGameAggregate.preload(gameId);
+        gameBroadcastScheduler.preload(gameId);
+        // Write-ahead: the tap is durable in the log before its row is written, and cancelled there
+        // if the row is not, so the log and the database agree on every tap a client was told about
+        long position = statEventLog.appendPlayerStat(gameId, playerId, request, now);
+        PlayerStat stat;
+        try {
+            statEventLog.awaitDurable(position);
+            stat = playerStatRepository.save(newPlayerStat(gameId, playerId, request, now));
+        } catch (RuntimeException e) {
+            statEventLog.cancelPlayerStat(position, gameId, playerId, request, now);
+            throw e;
+        }
 
-        // Broadcast update via WebSocket
-        Map<String, Object> message = new HashMap<>();
-        message.put("type", "PLAYER_STAT_UPDATE");
-        message.put("gameId", gameId);
-        message.put("playerId", playerId);
-        message.put("stat", stat);
-        messagingTemplate.convertAndSend("/topic/games/" + gameId, message);
+        try {
+            liveGameAggregate.addPlayerStat(gameId, stat);
+            playerTimeline.record(stat, now);
+            gameHistoryService.playerStatRecorded(gameId, now);
+
+            // Broadcast update via WebSocket (coalesced per game)
+            gameBroadcastScheduler.playerStatRecorded(gameId, stat);
+        } catch (RuntimeException e) {
+            throw new CommittedWriteException(e);
+        }
 
         return stat;
     }
 
-    public TeamStat recordTeamStat(String gameId, TeamStatRequest request) {
-        TeamStat stat = teamStatRepository.findByGameId(gameId)
-            .orElse(new TeamStat(gameId));
+    private TeamStat doRecordTeamStat(String gameId, TeamStatRequest request) {
+        statEventLog.validateIds(gameId, null);
+        // Logged from inside recordTeamEvent, which assigns the timestamp the event is saved with,
+        // and durable before the event commits
+        List<LoggedTap> logged = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                gameHistoryService.recordTeamEvent(gameId, request, now(),
+                    event -> logged.add(logTeamStat(gameId, request, event.getTimestamp())));
+                statEventLog.awaitDurable(logged.get(0).position);
+            });
+        } catch (RuntimeException e) {
+            cancel(gameId, logged);
+            throw e;
+        }
+        try {
+            TeamStat stat = liveGameAggregate.getTeamStat(gameId);
+
+            // Broadcast update via WebSocket (coalesced per game)
+            gameBroadcastScheduler.teamStatRecorded(gameId);
 
-        // Update the stat values from request (additive)
-        if (request.getTotalPoints() != null) {
-            stat.setTotalPoints(stat.getTotalPoints() + request.getTotalPoints());
+            return stat;
+        } catch (RuntimeException e) {
+            throw new CommittedWriteException(e);
         }
-        if (request.getErrors() != null) {
-            stat.setErrors(stat.getErrors() + request.getErrors());
+    }
+
+    private StatBatchResponse doRecordBatch(String gameId, StatBatchRequest request) {
+        List<StatBatchEntry> playerEntries = new ArrayList<>();
+        List<PlayerStat> playerStats = new ArrayList<>();
+        List<TeamStatRequest> teamStats = new ArrayList<>();
+        LocalDateTime now = now();
+
+        statEventLog.validateIds(gameId, null);
+        for (StatBatchEntry entry : request.getEvents()) {
+            if (entry.getPlayerStat() != null) {
+                if (entry.getPlayerId() == null) {
+                    throw new IllegalArgumentException("playerId is required for player stat events");
+                }
+                statEventLog.validateIds(gameId, entry.getPlayerId());
+                playerEntries.add(entry);
+                playerStats.add(newPlayerStat(gameId, entry.getPlayerId(), entry.getPlayerStat(), now));
+            }
+            if (entry.getTeamStat() != null) {
+                teamStats.add(entry.getTeamStat());
+            }
         }
-        if (request.getMissedServes() != null) {
-            stat.setMissedServes(stat.getMissedServes() + request.getMissedServes());
+
+        liveGameAggregate.preload(gameId);
+        gameBroadcastScheduler.preload(gameId);
+        // Write-ahead, as for single taps: the whole batch is logged and synced in one group commit
+        // before its transaction commits, and cancelled in the log if the transaction rolls back
+        List<LoggedTap> logged = new ArrayList<>();
+        List<PlayerStat> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                for (StatBatchEntry entry : playerEntries) {
+                    long position = statEventLog.appendPlayerStat(gameId, entry.getPlayerId(), entry.getPlayerStat(), now);
+                    logged.add(new LoggedTap(position, entry.getPlayerId(), entry.getPlayerStat(), null, now));
+                }
+                // Inserts are flushed as JDBC batches (hibernate.jdbc.batch_size)
+                List<PlayerStat> rows = playerStatRepository.saveAll(playerStats);
+                for (TeamStatRequest teamStatRequest : teamStats) {
+                    gameHistoryService.recordTeamEvent(gameId, teamStatRequest, now,
+                        event -> logged.add(logTeamStat(gameId, teamStatRequest, event.getTimestamp())));
+                }
+                if (!logged.isEmpty()) {
+                    statEventLog.awaitDurable(logged.get(logged.size() - 1).position);
+                }
+                return rows;
+            });
+        } catch (RuntimeException e) {
+            cancel(gameId, logged);
+            throw e;
         }
-        if (request.getAces() != null) {
-            stat.setAces(stat.getAces() + request.getAces());
+
+        try {
+            for (PlayerStat stat : saved) {
+                liveGameAggregate.addPlayerStat(gameId, stat);
+                playerTimeline.record(stat, now);
+                gameHistoryService.playerStatRecorded(gameId, now);
+                gameBroadcastScheduler.playerStatRecorded(gameId, stat);
+            }
+
+            TeamStat teamStat = null;
+            if (!teamStats.isEmpty()) {
+                teamStat = liveGameAggregate.getTeamStat(gameId);
+                gameBroadcastScheduler.teamStatRecorded(gameId);
+            }
+            return new StatBatchResponse(saved, teamStat);
+        } catch (RuntimeException e) {
+            throw new CommittedWriteException(e);
         }
-        if (request.getTimeouts() != null) {
-            stat.setTimeouts(stat.getTimeouts() + request.getTimeouts());
+    }
+
+    // Counters are updated in memory; LiveGameAggregate flushes them to team_stats together with the
+    // log position, so the append and the add must not straddle a flush
+    private LoggedTap logTeamStat(String gameId, TeamStatRequest request, LocalDateTime timestamp) {
+        Lock teamWrite = liveGameAggregate.teamWriteLock();
+        teamWrite.lock();
+        try {
+            long position = statEventLog.appendTeamStat(gameId, request, timestamp);
+            liveGameAggregate.addTeamStat(gameId, request);
+            return new LoggedTap(position, null, null, request, timestamp);
+        } finally {
+            teamWrite.unlock();
         }
+    }
 
-        stat.setTimestamp(LocalDateTime.now());
-        stat = teamStatRepository.save(stat);
+    // For taps whose database write failed after they were logged
+    private void cancel(String gameId, List<LoggedTap> logged) {
+        Lock teamWrite = liveGameAggregate.teamWriteLock();
+        teamWrite.lock();
+        try {
+            for (LoggedTap tap : logged) {
+                if (tap.teamStat != null) {
+                    statEventLog.cancelTeamStat(tap.position, gameId, tap.teamStat, tap.timestamp);
+                    liveGameAggregate.removeTeamStat(gameId, tap.teamStat);
+                } else {
+                    statEventLog.cancelPlayerStat(tap.position, gameId, tap.playerId, tap.playerStat, tap.timestamp);
+                }
+            }
+        } finally {
+            teamWrite.unlock();
+        }
+    }
+
+    // Rows keep microseconds, and replay matches logged taps against them exactly
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    // ISO local time as stored, or an ISO instant/offset converted to server time
+    private static LocalDateTime parseTimestamp(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException invalid) {
+                throw new IllegalArgumentException("at must be a team event seq or an ISO timestamp: " + value);
+            }
+        }
+    }
+
+    private PlayerStat newPlayerStat(String gameId, String playerId, PlayerStatRequest request, LocalDateTime timestamp) {
+        PlayerStat stat = new PlayerStat(gameId, playerId);
+        stat.setTimestamp(timestamp);
 
-        // Broadcast update via WebSocket
-        Map<String, Object> message = new HashMap<>();
-        message.put("type", "TEAM_STAT_UPDATE");
-        message.put("gameId", gameId);
-        message.put("stat", stat);
-        messagingTemplate.convertAndSend("/topic/games/" + gameId, message);
+        // Set the stat values from request
+        if (request.getKills() != null) stat.setKills(request.getKills());
+        if (request.getBlocks() != null) stat.setBlocks(request.getBlocks());
+        if (request.getAces() != null) stat.setAces(request.getAces());
+        if (request.getDigs() != null) stat.setDigs(request.getDigs());
+        if (request.getAssists() != null) stat.setAssists(request.getAssists());
+        if (request.getErrors() != null) stat.setErrors(request.getErrors());
 
         return stat;
     }
 
-    public List<Map<String, Object>> getPlayerReport(String gameId, String playerId) {
-        List<PlayerStat> stats = playerStatRepository.findByGameIdAndPlayerIdOrderByTimestampAsc(gameId, playerId);
-        
-        return stats.stream().map(stat -> {
-            Map<String, Object> dataPoint = new HashMap<>();
-            dataPoint.put("timestamp", stat.getTimestamp());
-            // Calculate performance score based on positive vs negative actions
-            int performance = stat.getKills() + stat.getBlocks() + stat.getAces() + stat.getDigs() + stat.getAssists() - stat.getErrors();
-            dataPoint.put("value", Math.max(0, performance)); // Ensure non-negative
-            return dataPoint;
-        }).collect(Collectors.toList());
+    private static class LoggedTap {
+        private final long position;
+        private final String playerId;
+        private final PlayerStatRequest playerStat;
+        private final TeamStatRequest teamStat;
+        private final LocalDateTime timestamp;
+
+        LoggedTap(long position, String playerId, PlayerStatRequest playerStat, TeamStatRequest teamStat,
+                  LocalDateTime timestamp) {
+            this.position = position;
+            this.playerId = playerId;
+            this.playerStat = playerStat;
+            this.teamStat = teamStat;
+            this.timestamp = timestamp;
+        }
     }
 }
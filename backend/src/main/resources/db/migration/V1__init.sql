@@ -0,0 +1,50 @@
+-- Baseline schema, matching the JPA entities as of this release
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE players (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL,
+    jersey_number INTEGER,
+    position VARCHAR(255),
+    user_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_players_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE SEQUENCE player_stats_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE player_stats (
+    id BIGINT NOT NULL,
+    game_id VARCHAR(255) NOT NULL,
+    player_id VARCHAR(255) NOT NULL,
+    kills INTEGER NOT NULL,
+    blocks INTEGER NOT NULL,
+    aces INTEGER NOT NULL,
+    digs INTEGER NOT NULL,
+    assists INTEGER NOT NULL,
+    errors INTEGER NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_player_stats_game_player_ts ON player_stats (game_id, player_id, timestamp);
+CREATE INDEX idx_player_stats_game_ts ON player_stats (game_id, timestamp);
+
+CREATE TABLE team_stats (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    game_id VARCHAR(255) NOT NULL,
+    total_points INTEGER NOT NULL,
+    errors INTEGER NOT NULL,
+    missed_serves INTEGER NOT NULL,
+    aces INTEGER NOT NULL,
+    timeouts INTEGER NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_team_stats_game_id UNIQUE (game_id)
+);
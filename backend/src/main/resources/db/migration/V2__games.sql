@@ -0,0 +1,19 @@
+-- Server-side games and their rosters
+
+CREATE TABLE games (
+    id VARCHAR(255) NOT NULL,
+    user_id BIGINT,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_games_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE game_roster (
+    game_id VARCHAR(255) NOT NULL,
+    player_id BIGINT NOT NULL,
+    PRIMARY KEY (game_id, player_id),
+    CONSTRAINT fk_game_roster_game FOREIGN KEY (game_id) REFERENCES games (id),
+    CONSTRAINT fk_game_roster_player FOREIGN KEY (player_id) REFERENCES players (id)
+);
+
+CREATE INDEX idx_game_roster_player ON game_roster (player_id);
@@ -0,0 +1,37 @@
+-- Immutable team event history and compacted game snapshots for point-in-time state
+
+CREATE SEQUENCE team_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE team_events (
+    id BIGINT NOT NULL,
+    game_id VARCHAR(255) NOT NULL,
+    seq BIGINT NOT NULL,
+    total_points INTEGER NOT NULL,
+    errors INTEGER NOT NULL,
+    missed_serves INTEGER NOT NULL,
+    aces INTEGER NOT NULL,
+    timeouts INTEGER NOT NULL,
+    end_of_set BOOLEAN NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_team_events_game_seq UNIQUE (game_id, seq)
+);
+
+CREATE INDEX idx_team_events_game_ts ON team_events (game_id, timestamp);
+
+CREATE TABLE game_snapshots (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    game_id VARCHAR(255) NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    team_seq BIGINT NOT NULL,
+    sets_completed INTEGER NOT NULL,
+    total_points INTEGER NOT NULL,
+    errors INTEGER NOT NULL,
+    missed_serves INTEGER NOT NULL,
+    aces INTEGER NOT NULL,
+    timeouts INTEGER NOT NULL,
+    player_totals VARCHAR(65535) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_game_snapshots_game_ts ON game_snapshots (game_id, timestamp);
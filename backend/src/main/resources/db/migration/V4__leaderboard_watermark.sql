@@ -0,0 +1,3 @@
+-- Lets the leaderboard refresh read only rows past its timestamp watermark
+
+CREATE INDEX idx_player_stats_ts ON player_stats (timestamp);
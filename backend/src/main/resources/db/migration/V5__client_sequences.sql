@@ -0,0 +1,11 @@
+-- Per-device high-water marks for idempotent stat ingestion
+
+CREATE TABLE client_sequences (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    device_id VARCHAR(64) NOT NULL,
+    game_id VARCHAR(255) NOT NULL,
+    high_water BIGINT NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_client_sequences_device_game UNIQUE (device_id, game_id)
+);
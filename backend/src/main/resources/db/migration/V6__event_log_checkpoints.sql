@@ -0,0 +1,8 @@
+-- Per-node stat event log position that team_stats is complete up to; replay starts there
+
+CREATE TABLE event_log_checkpoints (
+    node_id VARCHAR(64) NOT NULL,
+    position BIGINT NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (node_id)
+);
@@ -0,0 +1,7 @@
+-- Adds the columns findReportPoints reads to the per-player timeline index, so Postgres can answer
+-- it with an index-only scan. The leading columns are unchanged and still serve the ordered lookups
+
+DROP INDEX idx_player_stats_game_player_ts;
+
+CREATE INDEX idx_player_stats_game_player_ts
+    ON player_stats (game_id, player_id, timestamp, id, kills, blocks, aces, digs, assists, errors);
@@ -0,0 +1,286 @@
+package com.volley.broadcast;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConflatingWebSocketSessionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    // Everything the session wrote to the socket, in order
+    private final List<WebSocketMessage<?>> written = Collections.synchronizedList(new ArrayList<>());
+    // The first write blocks until released, so frames sent meanwhile queue up behind it
+    private final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+
+    private ConflatingWebSocketSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard();
+        ReflectionTestUtils.setField(guard, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(guard, "meterRegistry", meterRegistry);
+        guard.registerMetrics();
+
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("s1");
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            written.add(invocation.getArgument(0));
+            if (first.compareAndSet(true, false)) {
+                firstWriteStarted.countDown();
+                releaseFirstWrite.await(10, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(delegate).sendMessage(any());
+
+        session = (ConflatingWebSocketSession) guard.decorate(delegate, 60_000, 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstWrite.countDown();
+    }
+
+    @Test
+    void aSessionThatKeepsUpSendsEveryFrameAsIs() throws Exception {
+        releaseFirstWrite.countDown();
+        List<TextMessage> frames = List.of(delta("sub-1", 1, 1, 1), delta("sub-1", 2, 1, 2), delta("sub-1", 3, 1, 3));
+
+        for (TextMessage frame : frames) {
+            session.sendMessage(frame);
+        }
+
+        assertThat(written).containsExactlyElementsOf(frames);
+        assertThat(conflated()).isZero();
+    }
+
+    @Test
+    void mergesDeltasQueuedForTheSameSubscription() throws Exception {
+        CompletableFuture<Void> writer = sendBlocked(delta("sub-1", 1, 1, 1));
+
+        session.sendMessage(delta("sub-1", 2, 1, 2));
+        session.sendMessage(delta("sub-1", 3, 2, 3));
+        session.sendMessage(deltaFor("sub-1", 4, "p2", 1, null));
+        releaseFirstWrite.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertThat(written).hasSize(2);
+        JsonNode merged = payload(written.get(1));
+        assertThat(merged.path("seq").asLong()).isEqualTo(4);
+        assertThat(merged.path("players").path("p1").path("kills").asInt()).isEqualTo(3);
+        assertThat(merged.path("players").path("p2").path("kills").asInt()).isEqualTo(1);
+        // The latest team totals, from seq 3; seq 4 changed none
+        assertThat(merged.path("team").path("totalPoints").asInt()).isEqualTo(3);
+        assertThat(headers(written.get(1)).getSubscriptionId()).isEqualTo("sub-1");
+        assertThat(conflated()).isEqualTo(2);
+        assertThat(session.queuedBytes()).isZero();
+    }
+
+    @Test
+    void keepsSubscriptionsApartAndInQueueOrder() throws Exception {
+        CompletableFuture<Void> writer = sendBlocked(delta("sub-1", 1, 1, 1));
+
+        session.sendMessage(delta("sub-2", 10, 1, 10));
+        session.sendMessage(delta("sub-1", 2, 1, 2));
+        session.sendMessage(delta("sub-2", 11, 1, 11));
+        session.sendMessage(delta("sub-1", 3, 1, 3));
+        releaseFirstWrite.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertThat(written).hasSize(3);
+        assertThat(headers(written.get(1)).getSubscriptionId()).isEqualTo("sub-2");
+        assertThat(payload(written.get(1)).path("seq").asLong()).isEqualTo(11);
+        assertThat(payload(written.get(1)).path("players").path("p1").path("kills").asInt()).isEqualTo(2);
+        assertThat(headers(written.get(2)).getSubscriptionId()).isEqualTo("sub-1");
+        assertThat(payload(written.get(2)).path("seq").asLong()).isEqualTo(3);
+    }
+
+    @Test
+    void neverMergesAcrossAnotherMessage() throws Exception {
+        CompletableFuture<Void> writer = sendBlocked(delta("sub-1", 1, 1, 1));
+
+        TextMessage other = frame("/topic/announcements", "sub-9", "{\"text\":\"timeout\"}".getBytes());
+        session.sendMessage(delta("sub-1", 2, 1, 2));
+        session.sendMessage(other);
+        session.sendMessage(delta("sub-1", 3, 1, 3));
+        session.sendMessage(delta("sub-1", 4, 1, 4));
+        releaseFirstWrite.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertThat(written).hasSize(4);
+        assertThat(payload(written.get(1)).path("seq").asLong()).isEqualTo(2);
+        assertThat(written.get(2)).isSameAs(other);
+        assertThat(payload(written.get(3)).path("seq").asLong()).isEqualTo(4);
+        assertThat(payload(written.get(3)).path("players").path("p1").path("kills").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void holdsOffMergingUntilTheSnapshotAndDropsDeltasItCovers() throws Exception {
+        session.awaitSnapshot("snap-1", "sub-1");
+        CompletableFuture<Void> writer = sendBlocked(delta("sub-1", 1, 1, 1));
+
+        session.sendMessage(delta("sub-1", 2, 1, 2));
+        session.sendMessage(delta("sub-1", 3, 1, 3));
+        session.sendMessage(snapshot("snap-1", 3));
+        // Already in the snapshot
+        session.sendMessage(delta("sub-1", 3, 1, 3));
+        session.sendMessage(delta("sub-1", 4, 1, 4));
+        session.sendMessage(delta("sub-1", 5, 1, 5));
+        releaseFirstWrite.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+
+        List<String> sent = new ArrayList<>();
+        for (WebSocketMessage<?> message : written) {
+            JsonNode payload = payload(message);
+            sent.add(payload.path("type").asText() + "@" + payload.path("seq").asLong());
+        }
+        assertThat(sent).containsExactly("GAME_DELTA@1", "GAME_DELTA@2", "GAME_DELTA@3", "GAME_SNAPSHOT@3",
+            "GAME_DELTA@5");
+        assertThat(payload(written.get(4)).path("players").path("p1").path("kills").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void aSnapshotSubscriptionDroppedBeforeItsReplyLetsTheTopicMergeAgain() throws Exception {
+        session.awaitSnapshot("snap-1", "sub-1");
+        session.unsubscribed("snap-1");
+        CompletableFuture<Void> writer = sendBlocked(delta("sub-1", 1, 1, 1));
+
+        session.sendMessage(delta("sub-1", 2, 1, 2));
+        session.sendMessage(delta("sub-1", 3, 1, 3));
+        releaseFirstWrite.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertThat(written).hasSize(2);
+        assertThat(payload(written.get(1)).path("seq").asLong()).isEqualTo(3);
+    }
+
+    @Test
+    void mergedFramesStayWithinTheBufferLimit() throws Exception {
+        CompletableFuture<Void> writer = sendBlocked(delta("sub-1", 1, 1, 1));
+
+        for (int seq = 2; seq < 500; seq++) {
+            session.sendMessage(delta("sub-1", seq, 1, seq));
+        }
+        assertThat(session.queuedBytes()).isLessThan(4096);
+        releaseFirstWrite.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertThat(written).hasSize(2);
+        assertThat(payload(written.get(1)).path("players").path("p1").path("kills").asInt()).isEqualTo(498);
+    }
+
+    @Test
+    void dropsTheSessionOnceFramesThatCannotMergeOutgrowTheBuffer() throws Exception {
+        CompletableFuture<Void> writer = sendBlocked(delta("sub-1", 1, 1, 1));
+
+        assertThatThrownBy(() -> {
+            for (int subscription = 2; subscription < 500; subscription++) {
+                session.sendMessage(delta("sub-" + subscription, 1, 1, 1));
+            }
+        }).isInstanceOf(SessionLimitExceededException.class);
+        releaseFirstWrite.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertThat(session.queuedBytes()).isZero();
+        assertThat(written).hasSize(1);
+        assertThat(meterRegistry.counter("volley.stomp.sessions.dropped", "reason", "buffer").count()).isEqualTo(1);
+    }
+
+    // Sends the frame on another thread and returns once its write is under way
+    private CompletableFuture<Void> sendBlocked(TextMessage message) throws Exception {
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                session.sendMessage(message);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(firstWriteStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        return writer;
+    }
+
+    private TextMessage delta(String subscriptionId, long seq, int kills, Integer totalPoints) throws Exception {
+        return deltaFor(subscriptionId, seq, "p1", kills, totalPoints);
+    }
+
+    private TextMessage deltaFor(String subscriptionId, long seq, String playerId, int kills, Integer totalPoints)
+            throws Exception {
+        Map<String, int[]> players = new LinkedHashMap<>();
+        players.put(playerId, new int[] {kills, 0, 0, 0, 0, 0});
+        int[] team = totalPoints != null ? new int[] {totalPoints, 0, 0, 0, 0} : null;
+        GameDelta delta = new GameDelta("g1", seq, players, team);
+        return frame(GameBroadcastScheduler.DESTINATION_PREFIX + "g1", subscriptionId,
+            objectMapper.writeValueAsBytes(delta));
+    }
+
+    private TextMessage snapshot(String subscriptionId, long seq) {
+        String json = "{\"type\":\"GAME_SNAPSHOT\",\"gameId\":\"g1\",\"seq\":" + seq + ",\"players\":{},\"team\":{}}";
+        return frame(GameSnapshotSubscriptions.DESTINATION_PREFIX + "g1", subscriptionId, json.getBytes());
+    }
+
+    private TextMessage frame(String destination, String subscriptionId, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setMessageId(String.valueOf(messageIds.incrementAndGet()));
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return new TextMessage(new StompEncoder().encode(accessor.getMessageHeaders(), payload));
+    }
+
+    private Message<byte[]> decode(WebSocketMessage<?> message) {
+        List<Message<byte[]>> frames = new StompDecoder().decode(ByteBuffer.wrap(((TextMessage) message).asBytes()));
+        assertThat(frames).hasSize(1);
+        return frames.get(0);
+    }
+
+    private StompHeaderAccessor headers(WebSocketMessage<?> message) {
+        return MessageHeaderAccessor.getAccessor(decode(message), StompHeaderAccessor.class);
+    }
+
+    private JsonNode payload(WebSocketMessage<?> message) throws Exception {
+        return objectMapper.readTree(decode(message).getPayload());
+    }
+
+    private double conflated() {
+        return meterRegistry.counter("volley.stomp.frames.conflated").count();
+    }
+}
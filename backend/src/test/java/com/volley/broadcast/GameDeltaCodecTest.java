@@ -0,0 +1,138 @@
+package com.volley.broadcast;
+
+import com.volley.service.LiveGameAggregate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GameDeltaCodecTest {
+
+    @Test
+    void roundTripsPlayersAndTeamTotals() {
+        Map<String, int[]> players = new LinkedHashMap<>();
+        players.put("7", new int[] {1, 0, 0, 0, 0, 0});
+        players.put("12", new int[] {0, 2, 0, -1, 0, 3});
+        GameDelta delta = new GameDelta("g1", 42, players, new int[] {25, 4, 2, 3, 1});
+
+        GameDelta decoded = GameDeltaCodec.decode("g1", GameDeltaCodec.encode(delta));
+
+        assertThat(decoded.getGameId()).isEqualTo("g1");
+        assertThat(decoded.getSeq()).isEqualTo(42);
+        assertThat(decoded.getPlayerDeltas()).containsOnlyKeys("7", "12");
+        assertThat(decoded.getPlayerDeltas().get("7")).containsExactly(1, 0, 0, 0, 0, 0);
+        assertThat(decoded.getPlayerDeltas().get("12")).containsExactly(0, 2, 0, -1, 0, 3);
+        assertThat(decoded.getTeamTotals()).containsExactly(25, 4, 2, 3, 1);
+    }
+
+    @Test
+    void keepsPlayerOrder() {
+        Map<String, int[]> players = new LinkedHashMap<>();
+        for (String id : new String[] {"9", "1", "5"}) {
+            players.put(id, new int[] {1, 0, 0, 0, 0, 0});
+        }
+
+        GameDelta decoded = GameDeltaCodec.decode("g1", GameDeltaCodec.encode(new GameDelta("g1", 1, players, null)));
+
+        assertThat(decoded.getPlayerDeltas().keySet()).containsExactly("9", "1", "5");
+    }
+
+    @Test
+    void omitsTeamTotalsWhenNoneChanged() {
+        Map<String, int[]> players = new LinkedHashMap<>();
+        players.put("3", new int[] {0, 0, 1, 0, 0, 0});
+
+        GameDelta decoded = GameDeltaCodec.decode("g1", GameDeltaCodec.encode(new GameDelta("g1", 5, players, null)));
+
+        assertThat(decoded.getTeamTotals()).isNull();
+        assertThat(decoded.getPlayerDeltas().get("3")).containsExactly(0, 0, 1, 0, 0, 0);
+    }
+
+    @Test
+    void roundTripsAnEmptyDelta() {
+        GameDelta decoded = GameDeltaCodec.decode("g1",
+            GameDeltaCodec.encode(new GameDelta("g1", 0, new LinkedHashMap<>(), null)));
+
+        assertThat(decoded.getSeq()).isZero();
+        assertThat(decoded.getPlayerDeltas()).isEmpty();
+        assertThat(decoded.getTeamTotals()).isNull();
+    }
+
+    @Test
+    void roundTripsExtremeCountersAndSeq() {
+        int[] extremes = new int[LiveGameAggregate.PLAYER_STAT_COUNT];
+        int[] values = {Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 1, -64, 64};
+        System.arraycopy(values, 0, extremes, 0, extremes.length);
+        Map<String, int[]> players = new LinkedHashMap<>();
+        players.put("42", extremes);
+        int[] team = {Integer.MAX_VALUE, Integer.MIN_VALUE, 0, -1, 128};
+
+        GameDelta decoded = GameDeltaCodec.decode("g1",
+            GameDeltaCodec.encode(new GameDelta("g1", Long.MAX_VALUE, players, team)));
+
+        assertThat(decoded.getSeq()).isEqualTo(Long.MAX_VALUE);
+        assertThat(decoded.getPlayerDeltas().get("42")).containsExactly(values);
+        assertThat(decoded.getTeamTotals()).containsExactly(team);
+    }
+
+    @Test
+    void roundTripsNonAsciiPlayerIds() {
+        Map<String, int[]> players = new LinkedHashMap<>();
+        players.put("Zoë-Ω", new int[] {0, 0, 0, 0, 1, 0});
+
+        GameDelta decoded = GameDeltaCodec.decode("g1", GameDeltaCodec.encode(new GameDelta("g1", 3, players, null)));
+
+        assertThat(decoded.getPlayerDeltas()).containsOnlyKeys("Zoë-Ω");
+    }
+
+    @Test
+    void encodesUnchangedCountersInTheMaskOnly() {
+        Map<String, int[]> one = new LinkedHashMap<>();
+        one.put("1", new int[] {1, 0, 0, 0, 0, 0});
+        Map<String, int[]> all = new LinkedHashMap<>();
+        all.put("1", new int[] {1, 1, 1, 1, 1, 1});
+
+        int oneLength = GameDeltaCodec.encode(new GameDelta("g1", 1, one, null)).length;
+        int allLength = GameDeltaCodec.encode(new GameDelta("g1", 1, all, null)).length;
+
+        assertThat(allLength - oneLength).isEqualTo(5);
+    }
+
+    @Test
+    void rejectsAnUnknownVersion() {
+        byte[] frame = GameDeltaCodec.encode(new GameDelta("g1", 1, new LinkedHashMap<>(), null));
+        frame[0] = (byte) (GameDeltaCodec.FORMAT_VERSION + 1);
+
+        assertThatThrownBy(() -> GameDeltaCodec.decode("g1", frame))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("version");
+    }
+
+    @Test
+    void rejectsTruncatedFrames() {
+        Map<String, int[]> players = new LinkedHashMap<>();
+        players.put("12", new int[] {0, 2, 0, -1, 0, 3});
+        byte[] frame = GameDeltaCodec.encode(new GameDelta("g1", 300, players, new int[] {25, 4, 2, 3, 1}));
+
+        for (int length = 0; length < frame.length; length++) {
+            byte[] truncated = Arrays.copyOf(frame, length);
+            assertThatThrownBy(() -> GameDeltaCodec.decode("g1", truncated))
+                .as("frame cut to %d of %d bytes", length, frame.length)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsAnOverlongVarint() {
+        byte[] frame = new byte[11];
+        frame[0] = (byte) GameDeltaCodec.FORMAT_VERSION;
+        Arrays.fill(frame, 1, frame.length, (byte) 0x80);
+
+        assertThatThrownBy(() -> GameDeltaCodec.decode("g1", frame))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.volley.controller;
+
+import com.volley.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class GameExportControllerTest {
+
+    @TempDir
+    static Path eventLogDir;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("volley.eventlog.dir", () -> eventLogDir.toString());
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void streamsTheExportOnTheAsyncDispatch() throws Exception {
+        String token = "Bearer " + jwtUtil.generateToken("admin@volleyball.com");
+        mockMvc.perform(post("/api/games/1/players/1/stats")
+                .header("Authorization", token)
+                .contentType("application/json")
+                .content("{\"kills\":2}"))
+            .andExpect(status().isOk());
+
+        for (String[] format : new String[][] {{"ndjson", "\"kills\":2"}, {"csv", "id,gameId,playerId,kills"}}) {
+            MvcResult started = mockMvc.perform(get("/api/games/1/events/export")
+                    .param("format", format[0])
+                    .header("Authorization", token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            // The body is written on a second, async dispatch of the same request
+            MvcResult finished = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Content-Disposition"))
+                .andReturn();
+            assertThat(finished.getResponse().getContentAsString()).contains(format[1]);
+        }
+    }
+
+    @Test
+    void refusesAnExportWithoutAToken() throws Exception {
+        mockMvc.perform(get("/api/games/1/events/export"))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void anUnknownGameIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/games/no-such-game/events/export")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("admin@volleyball.com")))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isNotFound());
+    }
+}
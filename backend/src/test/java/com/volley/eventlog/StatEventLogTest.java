@@ -0,0 +1,241 @@
+package com.volley.eventlog;
+
+import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.TeamStatRequest;
+import com.volley.service.LiveGameAggregate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatEventLogTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 10, 5, 19, 30, 15, 123_456_789);
+
+    @TempDir
+    Path dir;
+
+    private final List<StatEventLog> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (StatEventLog log : opened) {
+            log.close();
+        }
+    }
+
+    @Test
+    void replaysEveryAppendedTapInOrderAfterReopening() throws Exception {
+        StatEventLog log = open();
+        long first = log.appendPlayerStat("g1", "p7", playerRequest(2, -1), TIMESTAMP);
+        log.awaitDurable(first);
+        TeamStatRequest team = new TeamStatRequest();
+        team.setTotalPoints(1);
+        team.setEndOfSet(true);
+        long second = log.appendTeamStat("g1", team, TIMESTAMP.plusSeconds(1));
+        log.awaitDurable(second);
+        log.close();
+        opened.remove(log);
+
+        StatEventLog reopened = open();
+        assertThat(reopened.position()).isEqualTo(second);
+        List<StatEvent> events = replay(reopened, 0);
+
+        assertThat(events).hasSize(4);
+        assertThat(events.get(0).getTapId()).isZero();
+        assertThat(events.get(0).getKind()).isEqualTo(StatEvent.KIND_PLAYER);
+        assertThat(events.get(0).getGameId()).isEqualTo("g1");
+        assertThat(events.get(0).getPlayerId()).isEqualTo("p7");
+        assertThat(events.get(0).getStatCode()).isEqualTo((byte) (LiveGameAggregate.PLAYER_KILLS + 1));
+        assertThat(events.get(0).getDelta()).isEqualTo(2);
+        assertThat(StatEventLog.toLocalDateTime(events.get(0).getTimestampNanos())).isEqualTo(TIMESTAMP);
+        assertThat(events.get(1).getTapId()).isZero();
+        assertThat(events.get(1).getStatCode()).isEqualTo((byte) (LiveGameAggregate.PLAYER_ERRORS + 1));
+        assertThat(events.get(1).getDelta()).isEqualTo(-1);
+
+        assertThat(events.get(2).getTapId()).isEqualTo(first);
+        assertThat(events.get(2).getKind()).isEqualTo(StatEvent.KIND_TEAM);
+        assertThat(events.get(2).getPlayerId()).isNull();
+        assertThat(events.get(2).getStatCode()).isEqualTo((byte) (LiveGameAggregate.TEAM_TOTAL_POINTS + 1));
+        assertThat(events.get(3).getStatCode()).isEqualTo((byte) (StatEvent.TEAM_END_OF_SET + 1));
+    }
+
+    @Test
+    void keepsAMarkerForATapWithNoCounters() throws Exception {
+        StatEventLog log = open();
+        log.awaitDurable(log.appendPlayerStat("g1", "p1", new PlayerStatRequest(), TIMESTAMP));
+
+        List<StatEvent> events = replay(log, 0);
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getStatCode()).isEqualTo(StatEvent.STAT_NONE);
+    }
+
+    @Test
+    void replaysFromAPositionAcrossSegments() throws Exception {
+        StatEventLog log = open();
+        long position = -1;
+        // Two records per tap, so the 1024-record minimum segment rolls part way through
+        for (int tap = 0; tap < 1500; tap++) {
+            position = log.appendPlayerStat("g1", "p" + tap, playerRequest(1, 1), TIMESTAMP);
+        }
+        log.awaitDurable(position);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.count()).isEqualTo(3);
+        }
+        List<StatEvent> all = replay(log, 0);
+        assertThat(all).hasSize(3000);
+        assertThat(all.get(2999).getPlayerId()).isEqualTo("p1499");
+
+        List<StatEvent> tail = replay(log, 2000);
+        assertThat(tail).hasSize(1000);
+        assertThat(tail.get(0).getTapId()).isEqualTo(2000);
+        assertThat(tail.get(0).getPlayerId()).isEqualTo("p1000");
+    }
+
+    @Test
+    void leavesCancelledTapsOutOfReplay() throws Exception {
+        StatEventLog log = open();
+        long kept = log.appendPlayerStat("g1", "p1", playerRequest(1, 0), TIMESTAMP);
+        long refused = log.appendPlayerStat("g1", "p2", playerRequest(2, 1), TIMESTAMP);
+        log.cancelPlayerStat(refused, "g1", "p2", playerRequest(2, 1), TIMESTAMP);
+        PlayerStatRequest empty = new PlayerStatRequest();
+        long marker = log.appendPlayerStat("g1", "p3", empty, TIMESTAMP);
+        log.cancelPlayerStat(marker, "g1", "p3", empty, TIMESTAMP);
+        long last = log.appendPlayerStat("g1", "p4", playerRequest(1, 0), TIMESTAMP);
+        log.awaitDurable(last);
+
+        assertThat(replay(log, 0)).extracting(StatEvent::getPlayerId).containsExactly("p1", "p4");
+        assertThat(replay(log, kept)).extracting(StatEvent::getPlayerId).containsExactly("p4");
+    }
+
+    @Test
+    void passesOnTheCancellationOfATapBeforeThePosition() throws Exception {
+        StatEventLog log = open();
+        TeamStatRequest team = new TeamStatRequest();
+        team.setTotalPoints(1);
+        team.setAces(1);
+        long refused = log.appendTeamStat("g1", team, TIMESTAMP);
+        log.cancelTeamStat(refused, "g1", team, TIMESTAMP);
+        log.awaitDurable(log.position());
+
+        List<StatEvent> events = replay(log, refused);
+
+        assertThat(events).hasSize(2);
+        assertThat(events).extracting(StatEvent::getKind).containsOnly(StatEvent.KIND_CANCEL);
+        assertThat(events).extracting(StatEvent::getTapId).containsOnly(0L);
+        assertThat(events).extracting(StatEvent::getPlayerId).containsOnlyNulls();
+        assertThat(events).extracting(StatEvent::getDelta).containsExactly(1, 1);
+        assertThat(replay(log, 0)).isEmpty();
+    }
+
+    @Test
+    void stopsAtATornRecord() throws Exception {
+        StatEventLog log = open();
+        long first = log.appendPlayerStat("g1", "p1", playerRequest(1, 0), TIMESTAMP);
+        long second = log.appendPlayerStat("g1", "p2", playerRequest(1, 0), TIMESTAMP);
+        log.awaitDurable(second);
+        log.close();
+        opened.remove(log);
+
+        // Flip a byte of the second record, as a crash mid-write would leave it
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer oneByte = ByteBuffer.allocate(1);
+            long offset = first * LogSegment.RECORD_SIZE + 30;
+            channel.read(oneByte, offset);
+            oneByte.put(0, (byte) (oneByte.get(0) ^ 0xFF)).rewind();
+            channel.write(oneByte, offset);
+        }
+
+        StatEventLog reopened = open();
+        assertThat(reopened.position()).isEqualTo(first);
+        assertThat(replay(reopened, 0)).extracting(StatEvent::getPlayerId).containsExactly("p1");
+    }
+
+    @Test
+    void rejectsIdsTooLongToStore() throws Exception {
+        StatEventLog log = open();
+        String longId = "x".repeat(LogSegment.MAX_ID_BYTES + 1);
+
+        assertThatThrownBy(() -> log.validateIds("g1", longId)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> log.appendPlayerStat(longId, "p1", playerRequest(1, 0), TIMESTAMP))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(log.position()).isZero();
+    }
+
+    @Test
+    void aFailedFsyncFailsTheWaitingWriterAndEveryLaterAppend() throws Exception {
+        StatEventLog log = open();
+        LogSegment segment = (LogSegment) ReflectionTestUtils.getField(log, "current");
+        LogSegment failing = mock(LogSegment.class);
+        when(failing.getBaseIndex()).thenReturn(0L);
+        when(failing.getCapacity()).thenReturn(1024);
+        doThrow(new UncheckedIOException(new IOException("disk gone"))).when(failing).force();
+        ReflectionTestUtils.setField(log, "current", failing);
+
+        long position = log.appendPlayerStat("g1", "p1", playerRequest(1, 0), TIMESTAMP);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> log.awaitDurable(position));
+
+        assertThatThrownBy(() -> waiter.get(10, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(UncheckedIOException.class)
+            .hasRootCauseMessage("disk gone");
+        assertThatThrownBy(() -> log.appendPlayerStat("g1", "p1", playerRequest(1, 0), TIMESTAMP))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasMessageContaining("sync failed");
+        // A later caller waiting on the same position fails too rather than blocking
+        assertThatThrownBy(() -> log.awaitDurable(position)).isInstanceOf(UncheckedIOException.class);
+        assertThat(log.position()).isEqualTo(position);
+
+        // So close() releases the real file
+        ReflectionTestUtils.setField(log, "current", segment);
+    }
+
+    private StatEventLog open() throws IOException {
+        StatEventLog log = new StatEventLog();
+        ReflectionTestUtils.setField(log, "enabled", true);
+        ReflectionTestUtils.setField(log, "dir", dir.toString());
+        ReflectionTestUtils.setField(log, "segmentSizeBytes", LogSegment.RECORD_SIZE * 1024L);
+        ReflectionTestUtils.setField(log, "sync", true);
+        log.open();
+        opened.add(log);
+        return log;
+    }
+
+    private static List<StatEvent> replay(StatEventLog log, long position) throws IOException {
+        List<StatEvent> events = new ArrayList<>();
+        log.replay(position, events::add);
+        return events;
+    }
+
+    private static PlayerStatRequest playerRequest(int kills, int errors) {
+        PlayerStatRequest request = new PlayerStatRequest();
+        request.setKills(kills);
+        request.setErrors(errors);
+        return request;
+    }
+}
@@ -0,0 +1,253 @@
+package com.volley.ingest;
+
+import com.volley.broadcast.GameBroadcastScheduler;
+import com.volley.dto.PlayerStatRequest;
+import com.volley.eventlog.StatEventLog;
+import com.volley.model.PlayerStat;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.service.GameHistoryService;
+import com.volley.service.LiveGameAggregate;
+import com.volley.service.PlayerTimeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TapPipelineTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 10, 5, 19, 30);
+
+    private TapPipeline pipeline;
+    private PlayerStatRepository playerStatRepository;
+    private StatEventLog statEventLog;
+    private LiveGameAggregate liveGameAggregate;
+    private GameBroadcastScheduler gameBroadcastScheduler;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong logPosition = new AtomicLong(-1);
+
+    // While set, the next batch insert blocks until released, so later taps pile up behind it
+    private final AtomicBoolean holdNextBatch = new AtomicBoolean();
+    private final CountDownLatch batchHeld = new CountDownLatch(1);
+    private final CountDownLatch releaseBatch = new CountDownLatch(1);
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        playerStatRepository = mock(PlayerStatRepository.class);
+        when(playerStatRepository.saveAll(any())).thenAnswer(invocation -> {
+            if (holdNextBatch.compareAndSet(true, false)) {
+                batchHeld.countDown();
+                releaseBatch.await(30, TimeUnit.SECONDS);
+            }
+            List<PlayerStat> saved = new ArrayList<>();
+            for (PlayerStat stat : invocation.<Iterable<PlayerStat>>getArgument(0)) {
+                saved.add(save(stat));
+            }
+            return saved;
+        });
+        when(playerStatRepository.save(any(PlayerStat.class))).thenAnswer(invocation -> save(invocation.getArgument(0)));
+        statEventLog = mock(StatEventLog.class);
+        when(statEventLog.appendPlayerStat(anyString(), anyString(), any(), any()))
+            .thenAnswer(invocation -> logPosition.incrementAndGet());
+        liveGameAggregate = mock(LiveGameAggregate.class);
+        gameBroadcastScheduler = mock(GameBroadcastScheduler.class);
+
+        pipeline = new TapPipeline();
+        ReflectionTestUtils.setField(pipeline, "playerStatRepository", playerStatRepository);
+        ReflectionTestUtils.setField(pipeline, "statEventLog", statEventLog);
+        ReflectionTestUtils.setField(pipeline, "liveGameAggregate", liveGameAggregate);
+        ReflectionTestUtils.setField(pipeline, "playerTimeline", mock(PlayerTimeline.class));
+        ReflectionTestUtils.setField(pipeline, "gameHistoryService", mock(GameHistoryService.class));
+        ReflectionTestUtils.setField(pipeline, "gameBroadcastScheduler", gameBroadcastScheduler);
+        ReflectionTestUtils.setField(pipeline, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(pipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "enabled", true);
+        ReflectionTestUtils.setField(pipeline, "ringSize", 16);
+        ReflectionTestUtils.setField(pipeline, "maxBatch", 256);
+        ReflectionTestUtils.setField(pipeline, "waitStrategyName", "blocking");
+        pipeline.start();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        releaseBatch.countDown();
+        // A second stop would wait out the drain for stages that have already exited
+        if ((boolean) ReflectionTestUtils.getField(pipeline, "running")) {
+            pipeline.stop();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void acksWithTheSavedStatOnceItIsLoggedAndDurable() {
+        PlayerStat saved = pipeline.submit("g1", "p7", request(), stat("g1", "p7"), TIMESTAMP);
+
+        assertThat(saved.getId()).isNotNull();
+        // Logged and synced before the row is written
+        InOrder order = inOrder(statEventLog, playerStatRepository);
+        order.verify(statEventLog).appendPlayerStat(eq("g1"), eq("p7"), any(), eq(TIMESTAMP));
+        order.verify(statEventLog).awaitDurable(0);
+        order.verify(playerStatRepository).saveAll(any());
+        // The later stages catch up after the ack
+        verify(liveGameAggregate, timeout(5000)).addPlayerStat("g1", saved);
+        verify(gameBroadcastScheduler, timeout(5000)).playerStatRecorded("g1", saved);
+        assertThat(meterRegistry.summary("volley.ingest.batch.size").totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void aTapThatFailsValidationFailsAlone() {
+        assertThatThrownBy(() -> pipeline.submit("g1", " ", request(), stat("g1", " "), TIMESTAMP))
+            .isInstanceOf(IllegalArgumentException.class);
+        doThrow(new IllegalArgumentException("id too long")).when(statEventLog).validateIds("g1", "long");
+        assertThatThrownBy(() -> pipeline.submit("g1", "long", request(), stat("g1", "long"), TIMESTAMP))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("id too long");
+
+        assertThat(pipeline.submit("g1", "p1", request(), stat("g1", "p1"), TIMESTAMP).getId()).isNotNull();
+        verify(statEventLog, never()).appendPlayerStat(eq("g1"), eq(" "), any(), any());
+        verify(statEventLog, never()).appendPlayerStat(eq("g1"), eq("long"), any(), any());
+        verify(gameBroadcastScheduler, timeout(5000)).playerStatRecorded(eq("g1"), any());
+    }
+
+    @Test
+    void aBatchThatFailsIsRetriedSoOnlyTheBadRowFails() throws Exception {
+        holdNextBatch.set(true);
+        Future<PlayerStat> first = submitAsync("p0");
+        assertThat(batchHeld.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Queued behind the held insert, so they reach the database as one batch
+        List<Future<PlayerStat>> batch = new ArrayList<>();
+        for (String playerId : new String[] {"p1", "bad", "p2", "p3"}) {
+            batch.add(submitAsync(playerId));
+            awaitSequence("cursor", batch.size());
+        }
+        awaitSequence("validated", batch.size());
+        releaseBatch.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThat(batch.get(0).get(10, TimeUnit.SECONDS).getPlayerId()).isEqualTo("p1");
+        assertThatThrownBy(() -> batch.get(1).get(10, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasRootCauseMessage("constraint violated");
+        assertThat(batch.get(2).get(10, TimeUnit.SECONDS).getPlayerId()).isEqualTo("p2");
+        assertThat(batch.get(3).get(10, TimeUnit.SECONDS).getPlayerId()).isEqualTo("p3");
+
+        verify(playerStatRepository, times(4)).save(any(PlayerStat.class));
+        // Only the bad row is taken back out of the log; the committed ones still reach the live totals
+        verify(statEventLog).cancelPlayerStat(anyLong(), eq("g1"), eq("bad"), any(), eq(TIMESTAMP));
+        verify(statEventLog, times(1)).cancelPlayerStat(anyLong(), anyString(), anyString(), any(), any());
+        verify(liveGameAggregate, timeout(5000).times(4)).addPlayerStat(eq("g1"), any());
+        // The held batch, then the three good rows of the retried one
+        assertThat(meterRegistry.summary("volley.ingest.batch.size").totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    void aLogFailureFailsTheTapsItCouldNotMakeDurable() {
+        doThrow(new UncheckedIOException(new IOException("disk gone"))).when(statEventLog).awaitDurable(anyLong());
+
+        assertThatThrownBy(() -> pipeline.submit("g1", "p1", request(), stat("g1", "p1"), TIMESTAMP))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasRootCauseMessage("disk gone");
+        // Nothing reaches the database unless it is durable in the log first
+        verify(playerStatRepository, never()).saveAll(any());
+        verify(playerStatRepository, never()).save(any(PlayerStat.class));
+        verify(liveGameAggregate, never()).addPlayerStat(anyString(), any());
+    }
+
+    @Test
+    void refusesTapsOnceStopped() throws Exception {
+        pipeline.stop();
+
+        assertThatThrownBy(() -> pipeline.submit("g1", "p1", request(), stat("g1", "p1"), TIMESTAMP))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("shut down");
+        verify(playerStatRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void stoppingFailsTapsThatWereNeverPersisted() throws Exception {
+        holdNextBatch.set(true);
+        Future<PlayerStat> writing = submitAsync("p0");
+        assertThat(batchHeld.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<PlayerStat> waiting = submitAsync("p1");
+        awaitSequence("cursor", 1);
+
+        // Waits out the drain timeout, since the insert never returns
+        pipeline.stop();
+
+        for (Future<PlayerStat> tap : List.of(writing, waiting)) {
+            assertThatThrownBy(() -> tap.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("before the tap was persisted");
+        }
+    }
+
+    private Future<PlayerStat> submitAsync(String playerId) {
+        return executor.submit(() -> pipeline.submit("g1", playerId, request(), stat("g1", playerId), TIMESTAMP));
+    }
+
+    // Waits until the named producer cursor or stage has reached the sequence
+    private void awaitSequence(String field, long sequence) throws InterruptedException {
+        AtomicLong reached = (AtomicLong) ReflectionTestUtils.getField(pipeline, field);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (reached.get() < sequence && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(reached.get()).isGreaterThanOrEqualTo(sequence);
+    }
+
+    private PlayerStat save(PlayerStat stat) {
+        if ("bad".equals(stat.getPlayerId())) {
+            throw new IllegalStateException("constraint violated");
+        }
+        stat.setId(ids.incrementAndGet());
+        return stat;
+    }
+
+    private static PlayerStatRequest request() {
+        PlayerStatRequest request = new PlayerStatRequest();
+        request.setKills(1);
+        return request;
+    }
+
+    private static PlayerStat stat(String gameId, String playerId) {
+        PlayerStat stat = new PlayerStat(gameId, playerId);
+        stat.setKills(1);
+        return stat;
+    }
+}
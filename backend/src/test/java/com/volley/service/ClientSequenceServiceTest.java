@@ -0,0 +1,90 @@
+package com.volley.service;
+
+import com.volley.repository.ClientSequenceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClientSequenceServiceTest {
+
+    private ClientSequenceService clientSequenceService;
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ClientSequenceRepository clientSequenceRepository = mock(ClientSequenceRepository.class);
+        when(clientSequenceRepository.findByDeviceIdAndGameId(anyString(), anyString())).thenReturn(Optional.empty());
+
+        clientSequenceService = new ClientSequenceService();
+        ReflectionTestUtils.setField(clientSequenceService, "clientSequenceRepository", clientSequenceRepository);
+        ReflectionTestUtils.setField(clientSequenceService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(clientSequenceService, "windowSize", 64);
+        ReflectionTestUtils.setField(clientSequenceService, "resultSlots", 8);
+        ReflectionTestUtils.setField(clientSequenceService, "idleTtlMs", 60_000L);
+        ReflectionTestUtils.setField(clientSequenceService, "maxWindows", 100);
+        clientSequenceService.registerMetrics();
+    }
+
+    @Test
+    void aRetryGetsTheOriginalResultWithoutWritingAgain() {
+        SequencedResult<String> first = clientSequenceService.apply("d1", 1L, "g1", this::write);
+        SequencedResult<String> retry = clientSequenceService.apply("d1", 1L, "g1", this::write);
+
+        assertThat(first.isDuplicate()).isFalse();
+        assertThat(retry.isDuplicate()).isTrue();
+        assertThat(retry.getValue()).isEqualTo(first.getValue());
+        assertThat(writes).hasValue(1);
+    }
+
+    @Test
+    void aWriteThatCommittedBeforeFailingIsNotAppliedAgainOnRetry() {
+        assertThatThrownBy(() -> clientSequenceService.apply("d1", 1L, "g1", () -> {
+            write();
+            throw new CommittedWriteException(new IllegalStateException("broadcast failed"));
+        })).isInstanceOf(CommittedWriteException.class);
+
+        SequencedResult<String> retry = clientSequenceService.apply("d1", 1L, "g1", this::write);
+
+        // No result was held for it, so the retry is answered without one
+        assertThat(retry.isDuplicate()).isTrue();
+        assertThat(retry.getValue()).isNull();
+        assertThat(writes).hasValue(1);
+    }
+
+    @Test
+    void aWriteThatFailedBeforeCommittingIsAppliedOnRetry() {
+        assertThatThrownBy(() -> clientSequenceService.apply("d1", 1L, "g1", () -> {
+            throw new IllegalStateException("insert failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        SequencedResult<String> retry = clientSequenceService.apply("d1", 1L, "g1", this::write);
+
+        assertThat(retry.isDuplicate()).isFalse();
+        assertThat(retry.getValue()).isEqualTo("write-1");
+        assertThat(writes).hasValue(1);
+    }
+
+    @Test
+    void requestsWithoutTheHeadersAreAlwaysApplied() {
+        clientSequenceService.apply(null, null, "g1", this::write);
+        clientSequenceService.apply(null, null, "g1", this::write);
+
+        assertThat(writes).hasValue(2);
+        assertThatThrownBy(() -> clientSequenceService.apply("d1", null, "g1", this::write))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String write() {
+        return "write-" + writes.incrementAndGet();
+    }
+}
@@ -0,0 +1,248 @@
+package com.volley.service;
+
+import com.volley.dto.TeamStatRequest;
+import com.volley.eventlog.EventLogCheckpoints;
+import com.volley.eventlog.StatEventLog;
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamStat;
+import com.volley.repository.PlayerStatRepository;
+import com.volley.repository.PlayerStatTotals;
+import com.volley.repository.TeamStatRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LiveGameAggregateTest {
+
+    private static final int THREADS = 64;
+    private static final int TAPS_PER_THREAD = 5_000;
+
+    private LiveGameAggregate aggregate;
+    private PlayerStatRepository playerStatRepository;
+    // The game's team_stats row as the flushes left it
+    private final AtomicReference<TeamStat> teamRow = new AtomicReference<>();
+    private final AtomicInteger failSaves = new AtomicInteger();
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        TeamStatRepository teamStatRepository = mock(TeamStatRepository.class);
+        when(teamStatRepository.findByGameId(anyString())).thenAnswer(invocation -> Optional.ofNullable(teamRow.get()));
+        when(teamStatRepository.save(any(TeamStat.class))).thenAnswer(invocation -> {
+            if (failSaves.getAndDecrement() > 0) {
+                throw new IllegalStateException("database unavailable");
+            }
+            TeamStat stat = invocation.getArgument(0);
+            if (stat.getId() == null) {
+                stat.setId(1L);
+            }
+            teamRow.set(stat);
+            return stat;
+        });
+        playerStatRepository = mock(PlayerStatRepository.class);
+        StatEventLog statEventLog = mock(StatEventLog.class);
+        when(statEventLog.position()).thenReturn(-1L);
+
+        aggregate = new LiveGameAggregate();
+        ReflectionTestUtils.setField(aggregate, "teamStatRepository", teamStatRepository);
+        ReflectionTestUtils.setField(aggregate, "playerStatRepository", playerStatRepository);
+        ReflectionTestUtils.setField(aggregate, "statEventLog", statEventLog);
+        ReflectionTestUtils.setField(aggregate, "eventLogCheckpoints", mock(EventLogCheckpoints.class));
+        ReflectionTestUtils.setField(aggregate, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(aggregate, "idleTtlMs", 1_800_000L);
+        aggregate.init();
+        executor = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentPlayerTapsAreAllCounted() throws Exception {
+        runConcurrently(thread -> {
+            String playerId = "p" + (thread % 3);
+            for (int i = 0; i < TAPS_PER_THREAD; i++) {
+                aggregate.addPlayerStat("g1", kill("g1", playerId));
+            }
+        });
+
+        long kills = 0;
+        for (int player = 0; player < 3; player++) {
+            kills += aggregate.getPlayerTotal("g1", "p" + player, LiveGameAggregate.PLAYER_KILLS);
+        }
+        assertThat(kills).isEqualTo((long) THREADS * TAPS_PER_THREAD);
+        assertThat(aggregate.getBoxScore("g1").getVersion()).isEqualTo((long) THREADS * TAPS_PER_THREAD);
+    }
+
+    @Test
+    void databaseTotalsAreSeededOnceWhenTheFirstTapsRace() throws Exception {
+        PlayerStatTotals seeded = mock(PlayerStatTotals.class);
+        when(seeded.getPlayerId()).thenReturn("p0");
+        when(seeded.getKills()).thenReturn(10L);
+        when(seeded.getBlocks()).thenReturn(0L);
+        when(seeded.getAces()).thenReturn(0L);
+        when(seeded.getDigs()).thenReturn(0L);
+        when(seeded.getAssists()).thenReturn(0L);
+        when(seeded.getErrors()).thenReturn(0L);
+        when(playerStatRepository.sumByPlayerForGame("g1")).thenReturn(List.of(seeded));
+
+        runConcurrently(thread -> aggregate.addPlayerStat("g1", kill("g1", "p0")));
+
+        assertThat(aggregate.getPlayerTotal("g1", "p0", LiveGameAggregate.PLAYER_KILLS)).isEqualTo(10L + THREADS);
+    }
+
+    @Test
+    void boxScoresNeverGoBackwardsWhileTapsLand() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Future<String> reader = executor.submit(() -> {
+            long lastVersion = -1;
+            long lastKills = -1;
+            while (writing.get()) {
+                BoxScore boxScore = aggregate.getBoxScore("g1");
+                Map<String, Long> player = boxScore.getPlayers().get("p0");
+                long kills = player != null ? player.get("kills") : 0;
+                if (boxScore.getVersion() < lastVersion || kills < lastKills) {
+                    return "went from version " + lastVersion + " / " + lastKills + " kills to "
+                        + boxScore.getVersion() + " / " + kills;
+                }
+                lastVersion = boxScore.getVersion();
+                lastKills = kills;
+            }
+            return null;
+        });
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < TAPS_PER_THREAD; i++) {
+                aggregate.addPlayerStat("g1", kill("g1", "p0"));
+            }
+        });
+        writing.set(false);
+
+        assertThat(reader.get(10, TimeUnit.SECONDS)).isNull();
+        assertThat(aggregate.getBoxScore("g1").getPlayers().get("p0").get("kills"))
+            .isEqualTo((long) THREADS * TAPS_PER_THREAD);
+    }
+
+    @Test
+    void flushesRacingTeamTapsWriteEveryDeltaOnce() throws Exception {
+        AtomicBoolean tapping = new AtomicBoolean(true);
+        Future<?> flusher = executor.submit(() -> {
+            while (tapping.get()) {
+                aggregate.flush();
+            }
+        });
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < TAPS_PER_THREAD; i++) {
+                TeamStatRequest request = new TeamStatRequest();
+                request.setTotalPoints(1);
+                request.setAces(i % 2);
+                aggregate.teamWriteLock().lock();
+                try {
+                    aggregate.addTeamStat("g1", request);
+                } finally {
+                    aggregate.teamWriteLock().unlock();
+                }
+            }
+        });
+        tapping.set(false);
+        flusher.get(10, TimeUnit.SECONDS);
+        aggregate.flush();
+
+        assertThat(teamRow.get().getTotalPoints()).isEqualTo(THREADS * TAPS_PER_THREAD);
+        assertThat(teamRow.get().getAces()).isEqualTo(THREADS * TAPS_PER_THREAD / 2);
+        assertThat(aggregate.getTeamTotal("g1", LiveGameAggregate.TEAM_TOTAL_POINTS))
+            .isEqualTo((long) THREADS * TAPS_PER_THREAD);
+    }
+
+    @Test
+    void teamStatsAreReusedUntilATeamTapLands() {
+        TeamStatRequest request = new TeamStatRequest();
+        request.setTotalPoints(1);
+        aggregate.addTeamStat("g1", request);
+
+        TeamStat first = aggregate.getTeamStat("g1");
+        aggregate.addPlayerStat("g1", kill("g1", "p0"));
+        assertThat(aggregate.getTeamStat("g1")).isSameAs(first);
+
+        aggregate.addTeamStat("g1", request);
+        TeamStat second = aggregate.getTeamStat("g1");
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getTotalPoints()).isEqualTo(2);
+        assertThat(first.getTotalPoints()).isEqualTo(1);
+
+        // The flush that creates the team_stats row gives the game its id
+        aggregate.flush();
+        TeamStat flushed = aggregate.getTeamStat("g1");
+        assertThat(flushed).isNotSameAs(second);
+        assertThat(flushed.getId()).isNotNull();
+        assertThat(aggregate.getTeamStat("g1")).isSameAs(flushed);
+    }
+
+    @Test
+    void aFailedFlushKeepsItsDeltasForTheNextOne() {
+        TeamStatRequest request = new TeamStatRequest();
+        request.setTotalPoints(3);
+        aggregate.addTeamStat("g1", request);
+
+        failSaves.set(1);
+        aggregate.flush();
+        assertThat(teamRow.get()).isNull();
+
+        aggregate.addTeamStat("g1", request);
+        aggregate.flush();
+        assertThat(teamRow.get().getTotalPoints()).isEqualTo(6);
+    }
+
+    private void runConcurrently(ThreadBody body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int id = thread;
+            Callable<Object> task = () -> {
+                start.await();
+                body.run(id);
+                return null;
+            };
+            futures.add(executor.submit(task));
+        }
+        start.countDown();
+        for (Future<Object> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static PlayerStat kill(String gameId, String playerId) {
+        PlayerStat stat = new PlayerStat(gameId, playerId);
+        stat.setKills(1);
+        return stat;
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+}
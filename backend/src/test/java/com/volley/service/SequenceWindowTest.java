@@ -0,0 +1,117 @@
+package com.volley.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequenceWindowTest {
+
+    @Test
+    void numbersUpToThePersistedHighCountAsApplied() {
+        SequenceWindow window = new SequenceWindow(64, 4, 100);
+
+        assertThat(window.applied(100)).isTrue();
+        assertThat(window.applied(37)).isTrue();
+        assertThat(window.expired(37)).isFalse();
+        assertThat(window.expired(36)).isTrue();
+        assertThat(window.applied(101)).isFalse();
+    }
+
+    @Test
+    void slidingForwardClearsTheNumbersSkippedOver() {
+        SequenceWindow window = new SequenceWindow(64, 4, 100);
+
+        window.markApplied(105, "r105");
+
+        assertThat(window.getHigh()).isEqualTo(105);
+        assertThat(window.applied(105)).isTrue();
+        for (long seq = 101; seq <= 104; seq++) {
+            assertThat(window.applied(seq)).as("seq %d", seq).isFalse();
+        }
+        assertThat(window.applied(100)).isTrue();
+        assertThat(window.expired(41)).isTrue();
+        assertThat(window.expired(42)).isFalse();
+    }
+
+    @Test
+    void aNumberArrivingLateInsideTheWindowIsTrackedOnItsOwn() {
+        SequenceWindow window = new SequenceWindow(64, 4, 0);
+        window.markApplied(10, "r10");
+
+        window.markApplied(8, "r8");
+
+        assertThat(window.getHigh()).isEqualTo(10);
+        assertThat(window.applied(8)).isTrue();
+        assertThat(window.applied(9)).isFalse();
+        assertThat(window.applied(10)).isTrue();
+    }
+
+    @Test
+    void aJumpPastTheWholeWindowForgetsEverythingBeforeIt() {
+        SequenceWindow window = new SequenceWindow(64, 4, 100);
+
+        window.markApplied(1_000, "r");
+
+        assertThat(window.expired(936)).isTrue();
+        assertThat(window.expired(937)).isFalse();
+        for (long seq = 937; seq < 1_000; seq++) {
+            assertThat(window.applied(seq)).as("seq %d", seq).isFalse();
+        }
+        assertThat(window.applied(1_000)).isTrue();
+    }
+
+    @Test
+    void theOldestNumberStillTrackedSharesNoBitWithTheNext() {
+        SequenceWindow window = new SequenceWindow(64, 4, 0);
+        window.markApplied(1, "r1");
+        window.markApplied(64, "r64");
+
+        // 1 and 65 map to the same bit; 65 must not read as applied, and 1 is still tracked
+        assertThat(window.expired(1)).isFalse();
+        assertThat(window.applied(1)).isTrue();
+        assertThat(window.applied(65)).isFalse();
+
+        window.markApplied(65, "r65");
+        assertThat(window.expired(1)).isTrue();
+        assertThat(window.applied(65)).isTrue();
+    }
+
+    @Test
+    void worksWithASizeThatIsNotAMultipleOf64() {
+        SequenceWindow window = new SequenceWindow(100, 4, 0);
+        for (long seq = 1; seq <= 250; seq += 2) {
+            window.markApplied(seq, null);
+        }
+
+        assertThat(window.getHigh()).isEqualTo(249);
+        assertThat(window.expired(149)).isTrue();
+        assertThat(window.expired(150)).isFalse();
+        for (long seq = 150; seq <= 249; seq++) {
+            assertThat(window.applied(seq)).as("seq %d", seq).isEqualTo(seq % 2 == 1);
+        }
+    }
+
+    @Test
+    void keepsTheLastResultsUntilTheirSlotIsReused() {
+        SequenceWindow window = new SequenceWindow(64, 4, 0);
+        for (long seq = 1; seq <= 6; seq++) {
+            window.markApplied(seq, "r" + seq);
+        }
+
+        assertThat(window.result(6)).isEqualTo("r6");
+        assertThat(window.result(3)).isEqualTo("r3");
+        // Applied, but its slot now holds 5
+        assertThat(window.applied(1)).isTrue();
+        assertThat(window.result(1)).isNull();
+        assertThat(window.result(7)).isNull();
+    }
+
+    @Test
+    void aWindowBuiltFromTheDatabaseHasNoResults() {
+        SequenceWindow window = new SequenceWindow(64, 4, 100);
+
+        assertThat(window.applied(100)).isTrue();
+        assertThat(window.result(100)).isNull();
+        assertThat(window.result(0)).isNull();
+    }
+}
@@ -0,0 +1,180 @@
+package com.volley.service;
+
+import com.volley.broadcast.GameBroadcastScheduler;
+import com.volley.dto.PlayerStatRequest;
+import com.volley.dto.StatBatchEntry;
+import com.volley.dto.StatBatchRequest;
+import com.volley.dto.StatBatchResponse;
+import com.volley.dto.TeamStatRequest;
+import com.volley.eventlog.StatEventLog;
+import com.volley.ingest.TapPipeline;
+import com.volley.model.PlayerStat;
+import com.volley.model.TeamEvent;
+import com.volley.model.TeamStat;
+import com.volley.repository.PlayerStatRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsServiceTest {
+
+    private StatsService statsService;
+    private PlayerStatRepository playerStatRepository;
+    private StatEventLog statEventLog;
+    private LiveGameAggregate liveGameAggregate;
+    private GameBroadcastScheduler gameBroadcastScheduler;
+    private PlatformTransactionManager transactionManager;
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong logPosition = new AtomicLong(-1);
+
+    @BeforeEach
+    void setUp() {
+        playerStatRepository = mock(PlayerStatRepository.class);
+        when(playerStatRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<PlayerStat> saved = new ArrayList<>();
+            for (PlayerStat stat : invocation.<Iterable<PlayerStat>>getArgument(0)) {
+                stat.setId(ids.incrementAndGet());
+                saved.add(stat);
+            }
+            return saved;
+        });
+        statEventLog = mock(StatEventLog.class);
+        when(statEventLog.appendPlayerStat(anyString(), anyString(), any(), any()))
+            .thenAnswer(invocation -> logPosition.incrementAndGet());
+        when(statEventLog.appendTeamStat(anyString(), any(), any()))
+            .thenAnswer(invocation -> logPosition.incrementAndGet());
+        liveGameAggregate = mock(LiveGameAggregate.class);
+        when(liveGameAggregate.teamWriteLock()).thenReturn(new ReentrantLock());
+        when(liveGameAggregate.getTeamStat("g1")).thenReturn(new TeamStat("g1"));
+        gameBroadcastScheduler = mock(GameBroadcastScheduler.class);
+        GameHistoryService gameHistoryService = mock(GameHistoryService.class);
+        when(gameHistoryService.recordTeamEvent(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            TeamEvent event = new TeamEvent(invocation.getArgument(0), 1, invocation.getArgument(2));
+            invocation.<Consumer<TeamEvent>>getArgument(3).accept(event);
+            return event;
+        });
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        GameDirectory gameDirectory = mock(GameDirectory.class);
+        when(gameDirectory.exists("g1")).thenReturn(true);
+
+        statsService = new StatsService();
+        ReflectionTestUtils.setField(statsService, "playerStatRepository", playerStatRepository);
+        ReflectionTestUtils.setField(statsService, "gameBroadcastScheduler", gameBroadcastScheduler);
+        ReflectionTestUtils.setField(statsService, "liveGameAggregate", liveGameAggregate);
+        ReflectionTestUtils.setField(statsService, "statEventLog", statEventLog);
+        ReflectionTestUtils.setField(statsService, "playerTimeline", mock(PlayerTimeline.class));
+        ReflectionTestUtils.setField(statsService, "gameHistoryService", gameHistoryService);
+        ReflectionTestUtils.setField(statsService, "tapPipeline", mock(TapPipeline.class));
+        ReflectionTestUtils.setField(statsService, "gameDirectory", gameDirectory);
+        ReflectionTestUtils.setField(statsService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statsService, "transactionManager", transactionManager);
+        statsService.registerMetrics();
+    }
+
+    @Test
+    void aBatchIsDurableInTheLogBeforeItCommits() {
+        StatBatchResponse response = statsService.recordBatch("g1", batch());
+
+        assertThat(response.getPlayerStats()).extracting(PlayerStat::getPlayerId).containsExactly("p1", "p2");
+        assertThat(response.getTeamStat()).isNotNull();
+        // One sync for the whole batch, at its last record, ahead of the commit
+        InOrder order = inOrder(statEventLog, transactionManager);
+        order.verify(statEventLog).awaitDurable(2);
+        order.verify(transactionManager).commit(any());
+        verify(statEventLog).awaitDurable(anyLong());
+        verify(liveGameAggregate, times(2)).addPlayerStat(eq("g1"), any());
+        verify(gameBroadcastScheduler).teamStatRecorded("g1");
+    }
+
+    @Test
+    void aBatchThatCannotBeMadeDurableIsCancelledAndNeverPublished() {
+        doThrow(new UncheckedIOException(new IOException("disk gone"))).when(statEventLog).awaitDurable(anyLong());
+
+        assertThatThrownBy(() -> statsService.recordBatch("g1", batch()))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasRootCauseMessage("disk gone");
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(statEventLog).cancelPlayerStat(eq(0L), eq("g1"), eq("p1"), any(), any());
+        verify(statEventLog).cancelPlayerStat(eq(1L), eq("g1"), eq("p2"), any(), any());
+        verify(statEventLog).cancelTeamStat(eq(2L), eq("g1"), any(), any());
+        verify(liveGameAggregate).removeTeamStat(eq("g1"), any());
+        verify(liveGameAggregate, never()).addPlayerStat(anyString(), any());
+        verify(gameBroadcastScheduler, never()).playerStatRecorded(anyString(), any());
+        verify(gameBroadcastScheduler, never()).teamStatRecorded(anyString());
+    }
+
+    @Test
+    void aBatchWithABadEntryLogsNothing() {
+        StatBatchRequest request = batch();
+        request.getEvents().get(0).setPlayerId(null);
+
+        assertThatThrownBy(() -> statsService.recordBatch("g1", request))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(statEventLog, never()).appendPlayerStat(anyString(), anyString(), any(), any());
+        verify(statEventLog, never()).appendTeamStat(anyString(), any(), any());
+    }
+
+    @Test
+    void aFailureAfterTheCommitIsReportedAsCommitted() {
+        doThrow(new IllegalStateException("broadcast failed")).when(gameBroadcastScheduler).teamStatRecorded("g1");
+        TeamStatRequest request = new TeamStatRequest();
+        request.setTotalPoints(1);
+
+        assertThatThrownBy(() -> statsService.recordTeamStat("g1", request))
+            .isInstanceOf(CommittedWriteException.class)
+            .hasRootCauseMessage("broadcast failed");
+        verify(transactionManager).commit(any());
+        // The tap is stored, so it stays in the log and the live totals
+        verify(statEventLog, never()).cancelTeamStat(anyLong(), anyString(), any(), any());
+        verify(liveGameAggregate, never()).removeTeamStat(anyString(), any());
+    }
+
+    private static StatBatchRequest batch() {
+        List<StatBatchEntry> events = new ArrayList<>();
+        for (String playerId : new String[] {"p1", "p2"}) {
+            PlayerStatRequest stat = new PlayerStatRequest();
+            stat.setKills(1);
+            StatBatchEntry entry = new StatBatchEntry();
+            entry.setPlayerId(playerId);
+            entry.setPlayerStat(stat);
+            events.add(entry);
+        }
+        TeamStatRequest team = new TeamStatRequest();
+        team.setTotalPoints(1);
+        StatBatchEntry entry = new StatBatchEntry();
+        entry.setTeamStat(team);
+        events.add(entry);
+        StatBatchRequest request = new StatBatchRequest();
+        request.setEvents(events);
+        return request;
+    }
+}
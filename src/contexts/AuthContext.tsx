@@ -39,7 +39,7 @@ export function AuthProvider({ children }: { children: React.ReactNode }) {
 
   const login = async (email: string, password: string) => {
     try {
-      const response = await apiClient.post('/auth/login', { email, password });
+      const response = await postLogin(email, password);
       const { token: newToken, user: newUser } = response.data;
       
       setToken(newToken);
@@ -57,6 +57,20 @@ export function AuthProvider({ children }: { children: React.ReactNode }) {
     }
   };
 
+  // A 429 means the server is shedding a login storm; wait as told (plus jitter) and retry
+  const postLogin = async (email: string, password: string, attempt = 0): Promise<any> => {
+    try {
+      return await apiClient.post('/auth/login', { email, password });
+    } catch (error: any) {
+      if (error.response?.status !== 429 || attempt >= 4) {
+        throw error;
+      }
+      const retryAfterSeconds = Number(error.response.headers?.['retry-after']) || 1;
+      await new Promise((resolve) => setTimeout(resolve, retryAfterSeconds * 1000 + Math.random() * 1000));
+      return postLogin(email, password, attempt + 1);
+    }
+  };
+
   const logout = () => {
     setUser(null);
     setToken(null);
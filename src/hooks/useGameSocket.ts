@@ -30,14 +30,35 @@ export function useGameSocket(gameId: string, onMessage: (message: SocketMessage
     client.onConnect = () => {
       console.log('Connected to WebSocket');
       
-      // Subscribe to game-specific updates
+      // Subscribe to game-specific updates, then ask for a GAME_SNAPSHOT of the full game, so
+      // nothing needs refetching after a reconnect; deltas that arrive before it are held, and
+      // those with a seq it already covers are skipped
+      let snapshotSeq: number | null = null;
+      let early: any[] = [];
       client.subscribe(`/topic/games/${gameId}`, (message) => {
         try {
           const data = JSON.parse(message.body);
+          if (data.type === 'GAME_DELTA' && snapshotSeq === null) {
+            early.push(data);
+          } else if (data.type !== 'GAME_DELTA' || data.seq > (snapshotSeq as number)) {
+            onMessage(data);
+          }
+        } catch (error) {
+          console.error('Failed to parse WebSocket message:', error);
+        }
+      });
+      // Answered once, after the topic subscription above is in place
+      const snapshot = client.subscribe(`/app/games/${gameId}`, (message) => {
+        try {
+          const data = JSON.parse(message.body);
+          snapshotSeq = data.seq;
           onMessage(data);
+          early.filter((delta) => delta.seq > data.seq).forEach(onMessage);
+          early = [];
         } catch (error) {
           console.error('Failed to parse WebSocket message:', error);
         }
+        snapshot.unsubscribe();
       });
     };
 
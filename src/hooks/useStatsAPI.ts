@@ -2,7 +2,42 @@
 
 import { apiClient } from '@/lib/apiClient';
 import { Player } from '@/types/Player';
-import { TeamStat } from '@/types/Stats';
+import { BoxScore, TeamStat } from '@/types/Stats';
+
+// Each write carries this tablet's id and its own sequence number, so a retry after a dropped
+// response is recognised by the server instead of being counted twice. The server tracks numbers
+// per device and game, so each game has its own counter; a new one starts after the single
+// counter older versions kept, which every game has already seen
+function nextSequence(gameId: string) {
+  let deviceId = localStorage.getItem('device_id');
+  if (!deviceId) {
+    deviceId = crypto.randomUUID();
+    localStorage.setItem('device_id', deviceId);
+  }
+  const key = `client_seq:${gameId}`;
+  const seq = Number(localStorage.getItem(key) || localStorage.getItem('client_seq') || '0') + 1;
+  localStorage.setItem(key, String(seq));
+  return { 'X-Device-Id': deviceId, 'X-Client-Seq': String(seq) };
+}
+
+// A 204 answers a retry whose original response the server no longer holds; the write was
+// applied, so the current state is read instead
+async function postSequenced(gameId: string, url: string, data: any, refetch: () => Promise<any>) {
+  const headers = nextSequence(gameId);
+  for (let attempt = 1; ; attempt++) {
+    try {
+      const response = await apiClient.post(url, data, { headers });
+      return response.status === 204 ? await refetch() : response.data;
+    } catch (error: any) {
+      // Only retry when the request may not have arrived; a 4xx would fail again
+      const status = error.response?.status;
+      if ((status !== undefined && status < 500) || attempt >= 3) {
+        throw error;
+      }
+      await new Promise((resolve) => setTimeout(resolve, attempt * 1000));
+    }
+  }
+}
 
 export function useStatsAPI() {
   const getPlayers = async (gameId: string): Promise<Player[]> => {
@@ -25,10 +60,24 @@ export function useStatsAPI() {
     }
   };
 
-  const recordPlayerStat = async (gameId: string, playerId: string, statData: any) => {
+  // Per-player and team totals in one request; the browser revalidates it with If-None-Match
+  const getBoxScore = async (gameId: string): Promise<BoxScore> => {
     try {
-      const response = await apiClient.post(`/games/${gameId}/players/${playerId}/stats`, statData);
+      const response = await apiClient.get(`/games/${gameId}/boxscore`);
       return response.data;
+    } catch (error) {
+      console.error('Failed to fetch box score:', error);
+      throw error;
+    }
+  };
+
+  const recordPlayerStat = async (gameId: string, playerId: string, statData: any) => {
+    try {
+      // The tap's own row is gone by then, so a 204 gets the player's totals it is part of
+      return await postSequenced(gameId, `/games/${gameId}/players/${playerId}/stats`, statData, async () => {
+        const boxScore = await getBoxScore(gameId);
+        return { playerId, gameId, ...boxScore.players[playerId] };
+      });
     } catch (error) {
       console.error('Failed to record player stat:', error);
       throw error;
@@ -37,8 +86,7 @@ export function useStatsAPI() {
 
   const recordTeamStat = async (gameId: string, statData: any) => {
     try {
-      const response = await apiClient.post(`/games/${gameId}/team-stats`, statData);
-      return response.data;
+      return await postSequenced(gameId, `/games/${gameId}/team-stats`, statData, () => getTeamStats(gameId));
     } catch (error) {
       console.error('Failed to record team stat:', error);
       throw error;
@@ -58,6 +106,7 @@ export function useStatsAPI() {
   return {
     getPlayers,
     getTeamStats,
+    getBoxScore,
     recordPlayerStat,
     recordTeamStat,
     getPlayerReport,
@@ -21,3 +21,9 @@ export interface TeamStat {
   timeouts: number;
   timestamp: string;
 }
+
+export interface BoxScore {
+  gameId: string;
+  team: Omit<TeamStat, 'id' | 'gameId' | 'timestamp'>;
+  players: Record<string, Omit<PlayerStat, 'id' | 'playerId' | 'gameId' | 'timestamp'>>;
+}